@@ -0,0 +1,25 @@
+package dev.dietermai.wincalc.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Accepts the usual JMH command line options
+ * and always attaches the gc profiler, so every run reports the allocation rate
+ * next to the throughput.
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		Options options = new OptionsBuilder() //
+				.parent(new CommandLineOptions(args)) //
+				.addProfiler(GCProfiler.class) //
+				.build();
+		new Runner(options).run();
+	}
+}
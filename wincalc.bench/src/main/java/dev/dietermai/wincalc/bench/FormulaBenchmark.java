@@ -0,0 +1,61 @@
+package dev.dietermai.wincalc.bench;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.dietermai.wincalc.core.simple.Formula;
+import dev.dietermai.wincalc.core.simple.FormulaCompiler;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+import dev.dietermai.wincalc.core.simple.model.UnaryOperator;
+
+/**
+ * Compares a compiled {@link Formula} with resolving the same expression
+ * "1/x(√(sqr(x)))" through {@link SimpleCalculatorBl}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class FormulaBenchmark {
+	private final BigDecimal x = new BigDecimal("123.456");
+
+	private Formula formula;
+
+	@Setup
+	public void setup() {
+		NumberExpression parameter = new NumberExpression(BigDecimal.ZERO);
+		formula = FormulaCompiler.compile(chain(parameter), parameter);
+	}
+
+	@Benchmark
+	public Result formula() {
+		return formula.apply(x);
+	}
+
+	@Benchmark
+	public Equation resolve() {
+		return SimpleCalculatorBl.resolve(SimpleCalculatorRecord.of(chain(NumberExpression.of(x)))).equation();
+	}
+
+	private static UnaryExpression chain(NumberExpression x) {
+		return UnaryExpression.of(UnaryOperator.oneDivX, UnaryExpression.of(UnaryOperator.root, UnaryExpression.of(UnaryOperator.square, x)));
+	}
+}
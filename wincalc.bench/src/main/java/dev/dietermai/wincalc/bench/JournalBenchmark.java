@@ -0,0 +1,90 @@
+package dev.dietermai.wincalc.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.dietermai.wincalc.core.simple.journal.Durability;
+import dev.dietermai.wincalc.core.simple.journal.JournaledSimpleCalculator;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * Measures the cost of journaling per operation. A single operation waits for
+ * its own group commit, a burst of operations shares one. Run it with several
+ * threads (-t) to see group commits shared between threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+	private static final int BURST = 16;
+
+	@Param
+	public Durability durability;
+
+	private Path directory;
+	private JournaledSimpleCalculator calculator;
+	private List<Operation> burst;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("journal-benchmark");
+		// Snapshots keep the journal short, replaying is not measured here
+		calculator = JournaledSimpleCalculator.open(directory, durability, 100_000);
+		calculator.number("1");
+		calculator.plus();
+		calculator.number("1");
+		calculator.resolve();
+		burst = new ArrayList<>();
+		for (int i = 0; i < BURST; i++) {
+			burst.add(Operation.of(OperationType.resolve));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		calculator.close();
+		try (Stream<Path> paths = Files.walk(directory)) {
+			for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord single() throws IOException {
+		return calculator.resolve();
+	}
+
+	/**
+	 * Reports the time of the whole burst, divide by 16 for one operation
+	 */
+	@Benchmark
+	public SimpleCalculatorRecord burst() throws IOException {
+		return calculator.applyAll(burst);
+	}
+}
@@ -0,0 +1,181 @@
+package dev.dietermai.wincalc.bench;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.dietermai.wincalc.core.simple.codec.ModelReader;
+import dev.dietermai.wincalc.core.simple.codec.ModelWriter;
+import dev.dietermai.wincalc.core.simple.model.BiOperator;
+import dev.dietermai.wincalc.core.simple.model.BinaryExpression;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Expression;
+import dev.dietermai.wincalc.core.simple.model.IdleExpression;
+import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+import dev.dietermai.wincalc.core.simple.model.UnaryOperator;
+
+/**
+ * Compares the binary model codec with a plain text encoding of the same
+ * equation history, the way repeated resolves build it: every equation reuses
+ * the right operand of the one before. The encoded sizes are printed once per
+ * trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class ModelCodecBenchmark {
+	private static final int EQUATIONS = 64;
+
+	@Param
+	public Operands operands;
+
+	private List<Equation> history;
+	private ModelWriter writer;
+	private ModelReader reader;
+	private ByteBuffer binary;
+	private ByteBuffer encoded;
+	private byte[] text;
+
+	@Setup
+	public void setup() {
+		history = new ArrayList<>(EQUATIONS);
+		BigDecimal value = operands.leftValue();
+		Expression right = UnaryExpression.of(UnaryOperator.square, operands.right());
+		BigDecimal rightValue = operands.rightValue().pow(2);
+		for (int i = 0; i < EQUATIONS; i++) {
+			BigDecimal result = value.add(rightValue);
+			history.add(Equation.of(BinaryExpression.of(value, BiOperator.plus, right), Result.of(result)));
+			value = result;
+		}
+
+		binary = ByteBuffer.allocate(1 << 22);
+		writer = new ModelWriter(binary);
+		reader = new ModelReader(binary);
+		encoded = encodeBinary().duplicate().flip();
+		text = encodeText();
+		System.out.printf("%nEncoded size of %d equations: binary %,d bytes, text %,d bytes%n", EQUATIONS, encoded.limit(), text.length);
+	}
+
+	@Benchmark
+	public ByteBuffer encodeBinary() {
+		writer.reset(binary.clear());
+		for (Equation equation : history) {
+			writer.writeEquation(equation);
+		}
+		return binary;
+	}
+
+	@Benchmark
+	public Equation decodeBinary() {
+		reader.reset(encoded.rewind());
+		Equation last = null;
+		for (int i = 0; i < EQUATIONS; i++) {
+			last = reader.readEquation();
+		}
+		return last;
+	}
+
+	@Benchmark
+	public byte[] encodeText() {
+		StringBuilder sb = new StringBuilder();
+		for (Equation equation : history) {
+			TextFormat.append(sb, equation);
+			sb.append('\n');
+		}
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public Equation decodeText() {
+		TextFormat format = new TextFormat(new String(text, StandardCharsets.UTF_8));
+		Equation last = null;
+		for (int i = 0; i < EQUATIONS; i++) {
+			last = format.readEquation();
+		}
+		return last;
+	}
+
+	/**
+	 * Prefix notation with space separated tokens, decimals as plain strings.
+	 */
+	private static final class TextFormat {
+		private final String text;
+		private int position;
+
+		private TextFormat(String text) {
+			this.text = text;
+		}
+
+		private static void append(StringBuilder sb, Equation equation) {
+			sb.append(equation.error().name()).append(' ');
+			sb.append(equation.value() == null ? "_" : equation.value().toPlainString()).append(' ');
+			append(sb, equation.expression());
+		}
+
+		private static void append(StringBuilder sb, Expression expression) {
+			switch (expression) {
+			case null -> sb.append('_');
+			case IdleExpression idle -> sb.append('i');
+			case NumberExpression number -> sb.append("n ").append(number.value().toPlainString());
+			case UnaryExpression unary -> {
+				sb.append("u ").append(unary.operator().name()).append(' ');
+				append(sb, unary.nested());
+			}
+			case BinaryExpression binary -> {
+				sb.append("b ");
+				append(sb, binary.left());
+				sb.append(' ').append(binary.operator().name()).append(' ');
+				append(sb, binary.right());
+			}
+			}
+		}
+
+		private Equation readEquation() {
+			ResultType error = ResultType.valueOf(token());
+			String value = token();
+			Expression expression = readExpression();
+			return new Equation(expression, "_".equals(value) ? null : new BigDecimal(value), error);
+		}
+
+		private Expression readExpression() {
+			return switch (token()) {
+			case "_" -> null;
+			case "i" -> IdleExpression.of();
+			case "n" -> NumberExpression.of(new BigDecimal(token()));
+			case "u" -> UnaryExpression.of(UnaryOperator.valueOf(token()), readExpression());
+			default -> new BinaryExpression(readExpression(), BiOperator.valueOf(token()), readExpression());
+			};
+		}
+
+		private String token() {
+			int start = position;
+			int end = start;
+			while (end < text.length() && text.charAt(end) != ' ' && text.charAt(end) != '\n') {
+				end++;
+			}
+			position = end + 1;
+			return text.substring(start, end);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package dev.dietermai.wincalc.bench;
+
+import java.math.BigDecimal;
+
+/**
+ * The operand sizes used by the benchmarks.
+ */
+public enum Operands {
+	/** Values as typed by a user */
+	SMALL("1234.5", "67.89"),
+	/** Values with 1,000 significant digits */
+	LARGE(digits(1000, 1, 500), digits(1000, 7, 1));
+
+	private final String left;
+	private final String right;
+
+	private Operands(String left, String right) {
+		this.left = left;
+		this.right = right;
+	}
+
+	public String left() {
+		return left;
+	}
+
+	public String right() {
+		return right;
+	}
+
+	public BigDecimal leftValue() {
+		return new BigDecimal(left);
+	}
+
+	public BigDecimal rightValue() {
+		return new BigDecimal(right);
+	}
+
+	/**
+	 * Creates a deterministic number with the given amount of digits.
+	 *
+	 * @param count       The number of digits
+	 * @param seed        The first digit
+	 * @param pointOffset The number of digits in front of the decimal point
+	 * @return The created number
+	 */
+	private static String digits(int count, int seed, int pointOffset) {
+		StringBuilder sb = new StringBuilder(count + 1);
+		for (int i = 0; i < count; i++) {
+			if (i == pointOffset) {
+				sb.append('.');
+			}
+			sb.append((char) ('1' + (seed + i) % 9));
+		}
+		return sb.toString();
+	}
+}
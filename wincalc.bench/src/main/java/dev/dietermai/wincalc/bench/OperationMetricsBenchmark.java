@@ -0,0 +1,75 @@
+package dev.dietermai.wincalc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.history.RingBufferEquationHistory;
+import dev.dietermai.wincalc.core.simple.metrics.OperationMetrics;
+
+/**
+ * Measures the cost of recording every operation of a {@link SimpleCalculator}
+ * in {@link OperationMetrics}: the time per operation with recording enabled
+ * minus the time with recording disabled. Four threads record into the shared
+ * registry at the same time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@Threads(4)
+public class OperationMetricsBenchmark {
+	private static final int OPERATIONS = 5;
+
+	@State(Scope.Benchmark)
+	public static class Recording {
+		@Param({ "false", "true" })
+		public boolean enabled;
+
+		@Setup
+		public void setup() {
+			OperationMetrics.shared().reset();
+			OperationMetrics.shared().setEnabled(enabled);
+		}
+
+		@TearDown
+		public void tearDown() {
+			OperationMetrics.shared().setEnabled(false);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Calculator {
+		private final SimpleCalculator calculator = new SimpleCalculator(new RingBufferEquationHistory(64));
+	}
+
+	/**
+	 * 12 + 3 = C
+	 */
+	@Benchmark
+	@OperationsPerInvocation(OPERATIONS)
+	public SimpleCalculator operation(Recording recording, Calculator state) {
+		SimpleCalculator calculator = state.calculator;
+		calculator.number("12");
+		calculator.plus();
+		calculator.number("3");
+		calculator.resolve();
+		calculator.c();
+		return calculator;
+	}
+}
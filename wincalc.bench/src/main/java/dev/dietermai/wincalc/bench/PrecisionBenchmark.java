@@ -0,0 +1,75 @@
+package dev.dietermai.wincalc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.dietermai.wincalc.core.simple.EvaluationMode;
+import dev.dietermai.wincalc.core.simple.FastPath;
+import dev.dietermai.wincalc.core.simple.PrecisionPolicy;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * Measures the rounded operations of {@link SimpleCalculatorBl} for a growing
+ * number of digits, the cost curve of the {@link PrecisionPolicy}. The operands
+ * are small, so the digits of the result dominate the cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class PrecisionBenchmark {
+
+	@Param({ "8", "16", "32", "64", "128" })
+	public int digits;
+
+	@Param
+	public EvaluationMode mode;
+
+	private PrecisionPolicy policy;
+	/** Input of a value that has no exact root, e.g. "12" */
+	private SimpleCalculatorRecord input;
+	/** A division with an infinite quotient, e.g. "10 / 3" */
+	private SimpleCalculatorRecord pendingDivide;
+
+	@Setup
+	public void setup() {
+		FastPath.setMode(mode);
+		policy = PrecisionPolicy.of(digits);
+		input = SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), "12.3");
+		pendingDivide = SimpleCalculatorBl.number(SimpleCalculatorBl.divide(SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), "10"), policy), "3");
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord resolveDivide() {
+		return SimpleCalculatorBl.resolve(pendingDivide, policy);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord square() {
+		return SimpleCalculatorBl.square(input, policy);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord root() {
+		return SimpleCalculatorBl.root(input, policy);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord oneDivX() {
+		return SimpleCalculatorBl.oneDivX(input, policy);
+	}
+}
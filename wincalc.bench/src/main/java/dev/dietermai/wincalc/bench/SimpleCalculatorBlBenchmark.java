@@ -0,0 +1,129 @@
+package dev.dietermai.wincalc.bench;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.dietermai.wincalc.core.simple.EvaluationMode;
+import dev.dietermai.wincalc.core.simple.FastPath;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * Measures every state transition of {@link SimpleCalculatorBl} for small and
+ * for 1,000 digit operands. Each benchmark executes exactly one key press on a
+ * prepared state.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class SimpleCalculatorBlBenchmark {
+
+	@Param
+	public Operands operands;
+
+	@Param
+	public EvaluationMode mode;
+
+	/** Input of the left operand, e.g. "12" */
+	private SimpleCalculatorRecord leftInput;
+	/** Left operand and the given operator, with the right operand as input, e.g. "12 + 3" */
+	private SimpleCalculatorRecord pendingPlus;
+	private SimpleCalculatorRecord pendingMinus;
+	private SimpleCalculatorRecord pendingMultiply;
+	private SimpleCalculatorRecord pendingDivide;
+	/** A resolved equation, e.g. "12 + 3 =" */
+	private SimpleCalculatorRecord resolved;
+	/** A unary expression, e.g. "sqr(12)" */
+	private SimpleCalculatorRecord unary;
+
+	@Setup
+	public void setup() {
+		FastPath.setMode(mode);
+		leftInput = SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), operands.left());
+		pendingPlus = pending(SimpleCalculatorBl.plus(leftInput));
+		pendingMinus = pending(SimpleCalculatorBl.minus(leftInput));
+		pendingMultiply = pending(SimpleCalculatorBl.multiply(leftInput));
+		pendingDivide = pending(SimpleCalculatorBl.divide(leftInput));
+		resolved = SimpleCalculatorBl.resolve(pendingPlus);
+		unary = SimpleCalculatorBl.square(leftInput);
+	}
+
+	private SimpleCalculatorRecord pending(SimpleCalculatorRecord withOperator) {
+		return SimpleCalculatorBl.number(withOperator, operands.right());
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord resolve() {
+		return SimpleCalculatorBl.resolve(pendingPlus);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord resolveDivide() {
+		return SimpleCalculatorBl.resolve(pendingDivide);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord plus() {
+		return SimpleCalculatorBl.plus(pendingPlus);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord minus() {
+		return SimpleCalculatorBl.minus(pendingMinus);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord multiply() {
+		return SimpleCalculatorBl.multiply(pendingMultiply);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord divide() {
+		return SimpleCalculatorBl.divide(pendingDivide);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord negate() {
+		return SimpleCalculatorBl.negate(resolved);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord percent() {
+		return SimpleCalculatorBl.percent(pendingPlus);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord square() {
+		return SimpleCalculatorBl.square(leftInput);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord root() {
+		return SimpleCalculatorBl.root(leftInput);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord oneDivX() {
+		return SimpleCalculatorBl.oneDivX(leftInput);
+	}
+
+	@Benchmark
+	public BigDecimal getCurrentValue() {
+		return SimpleCalculatorBl.getCurrentValue(unary);
+	}
+}
@@ -0,0 +1,99 @@
+package dev.dietermai.wincalc.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+import dev.dietermai.wincalc.core.simple.text.TextEvaluator;
+import dev.dietermai.wincalc.core.simple.text.TextScanner;
+import dev.dietermai.wincalc.core.simple.text.TokenSink;
+
+/**
+ * Measures the text front-end in tokens per microsecond: the scanner alone,
+ * on chars and on UTF-8 bytes, and the scanner driving the calculator.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)
+public class TextEvaluatorBenchmark {
+	private static final String[] LINES = { "12+3*4=", "sqr(9)/3=", "1234.5 × 67.89 − 1/(8) =", "negate(√(16))+0.25%=", "7÷2==" };
+	private static final int REPEAT = 200;
+	/** The tokens of all lines, checked in the setup */
+	private static final int TOKENS = 30 * REPEAT;
+
+	private String text;
+	private ByteBuffer bytes;
+	private CountingSink counter;
+	private TextScanner scanner;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < REPEAT; i++) {
+			for (String line : LINES) {
+				sb.append(line).append('\n');
+			}
+		}
+		text = sb.toString();
+		bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+		counter = new CountingSink();
+		scanner = new TextScanner(counter);
+		scan();
+		if (counter.tokens != TOKENS) {
+			throw new IllegalStateException("Expected " + TOKENS + " tokens, but got " + counter.tokens);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TOKENS)
+	public long scan() {
+		counter.tokens = 0;
+		scanner.accept(text).finish();
+		return counter.tokens;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TOKENS)
+	public long scanBytes() {
+		counter.tokens = 0;
+		scanner.accept(bytes.rewind()).finish();
+		return counter.tokens;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TOKENS)
+	public SimpleCalculatorRecord evaluate() {
+		return new TextEvaluator().accept(text).finish();
+	}
+
+	private static final class CountingSink implements TokenSink {
+		private long tokens;
+
+		@Override
+		public void number(char[] buffer, int length) {
+			tokens++;
+		}
+
+		@Override
+		public void operation(OperationType type) {
+			tokens++;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package dev.dietermai.wincalc.bench;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * Measures key presses on deeply nested unary expressions like
+ * "sqr(√(sqr(√(2))))". The chain alternates root and square, so the value stays
+ * close to the operand no matter how deep the chain is.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class UnaryChainBenchmark {
+
+	@Param({ "1", "10", "100", "1000" })
+	public int depth;
+
+	@Param
+	public Operands operands;
+
+	private SimpleCalculatorRecord chain;
+
+	@Setup
+	public void setup() {
+		chain = SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), operands.left());
+		for (int i = 0; i < depth; i++) {
+			chain = i % 2 == 0 ? SimpleCalculatorBl.root(chain) : SimpleCalculatorBl.square(chain);
+		}
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord square() {
+		return SimpleCalculatorBl.square(chain);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord root() {
+		return SimpleCalculatorBl.root(chain);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord oneDivX() {
+		return SimpleCalculatorBl.oneDivX(chain);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord negate() {
+		return SimpleCalculatorBl.negate(chain);
+	}
+
+	@Benchmark
+	public SimpleCalculatorRecord resolve() {
+		return SimpleCalculatorBl.resolve(chain);
+	}
+
+	@Benchmark
+	public BigDecimal getCurrentValue() {
+		return SimpleCalculatorBl.getCurrentValue(chain);
+	}
+}
@@ -0,0 +1,277 @@
+package dev.dietermai.wincalc.cli;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+import dev.dietermai.wincalc.core.simple.text.TextEvaluator;
+import dev.dietermai.wincalc.core.simple.text.TextScanner;
+
+/**
+ * Evaluates a file with one calculation per line, in the notation of
+ * {@link TextScanner}, and writes one result per line into the output file:
+ * the plain value, the name of the error type, or {@value #INVALID} if the
+ * line is not valid calculator input or fails to evaluate. Every line starts
+ * with a new calculator.
+ * <p>
+ * The input is split at line boundaries into chunks, which the workers map one
+ * by one and evaluate straight from the mapped memory, so the input is never
+ * copied onto the heap. A worker collects the results of a chunk in its own
+ * buffer and writes them with a positional write as soon as the chunks before
+ * have been written, so the output is in input order while the workers never
+ * wait for each other's evaluation. Each worker only works on one chunk at a
+ * time, which keeps the memory independent of the file size.
+ */
+public final class BatchFileEvaluator {
+	public static final String INVALID = "INVALID";
+
+	private static final int DEFAULT_CHUNK_SIZE = 4 << 20;
+	private static final int INITIAL_OUTPUT_SIZE = 1 << 16;
+	private static final int BOUNDARY_SEARCH_SIZE = 4096;
+
+	private final int threads;
+	private final int chunkSize;
+
+	/**
+	 * @param threads The number of worker threads
+	 */
+	public BatchFileEvaluator(int threads) {
+		this(threads, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param threads   The number of worker threads
+	 * @param chunkSize The size of a chunk in bytes, smaller if the file does not
+	 *                  fill a chunk per thread. A chunk extends to the end of the
+	 *                  line it ends in.
+	 */
+	public BatchFileEvaluator(int threads, int chunkSize) {
+		if (threads < 1 || chunkSize < 1) {
+			throw new IllegalArgumentException("threads and chunk size have to be positive");
+		}
+		this.threads = threads;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Evaluates every line of the input file into the output file, which is
+	 * replaced.
+	 *
+	 * @param input  The file to evaluate
+	 * @param output The file the results are written to
+	 * @return The statistics of the run
+	 * @throws IOException if a file can not be read or written
+	 */
+	public BatchStatistics evaluate(Path input, Path output) throws IOException {
+		long start = System.nanoTime();
+		try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long[] boundaries = boundaries(in);
+			Run run = new Run(in, out, boundaries);
+			int workers = Math.max(1, Math.min(threads, boundaries.length - 1));
+			ExecutorService executor = Executors.newFixedThreadPool(workers);
+			try {
+				List<Future<Counts>> results = new ArrayList<>(workers);
+				for (int i = 0; i < workers; i++) {
+					results.add(executor.submit(run::work));
+				}
+				Counts total = new Counts();
+				for (Future<Counts> result : results) {
+					total.add(join(result));
+				}
+				return new BatchStatistics(total.lines, total.invalidLines, in.size(), run.outputSize(), boundaries.length - 1, Duration.ofNanos(System.nanoTime() - start));
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/* ------------- */
+	/* Chunk borders */
+	/* ------------- */
+	/**
+	 * @return The start of every chunk followed by the size of the file
+	 */
+	private long[] boundaries(FileChannel in) throws IOException {
+		long size = in.size();
+		long targetSize = Math.min(chunkSize, size / threads + 1);
+		List<Long> boundaries = new ArrayList<>();
+		ByteBuffer window = ByteBuffer.allocate(BOUNDARY_SEARCH_SIZE);
+		long position = 0;
+		while (position < size) {
+			boundaries.add(position);
+			position = nextLineStart(in, window, position + targetSize, size);
+		}
+		boundaries.add(size);
+		return boundaries.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	/**
+	 * @return The position after the first line break at or after the given
+	 *         position, or the size of the file if there is none
+	 */
+	private static long nextLineStart(FileChannel in, ByteBuffer window, long position, long size) throws IOException {
+		while (position < size) {
+			window.clear();
+			int read = in.read(window, position - 1);
+			for (int i = 0; i < read; i++) {
+				if (window.get(i) == '\n') {
+					return position + i;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	/* ------- */
+	/* Workers */
+	/* ------- */
+	/**
+	 * The shared state of one evaluation
+	 */
+	private static final class Run {
+		private final FileChannel in;
+		private final FileChannel out;
+		private final long[] boundaries;
+		private final AtomicInteger nextChunk = new AtomicInteger();
+		/** The output position after each chunk, completed once it is written */
+		private final List<CompletableFuture<Long>> ends = new ArrayList<>();
+
+		private Run(FileChannel in, FileChannel out, long[] boundaries) {
+			this.in = in;
+			this.out = out;
+			this.boundaries = boundaries;
+			for (int i = 1; i < boundaries.length; i++) {
+				ends.add(new CompletableFuture<>());
+			}
+		}
+
+		private long outputSize() {
+			return ends.isEmpty() ? 0 : ends.get(ends.size() - 1).join();
+		}
+
+		private Counts work() {
+			Counts counts = new Counts();
+			TextEvaluator evaluator = new TextEvaluator();
+			ByteBuffer results = ByteBuffer.allocate(INITIAL_OUTPUT_SIZE);
+			for (int chunk = nextChunk.getAndIncrement(); chunk < ends.size(); chunk = nextChunk.getAndIncrement()) {
+				try {
+					long start = boundaries[chunk];
+					MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, start, boundaries[chunk + 1] - start);
+					results = evaluateChunk(mapped, evaluator, results.clear(), counts);
+					long position = chunk == 0 ? 0 : ends.get(chunk - 1).join();
+					write(results.flip(), position);
+					ends.get(chunk).complete(position + results.limit());
+				} catch (IOException | RuntimeException e) {
+					// Fails the chunks that wait for this one as well
+					ends.get(chunk).completeExceptionally(e);
+					throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+				}
+			}
+			return counts;
+		}
+
+		private void write(ByteBuffer results, long position) throws IOException {
+			long offset = position;
+			while (results.hasRemaining()) {
+				offset += out.write(results, offset);
+			}
+		}
+	}
+
+	/**
+	 * Evaluates every line of the chunk and appends its result to the results.
+	 *
+	 * @return The results buffer, a larger one if it had to grow
+	 */
+	private static ByteBuffer evaluateChunk(ByteBuffer chunk, TextEvaluator evaluator, ByteBuffer results, Counts counts) {
+		int end = chunk.limit();
+		int lineStart = 0;
+		while (lineStart < end) {
+			int lineEnd = lineStart;
+			while (lineEnd < end && chunk.get(lineEnd) != '\n') {
+				lineEnd++;
+			}
+			String result = evaluateLine(chunk.limit(lineEnd).position(lineStart), evaluator);
+			chunk.limit(end);
+			if (INVALID.equals(result)) {
+				counts.invalidLines++;
+			}
+			counts.lines++;
+			results = append(results, result);
+			lineStart = lineEnd + 1;
+		}
+		return results;
+	}
+
+	private static String evaluateLine(ByteBuffer line, TextEvaluator evaluator) {
+		try {
+			SimpleCalculatorRecord state = evaluator.reset().accept(line).finish();
+			if (state.lastResolve().error()) {
+				return state.lastResolve().name();
+			}
+			return SimpleCalculatorBl.getCurrentValue(state).toPlainString();
+		} catch (RuntimeException e) {
+			return INVALID;
+		}
+	}
+
+	private static ByteBuffer append(ByteBuffer results, String result) {
+		int length = result.length();
+		if (results.remaining() < length + 1) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(results.capacity() * 2, results.position() + length + 1));
+			results = larger.put(results.flip());
+		}
+		// Results are ASCII, digits, sign, point and error names
+		for (int i = 0; i < length; i++) {
+			results.put((byte) result.charAt(i));
+		}
+		return results.put((byte) '\n');
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private static Counts join(Future<Counts> result) throws IOException {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException io) {
+				throw io.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private static final class Counts {
+		private long lines;
+		private long invalidLines;
+
+		private void add(Counts other) {
+			lines += other.lines;
+			invalidLines += other.invalidLines;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package dev.dietermai.wincalc.cli;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Evaluates an input file with one calculation per line into an output file
+ * with one result per line.
+ * <p>
+ * Usage: java --enable-preview -p &lt;module path&gt; -m
+ * wincalc.cli/dev.dietermai.wincalc.cli.BatchMain &lt;input&gt; &lt;output&gt;
+ * [threads]
+ */
+public class BatchMain {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BatchMain <input> <output> [threads]");
+			System.exit(2);
+		}
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		BatchStatistics statistics = new BatchFileEvaluator(threads).evaluate(Path.of(args[0]), Path.of(args[1]));
+		System.out.printf("%,d lines, %,d invalid, %,d chunks in %d ms, %.1f MiB/s%n", statistics.lines(), statistics.invalidLines(), statistics.chunks(),
+				statistics.elapsed().toMillis(), statistics.inputMibPerSecond());
+	}
+}
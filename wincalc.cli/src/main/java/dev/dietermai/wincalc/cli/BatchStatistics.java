@@ -0,0 +1,17 @@
+package dev.dietermai.wincalc.cli;
+
+import java.time.Duration;
+
+/**
+ * The outcome of one {@link BatchFileEvaluator} run.
+ */
+public record BatchStatistics(long lines, long invalidLines, long inputBytes, long outputBytes, int chunks, Duration elapsed) {
+
+	/**
+	 * @return The read input in MiB per second
+	 */
+	public double inputMibPerSecond() {
+		double seconds = Math.max(elapsed.toNanos(), 1) / 1e9;
+		return inputBytes / (1024.0 * 1024.0) / seconds;
+	}
+}
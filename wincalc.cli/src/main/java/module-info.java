@@ -0,0 +1,9 @@
+
+/**
+ * Evaluates files of calculator input from the command line.
+ */
+module wincalc.cli {
+	requires wincalc.core;
+
+	exports dev.dietermai.wincalc.cli;
+}
@@ -0,0 +1,95 @@
+package dev.dietermai.wincalc.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchFileEvaluatorTest {
+	private static final String[] OPERATORS = { "+", "-", "*", "/", "×", "÷" };
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testResultPerLine() throws IOException {
+		Path input = write("12+3*4=\r\nsqr(9)/3=\n\n5÷0=\nsqr(3\n1/(4)\n7.5−0.5=");
+		Path output = directory.resolve("output.txt");
+
+		BatchStatistics statistics = new BatchFileEvaluator(2).evaluate(input, output);
+
+		assertEquals(List.of("60", "27", "0", "DIVIDE_BY_ZERO", BatchFileEvaluator.INVALID, "0.25", "7.0"), Files.readAllLines(output));
+		assertEquals(7, statistics.lines());
+		assertEquals(1, statistics.invalidLines());
+		assertEquals(Files.size(output), statistics.outputBytes());
+	}
+
+	@Test
+	void testManySmallChunks() throws IOException {
+		Random random = new Random(42);
+		List<String> lines = new ArrayList<>();
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 5_000; i++) {
+			int left = random.nextInt(1_000);
+			int right = 1 + random.nextInt(99);
+			String operator = OPERATORS[random.nextInt(OPERATORS.length)];
+			lines.add(left + operator + right + "=");
+			expected.add(switch (operator) {
+			case "+" -> Integer.toString(left + right);
+			case "-" -> Integer.toString(left - right);
+			case "*", "×" -> Integer.toString(left * right);
+			default -> left % right == 0 ? Integer.toString(left / right) : null;
+			});
+		}
+		Path input = write(String.join("\n", lines) + "\n");
+		Path output = directory.resolve("output.txt");
+		Files.writeString(output, "Replaced content that is longer than the new one".repeat(10_000));
+
+		// Chunks of a few lines, so the workers overtake each other
+		BatchStatistics statistics = new BatchFileEvaluator(4, 100).evaluate(input, output);
+
+		List<String> results = Files.readAllLines(output);
+		assertEquals(lines.size(), results.size());
+		for (int i = 0; i < lines.size(); i++) {
+			if (expected.get(i) != null) {
+				assertEquals(expected.get(i), results.get(i), lines.get(i));
+			}
+		}
+		assertEquals(lines.size(), statistics.lines());
+		assertEquals(Files.size(input) / 100, statistics.chunks(), 100);
+	}
+
+	@Test
+	void testFailingLineIsInvalid() throws IOException {
+		Path output = directory.resolve("output.txt");
+
+		// Resolving an error again fails inside the calculator
+		BatchStatistics statistics = new BatchFileEvaluator(1).evaluate(write("1+1=\n5/0==\n2*3="), output);
+
+		assertEquals(List.of("2", BatchFileEvaluator.INVALID, "6"), Files.readAllLines(output));
+		assertEquals(3, statistics.lines());
+		assertEquals(1, statistics.invalidLines());
+	}
+
+	@Test
+	void testEmptyFile() throws IOException {
+		Path output = directory.resolve("output.txt");
+
+		BatchStatistics statistics = new BatchFileEvaluator(4).evaluate(write(""), output);
+
+		assertEquals(0, Files.size(output));
+		assertEquals(0, statistics.lines());
+	}
+
+	private Path write(String content) throws IOException {
+		return Files.write(directory.resolve("input.txt"), content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,152 @@
+package dev.dietermai.wincalc.core.simple;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * The complete, immutable state of a calculator: the calculator state, the
+ * equation history and the memory. The histories are stored oldest first.
+ * Every transition returns a new snapshot and leaves this one untouched, so a
+ * snapshot can be shared between threads.
+ */
+public record CalculatorSnapshot(SimpleCalculatorRecord state, PersistentVector<Equation> equations, PersistentVector<BigDecimal> memory) {
+
+	public static CalculatorSnapshot of() {
+		return new CalculatorSnapshot(SimpleCalculatorRecord.of(), PersistentVector.empty(), PersistentVector.empty());
+	}
+
+	/**
+	 * @return The equations, newest first
+	 */
+	public List<Equation> getEquations() {
+		return equations.reverseView();
+	}
+
+	/**
+	 * @return The memory values, newest first
+	 */
+	public List<BigDecimal> getMemoryValues() {
+		return memory.reverseView();
+	}
+
+	/**
+	 * @return The newest memory value, or null if the memory is empty
+	 */
+	public BigDecimal mr() {
+		return memory.isEmpty() ? null : memory.get(memory.size() - 1);
+	}
+
+	/* ----------------------------------- */
+	/* Transitions of the calculator state */
+	/* ----------------------------------- */
+	/**
+	 * Applies the operation like {@link SimpleCalculator#apply(Operation)}
+	 */
+	public CalculatorSnapshot apply(Operation operation) {
+		return apply(operation, PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #apply(Operation)}, computing with the given precision
+	 */
+	public CalculatorSnapshot apply(Operation operation, PrecisionPolicy policy) {
+		SimpleCalculatorRecord newState = SimpleCalculatorBl.apply(state, operation, policy);
+		return new CalculatorSnapshot(newState, operation.type().addsEquation() ? addIfNewEquation(newState.equation()) : equations, memory);
+	}
+
+	/**
+	 * Resolves like {@link SimpleCalculator#resolve(long)}
+	 */
+	public CalculatorSnapshot resolve(long times) {
+		return resolve(times, PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #resolve(long)}, computing with the given precision
+	 */
+	public CalculatorSnapshot resolve(long times, PrecisionPolicy policy) {
+		SimpleCalculatorRecord newState = SimpleCalculatorBl.resolve(state, times, policy);
+		return new CalculatorSnapshot(newState, addIfNewEquation(newState.equation()), memory);
+	}
+
+	/* ----------------------------------- */
+	/* Transitions of the equation history */
+	/* ----------------------------------- */
+	public CalculatorSnapshot add(Equation newEquation) {
+		return new CalculatorSnapshot(state, equations.append(newEquation), memory);
+	}
+
+	public CalculatorSnapshot deleteEquation(int index) {
+		if (index >= equations.size()) {
+			return this;
+		}
+		return new CalculatorSnapshot(state, equations.without(equations.size() - 1 - index), memory);
+	}
+
+	public CalculatorSnapshot clearEquationHistory() {
+		return new CalculatorSnapshot(state, PersistentVector.empty(), memory);
+	}
+
+	/* ------------------------- */
+	/* Transitions of the memory */
+	/* ------------------------- */
+	public CalculatorSnapshot ms() {
+		return ms(PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #ms()}, computing the current value with the given precision
+	 */
+	public CalculatorSnapshot ms(PrecisionPolicy policy) {
+		return new CalculatorSnapshot(state, equations, memory.append(SimpleCalculatorBl.getCurrentValue(state, policy)));
+	}
+
+	public CalculatorSnapshot mc() {
+		return new CalculatorSnapshot(state, equations, PersistentVector.empty());
+	}
+
+	public CalculatorSnapshot mPlus() {
+		return mPlus(PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #mPlus()}, computing the current value with the given
+	 * precision
+	 */
+	public CalculatorSnapshot mPlus(PrecisionPolicy policy) {
+		BigDecimal value = SimpleCalculatorBl.getCurrentValue(state, policy);
+		return withNewestMemory(memory.isEmpty() ? value : mr().add(value));
+	}
+
+	public CalculatorSnapshot mMinus() {
+		return mMinus(PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #mMinus()}, computing the current value with the given
+	 * precision
+	 */
+	public CalculatorSnapshot mMinus(PrecisionPolicy policy) {
+		BigDecimal value = SimpleCalculatorBl.getCurrentValue(state, policy);
+		return withNewestMemory(memory.isEmpty() ? value : mr().subtract(value));
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private PersistentVector<Equation> addIfNewEquation(Equation equation) {
+		if (equation == null || (!equations.isEmpty() && equation == equations.get(equations.size() - 1))) {
+			return equations;
+		}
+		return equations.append(equation);
+	}
+
+	private CalculatorSnapshot withNewestMemory(BigDecimal value) {
+		PersistentVector<BigDecimal> newMemory = memory.isEmpty() ? memory.append(value) : memory.with(memory.size() - 1, value);
+		return new CalculatorSnapshot(state, equations, newMemory);
+	}
+}
@@ -0,0 +1,201 @@
+package dev.dietermai.wincalc.core.simple;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * Thread-safe simple calculator without locks. The calculator state and both
+ * histories are held in one immutable {@link CalculatorSnapshot}, which is
+ * published through an {@link AtomicReference}. Every operation computes the
+ * next snapshot with the pure functions of {@link SimpleCalculatorBl} and
+ * installs it with compare-and-set, retrying if another thread was faster. So
+ * every operation is linearizable and no update is lost.
+ * <p>
+ * Since a transition may be computed more than once, functions passed to
+ * {@link #update(UnaryOperator)} must not have side effects.
+ * <p>
+ * Like {@link SimpleCalculator}, the calculator computes with a
+ * {@link PrecisionPolicy}. An operation uses the policy that was set when it
+ * started, also if it is retried.
+ */
+public class ConcurrentSimpleCalculator {
+	private final AtomicReference<CalculatorSnapshot> snapshot = new AtomicReference<>(CalculatorSnapshot.of());
+	private volatile PrecisionPolicy precision = PrecisionPolicy.DEFAULT;
+
+	/**
+	 * @return The current snapshot, it never changes
+	 */
+	public CalculatorSnapshot snapshot() {
+		return snapshot.get();
+	}
+
+	public SimpleCalculatorRecord getState() {
+		return snapshot.get().state();
+	}
+
+	public PrecisionPolicy getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * @param precision The precision of the following operations, results that
+	 *                  are already computed keep their digits
+	 */
+	public void setPrecision(PrecisionPolicy precision) {
+		this.precision = Objects.requireNonNull(precision);
+	}
+
+	/**
+	 * Atomically replaces the snapshot with the result of the given transition.
+	 *
+	 * @param transition Pure function from the current to the next snapshot
+	 * @return The installed snapshot
+	 */
+	public CalculatorSnapshot update(UnaryOperator<CalculatorSnapshot> transition) {
+		return snapshot.updateAndGet(transition);
+	}
+
+	/* **********************************/
+	/* Calculator state related methods */
+	/* **********************************/
+	/**
+	 * @param operation The operation to apply
+	 * @return The calculator state after the operation
+	 */
+	public SimpleCalculatorRecord apply(Operation operation) {
+		PrecisionPolicy policy = precision;
+		return update(current -> current.apply(operation, policy)).state();
+	}
+
+	/**
+	 * Applies all operations as one atomic step, no other operation is applied in
+	 * between.
+	 *
+	 * @param operations The operations to apply
+	 * @return The calculator state after the last operation
+	 */
+	public SimpleCalculatorRecord applyAll(List<Operation> operations) {
+		PrecisionPolicy policy = precision;
+		return update(current -> {
+			CalculatorSnapshot next = current;
+			for (Operation operation : operations) {
+				next = next.apply(operation, policy);
+			}
+			return next;
+		}).state();
+	}
+
+	public SimpleCalculatorRecord resolve() {
+		return apply(Operation.of(OperationType.resolve));
+	}
+
+	public SimpleCalculatorRecord resolve(long times) {
+		PrecisionPolicy policy = precision;
+		return update(current -> current.resolve(times, policy)).state();
+	}
+
+	public SimpleCalculatorRecord number(String number) {
+		return apply(Operation.number(number));
+	}
+
+	public SimpleCalculatorRecord plus() {
+		return apply(Operation.of(OperationType.plus));
+	}
+
+	public SimpleCalculatorRecord minus() {
+		return apply(Operation.of(OperationType.minus));
+	}
+
+	public SimpleCalculatorRecord multiply() {
+		return apply(Operation.of(OperationType.multiply));
+	}
+
+	public SimpleCalculatorRecord divide() {
+		return apply(Operation.of(OperationType.divide));
+	}
+
+	public SimpleCalculatorRecord negate() {
+		return apply(Operation.of(OperationType.negate));
+	}
+
+	public SimpleCalculatorRecord percent() {
+		return apply(Operation.of(OperationType.percent));
+	}
+
+	public SimpleCalculatorRecord square() {
+		return apply(Operation.of(OperationType.square));
+	}
+
+	public SimpleCalculatorRecord root() {
+		return apply(Operation.of(OperationType.root));
+	}
+
+	public SimpleCalculatorRecord oneDivX() {
+		return apply(Operation.of(OperationType.oneDivX));
+	}
+
+	public SimpleCalculatorRecord ce() {
+		return apply(Operation.of(OperationType.ce));
+	}
+
+	public SimpleCalculatorRecord c() {
+		return apply(Operation.of(OperationType.c));
+	}
+
+	/* ****************************************/
+	/* Equation History state related methods */
+	/* ****************************************/
+	public void add(Equation newEquation) {
+		update(current -> current.add(newEquation));
+	}
+
+	public List<Equation> getEquations() {
+		return snapshot.get().getEquations();
+	}
+
+	public void deleteEquation(int index) {
+		update(current -> current.deleteEquation(index));
+	}
+
+	public void clearEquationHistory() {
+		update(CalculatorSnapshot::clearEquationHistory);
+	}
+
+	/* *************************************/
+	/* Memory related methods */
+	/* *************************************/
+	public List<BigDecimal> getAllMemoryValues() {
+		return snapshot.get().getMemoryValues();
+	}
+
+	public BigDecimal mr() {
+		return snapshot.get().mr();
+	}
+
+	public void ms() {
+		PrecisionPolicy policy = precision;
+		update(current -> current.ms(policy));
+	}
+
+	public void mc() {
+		update(CalculatorSnapshot::mc);
+	}
+
+	public void mPlus() {
+		PrecisionPolicy policy = precision;
+		update(current -> current.mPlus(policy));
+	}
+
+	public void mMinus() {
+		PrecisionPolicy policy = precision;
+		update(current -> current.mMinus(policy));
+	}
+}
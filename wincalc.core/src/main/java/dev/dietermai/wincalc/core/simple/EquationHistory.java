@@ -1,39 +1,53 @@
 package dev.dietermai.wincalc.core.simple;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import dev.dietermai.wincalc.core.simple.model.Equation;
 
-public class EquationHistory {
-	private final LinkedList<Equation> equations = new LinkedList<>();
-	
-	public void add(Equation newEquation) {
-		equations.addFirst(newEquation);
-	}
-	
-	public List<Equation> getEquations(){
-		return List.copyOf(equations);
-	}
-	
-	public void delete(int index) {
-		if(index < equations.size()) {
-			equations.remove(index);
-		}
-	}
-	
-	public void clear() {
-		equations.clear();
-	}
+/**
+ * The history of resolved equations, newest first.
+ */
+public interface EquationHistory {
+
+	void add(Equation newEquation);
 
-	void addIfNewEquation(Equation equation) {
-		if(equation == null || isSameAsPrevEquation(equation)) {
-			return;
-		}
-		equations.addFirst(equation);
+	/**
+	 * @return The equations, newest first. The list does not change when the
+	 *         history changes.
+	 */
+	List<Equation> getEquations();
+
+	/**
+	 * Deletes the equation at the given index, does nothing if there is no such
+	 * equation.
+	 * 
+	 * @param index The index, 0 is the newest equation
+	 */
+	void delete(int index);
+
+	void clear();
+
+	/**
+	 * @return The number of equations in the history
+	 */
+	default int size() {
+		return getEquations().size();
 	}
-	
-	private boolean isSameAsPrevEquation(Equation equation) {
-		return !equations.isEmpty() && equation == equations.getFirst();
+
+	/**
+	 * @param index The index, 0 is the newest equation
+	 * @return The equation at the given index
+	 * @throws IndexOutOfBoundsException if there is no such equation
+	 */
+	default Equation get(int index) {
+		return getEquations().get(index);
 	}
+
+	/**
+	 * Adds the equation, unless it is null or the very same instance that was
+	 * added last.
+	 * 
+	 * @param equation The equation to add
+	 */
+	void addIfNewEquation(Equation equation);
 }
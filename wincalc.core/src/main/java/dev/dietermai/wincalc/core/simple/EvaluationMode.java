@@ -0,0 +1,15 @@
+package dev.dietermai.wincalc.core.simple;
+
+/**
+ * How the simple calculator evaluates its arithmetic.
+ */
+public enum EvaluationMode {
+	/** All arithmetic is done with BigDecimal */
+	EXACT,
+	/**
+	 * Small operands are first evaluated with primitive arithmetic. The primitive
+	 * result is only used if it provably equals the BigDecimal result, otherwise
+	 * the BigDecimal arithmetic is used as fallback.
+	 */
+	FAST_PATH;
+}
@@ -0,0 +1,225 @@
+package dev.dietermai.wincalc.core.simple;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Primitive arithmetic for small operands. Only division and root have a
+ * primitive kernel: BigDecimal already adds, subtracts and multiplies compact
+ * values with long arithmetic, a primitive kernel does not beat that. Roots the
+ * primitive kernel can not answer have a second kernel on BigInteger, see
+ * {@link NewtonSquareRoot}.
+ * <p>
+ * Every kernel returns the exact same BigDecimal as the matching value
+ * function of {@link SimpleCalculatorBl}, or null if it can not prove that, in
+ * which case the caller falls back to the BigDecimal arithmetic.
+ * <p>
+ * The kernels only accept operands with at most 15 significant digits and a
+ * scale between 0 and 15. For those the unscaled value can be recovered from
+ * {@link BigDecimal#doubleValue()} without error: the double is within one ulp
+ * of the value, so the scaled double is within 0.35 of the unscaled value,
+ * which is below 10^15 &lt; 2^50. All further arithmetic is done in long with
+ * overflow checks, so a precision of more than {@value #MAX_PRECISION} digits
+ * is always left to BigDecimal.
+ */
+public final class FastPath {
+	/**
+	 * The operations that have a primitive implementation
+	 */
+	public enum Kernel {
+		divide, root, newtonRoot;
+	}
+
+	private static final long NOT_COMPACT = Long.MIN_VALUE;
+	private static final int MAX_DIGITS = 15;
+	private static final int MAX_SCALE = 15;
+	/** The most digits of a result the kernels compute */
+	static final int MAX_PRECISION = 18;
+
+	private static final long[] LONG_TEN_POWERS = longTenPowers();
+	private static final double[] DOUBLE_TEN_POWERS = doubleTenPowers();
+
+	private static final Map<Kernel, LongAdder> HITS = counters();
+	private static final Map<Kernel, LongAdder> FALLBACKS = counters();
+
+	private static volatile EvaluationMode mode = EvaluationMode.EXACT;
+
+	private FastPath() {
+	}
+
+	public static EvaluationMode getMode() {
+		return mode;
+	}
+
+	public static void setMode(EvaluationMode newMode) {
+		mode = newMode;
+	}
+
+	public static FastPathStatistics statistics() {
+		return new FastPathStatistics(mode, snapshot(HITS), snapshot(FALLBACKS));
+	}
+
+	public static void resetStatistics() {
+		HITS.values().forEach(LongAdder::reset);
+		FALLBACKS.values().forEach(LongAdder::reset);
+	}
+
+	/* -------------------------------------------------------------- */
+	/* Kernels, each returns null if the BigDecimal arithmetic has to */
+	/* be used                                                        */
+	/* -------------------------------------------------------------- */
+	/**
+	 * left / right with the given number of fractional digits and HALF_UP,
+	 * trailing zeros removed but the scale not below 0.
+	 */
+	static BigDecimal divide(BigDecimal left, BigDecimal right, int scale) {
+		if (mode != EvaluationMode.FAST_PATH || scale > MAX_PRECISION) {
+			return null;
+		}
+		long l = unscaled(left);
+		long r = unscaled(right);
+		// |left / right| * 10^scale = |l| * 10^digits / |r|
+		int digits = scale - left.scale() + right.scale();
+		if (l == NOT_COMPACT || r == NOT_COMPACT || r == 0 || digits < 0) {
+			return fallback(Kernel.divide);
+		}
+		long divisor = Math.abs(r);
+		long quotient = Math.abs(l) / divisor;
+		long remainder = Math.abs(l) % divisor;
+		while (digits > 0) {
+			int step = Math.min(digits, 3);
+			if (quotient >= LONG_TEN_POWERS[MAX_PRECISION - step]) {
+				return fallback(Kernel.divide);
+			}
+			long scaledRemainder = remainder * LONG_TEN_POWERS[step];
+			quotient = quotient * LONG_TEN_POWERS[step] + scaledRemainder / divisor;
+			remainder = scaledRemainder % divisor;
+			digits -= step;
+		}
+		if (2 * remainder >= divisor) {
+			quotient++;
+		}
+		int quotientScale = scale;
+		while (quotientScale > 0 && quotient % 10 == 0) {
+			quotient /= 10;
+			quotientScale--;
+		}
+		if (quotient == 0) {
+			return hit(Kernel.divide, BigDecimal.ZERO);
+		}
+		return hit(Kernel.divide, BigDecimal.valueOf((l < 0) != (r < 0) ? -quotient : quotient, quotientScale));
+	}
+
+	/**
+	 * Square root with the given number of digits. Only exact roots that fit into
+	 * the precision are answered, with the scale
+	 * {@link BigDecimal#sqrt(java.math.MathContext)} picks for them.
+	 */
+	static BigDecimal root(BigDecimal value, int precision) {
+		if (mode != EvaluationMode.FAST_PATH || precision > MAX_PRECISION) {
+			return null;
+		}
+		long unscaled = unscaled(value);
+		if (unscaled == NOT_COMPACT) {
+			return fallback(Kernel.root);
+		}
+		int scale = value.scale();
+		int preferredScale = scale / 2;
+		if (unscaled == 0) {
+			return hit(Kernel.root, BigDecimal.valueOf(0, preferredScale));
+		}
+		if (scale % 2 != 0) {
+			unscaled *= 10;
+			scale++;
+		}
+		long root = (long) Math.sqrt(unscaled);
+		if (root * root != unscaled) {
+			return fallback(Kernel.root);
+		}
+		int rootScale = scale / 2;
+		while (root % 10 == 0) {
+			root /= 10;
+			rootScale--;
+		}
+		int rootDigits = digitCount(root);
+		if (rootDigits > precision) {
+			return fallback(Kernel.root);
+		}
+		int padding = Math.min(Math.max(preferredScale - rootScale, 0), precision - rootDigits);
+		return hit(Kernel.root, BigDecimal.valueOf(root * LONG_TEN_POWERS[padding], rootScale + padding));
+	}
+
+	/**
+	 * Square root rounded with the given context, for any positive operand.
+	 */
+	static BigDecimal newtonRoot(BigDecimal value, MathContext mc) {
+		if (mode != EvaluationMode.FAST_PATH) {
+			return null;
+		}
+		BigDecimal root = NewtonSquareRoot.sqrt(value, mc);
+		return root != null ? hit(Kernel.newtonRoot, root) : fallback(Kernel.newtonRoot);
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private static long unscaled(BigDecimal value) {
+		int scale = value.scale();
+		if (scale < 0 || scale > MAX_SCALE || value.precision() > MAX_DIGITS) {
+			return NOT_COMPACT;
+		}
+		return Math.round(value.doubleValue() * DOUBLE_TEN_POWERS[scale]);
+	}
+
+	private static int digitCount(long value) {
+		int digits = 1;
+		while (digits < MAX_PRECISION && LONG_TEN_POWERS[digits] <= value) {
+			digits++;
+		}
+		return digits;
+	}
+
+	private static BigDecimal hit(Kernel kernel, BigDecimal result) {
+		HITS.get(kernel).increment();
+		return result;
+	}
+
+	private static BigDecimal fallback(Kernel kernel) {
+		FALLBACKS.get(kernel).increment();
+		return null;
+	}
+
+	private static Map<Kernel, LongAdder> counters() {
+		Map<Kernel, LongAdder> counters = new EnumMap<>(Kernel.class);
+		for (Kernel kernel : Kernel.values()) {
+			counters.put(kernel, new LongAdder());
+		}
+		return counters;
+	}
+
+	private static Map<Kernel, Long> snapshot(Map<Kernel, LongAdder> counters) {
+		Map<Kernel, Long> snapshot = new EnumMap<>(Kernel.class);
+		counters.forEach((kernel, counter) -> snapshot.put(kernel, counter.sum()));
+		return Map.copyOf(snapshot);
+	}
+
+	private static long[] longTenPowers() {
+		long[] powers = new long[MAX_PRECISION + 1];
+		powers[0] = 1;
+		for (int i = 1; i < powers.length; i++) {
+			powers[i] = powers[i - 1] * 10;
+		}
+		return powers;
+	}
+
+	private static double[] doubleTenPowers() {
+		double[] powers = new double[MAX_SCALE + 1];
+		for (int i = 0; i < powers.length; i++) {
+			powers[i] = LONG_TEN_POWERS[i];
+		}
+		return powers;
+	}
+}
@@ -0,0 +1,32 @@
+package dev.dietermai.wincalc.core.simple;
+
+import java.util.Map;
+
+import dev.dietermai.wincalc.core.simple.FastPath.Kernel;
+
+/**
+ * Snapshot of the fast path counters. A hit is an operation that was answered
+ * by the primitive arithmetic, a fallback is an operation that needed the
+ * BigDecimal arithmetic.
+ */
+public record FastPathStatistics(EvaluationMode mode, Map<Kernel, Long> hits, Map<Kernel, Long> fallbacks) {
+
+	public long hits(Kernel kernel) {
+		return hits.getOrDefault(kernel, 0L);
+	}
+
+	public long fallbacks(Kernel kernel) {
+		return fallbacks.getOrDefault(kernel, 0L);
+	}
+
+	/**
+	 * Returns the share of operations answered by the fast path
+	 *
+	 * @param kernel The kernel of interest
+	 * @return The hit rate between 0 and 1, or 0 if the kernel was not used
+	 */
+	public double hitRate(Kernel kernel) {
+		long total = hits(kernel) + fallbacks(kernel);
+		return total == 0 ? 0 : (double) hits(kernel) / total;
+	}
+}
@@ -0,0 +1,36 @@
+package dev.dietermai.wincalc.core.simple;
+
+import java.lang.invoke.MethodHandle;
+import java.math.BigDecimal;
+
+import dev.dietermai.wincalc.core.simple.model.Result;
+
+/**
+ * A compiled expression with one parameter. Created by the
+ * {@link FormulaCompiler}. A formula is immutable and can be shared between
+ * threads.
+ */
+public final class Formula {
+	private final MethodHandle kernel;
+
+	Formula(MethodHandle kernel) {
+		this.kernel = kernel;
+	}
+
+	/**
+	 * Evaluates the formula for the given parameter value
+	 *
+	 * @param x The value of the parameter
+	 * @return The result, same as resolving the original expression with the
+	 *         parameter replaced by x
+	 */
+	public Result apply(BigDecimal x) {
+		try {
+			return (Result) kernel.invokeExact(x);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+}
@@ -0,0 +1,263 @@
+package dev.dietermai.wincalc.core.simple;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+
+import dev.dietermai.wincalc.core.simple.model.BinaryExpression;
+import dev.dietermai.wincalc.core.simple.model.Expression;
+import dev.dietermai.wincalc.core.simple.model.IdleExpression;
+import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+
+/**
+ * Compiles an expression into a {@link Formula}. One number of the expression
+ * is chosen as parameter, the formula can then be evaluated for any value of
+ * that parameter without walking the expression tree again.
+ * <p>
+ * The expression is compiled into a chain of method handles over the same
+ * value functions {@link SimpleCalculatorBl} uses, so the result is identical
+ * to resolving the expression with the same {@link PrecisionPolicy}. Sub
+ * expressions that do not contain the parameter are evaluated once at compile
+ * time. Errors like a division by zero are propagated with a preallocated
+ * exception, so evaluating a formula only allocates the BigDecimal values and
+ * the returned result.
+ */
+public final class FormulaCompiler {
+	private static final MethodType UNARY = methodType(BigDecimal.class, BigDecimal.class);
+	private static final MethodType BINARY = methodType(BigDecimal.class, BigDecimal.class, BigDecimal.class);
+	private static final MethodType POLICY_UNARY = UNARY.insertParameterTypes(0, PrecisionPolicy.class);
+	private static final MethodType POLICY_BINARY = BINARY.insertParameterTypes(0, PrecisionPolicy.class);
+
+	private static final MethodHandle PLUS;
+	private static final MethodHandle MINUS;
+	private static final MethodHandle MULTIPLY;
+	private static final MethodHandle DIVIDE;
+	private static final MethodHandle NEGATE;
+	private static final MethodHandle SQUARE;
+	private static final MethodHandle ROOT;
+	private static final MethodHandle ONE_DIV_X;
+	private static final MethodHandle IN_RANGE;
+	private static final MethodHandle RESULT_OF;
+	private static final MethodHandle ERROR_RESULT;
+	private static final MethodHandle THROW_ERROR;
+
+	static {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			PLUS = lookup.findStatic(SimpleCalculatorBl.class, "plusValue", BINARY);
+			MINUS = lookup.findStatic(SimpleCalculatorBl.class, "minusValue", BINARY);
+			MULTIPLY = lookup.findStatic(FormulaCompiler.class, "multiply", POLICY_BINARY);
+			DIVIDE = lookup.findStatic(FormulaCompiler.class, "divide", POLICY_BINARY);
+			NEGATE = lookup.findStatic(SimpleCalculatorBl.class, "negateValue", UNARY);
+			SQUARE = lookup.findStatic(FormulaCompiler.class, "square", POLICY_UNARY);
+			ROOT = lookup.findStatic(FormulaCompiler.class, "root", POLICY_UNARY);
+			ONE_DIV_X = lookup.findStatic(FormulaCompiler.class, "oneDivX", POLICY_UNARY);
+			IN_RANGE = lookup.findStatic(FormulaCompiler.class, "inRange", POLICY_UNARY);
+			RESULT_OF = lookup.findStatic(Result.class, "of", methodType(Result.class, BigDecimal.class));
+			ERROR_RESULT = lookup.findStatic(FormulaCompiler.class, "errorResult", methodType(Result.class, KernelError.class));
+			THROW_ERROR = MethodHandles.throwException(BigDecimal.class, KernelError.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private FormulaCompiler() {
+	}
+
+	/**
+	 * Same as {@link #compile(Expression, NumberExpression, PrecisionPolicy)},
+	 * computing with {@link PrecisionPolicy#DEFAULT}
+	 */
+	public static Formula compile(Expression expression, NumberExpression parameter) {
+		return compile(expression, parameter, PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Compiles the given expression
+	 *
+	 * @param expression The expression to compile
+	 * @param parameter  The number of the expression that becomes the parameter
+	 *                   of the formula. Compared by identity, so it has to be the
+	 *                   instance that is part of the expression. Since
+	 *                   {@link NumberExpression#of(BigDecimal)} shares common
+	 *                   values, the parameter should be created with the
+	 *                   constructor.
+	 * @param policy     The precision the formula computes with
+	 * @return The compiled formula
+	 * @throws IllegalArgumentException if the parameter is not part of the
+	 *                                  expression or the expression is not
+	 *                                  complete
+	 */
+	public static Formula compile(Expression expression, NumberExpression parameter, PrecisionPolicy policy) {
+		Node root = compileNode(expression, parameter, policy);
+		if (root.constant()) {
+			throw new IllegalArgumentException("Parameter is not part of the expression: " + parameter);
+		}
+		MethodHandle kernel = MethodHandles.filterReturnValue(root.handle(), RESULT_OF);
+		kernel = MethodHandles.catchException(kernel, KernelError.class, MethodHandles.dropArguments(ERROR_RESULT, 1, BigDecimal.class));
+		return new Formula(kernel);
+	}
+
+	private static Node compileNode(Expression expression, NumberExpression parameter, PrecisionPolicy policy) {
+		if (expression == parameter) {
+			return new Node(MethodHandles.identity(BigDecimal.class), false);
+		}
+		return switch (expression) {
+		case IdleExpression idle -> constant(BigDecimal.ZERO);
+		case NumberExpression ne -> constant(ne.value());
+		case UnaryExpression ue -> compileUnary(ue, parameter, policy);
+		case BinaryExpression be -> compileBinary(be, parameter, policy);
+		case null -> throw new IllegalArgumentException("Expression is not complete");
+		};
+	}
+
+	private static Node compileUnary(UnaryExpression unary, NumberExpression parameter, PrecisionPolicy policy) {
+		if (unary.nested() instanceof BinaryExpression) {
+			throw new IllegalStateException("No binary expression in unary expression allowed");
+		}
+		Node nested = compileNode(unary.nested(), parameter, policy);
+		MethodHandle operator = switch (unary.operator()) {
+		case negate -> NEGATE;
+		case oneDivX -> bind(ONE_DIV_X, policy);
+		case percent -> throw new IllegalStateException("Not implemented yet!");
+		case root -> bind(ROOT, policy);
+		case square -> bind(SQUARE, policy);
+		};
+		return fold(MethodHandles.filterReturnValue(nested.handle(), operator), nested.constant());
+	}
+
+	private static Node compileBinary(BinaryExpression binary, NumberExpression parameter, PrecisionPolicy policy) {
+		Node left = compileNode(binary.left(), parameter, policy);
+		Node right = compileNode(binary.right(), parameter, policy);
+		MethodHandle operator = switch (binary.operator()) {
+		case plus -> MethodHandles.filterReturnValue(PLUS, bind(IN_RANGE, policy));
+		case minus -> MethodHandles.filterReturnValue(MINUS, bind(IN_RANGE, policy));
+		case multiply -> bind(MULTIPLY, policy);
+		case divide -> bind(DIVIDE, policy);
+		};
+		// (x) -> operator(left(x), right(x)), the left side is evaluated first
+		MethodHandle handle = MethodHandles.foldArguments(MethodHandles.filterArguments(operator, 1, right.handle()), left.handle());
+		return fold(handle, left.constant() && right.constant());
+	}
+
+	/**
+	 * Replaces the handle by its value if it does not depend on the parameter.
+	 */
+	private static Node fold(MethodHandle handle, boolean constant) {
+		if (!constant) {
+			return new Node(handle, false);
+		}
+		try {
+			return constant((BigDecimal) handle.invokeExact((BigDecimal) null));
+		} catch (KernelError e) {
+			MethodHandle thrower = MethodHandles.insertArguments(THROW_ERROR, 0, e);
+			return new Node(MethodHandles.dropArguments(thrower, 0, BigDecimal.class), true);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	private static MethodHandle bind(MethodHandle kernel, PrecisionPolicy policy) {
+		return MethodHandles.insertArguments(kernel, 0, policy);
+	}
+
+	private static Node constant(BigDecimal value) {
+		MethodHandle handle = MethodHandles.constant(BigDecimal.class, value);
+		return new Node(MethodHandles.dropArguments(handle, 0, BigDecimal.class), true);
+	}
+
+	/* ---------------------------------------------------- */
+	/* Kernel functions, turn error results into exceptions */
+	/* ---------------------------------------------------- */
+	private static BigDecimal multiply(PrecisionPolicy policy, BigDecimal left, BigDecimal right) {
+		ResultType check = SimpleCalculatorBl.checkMultiply(left, right, policy);
+		if (check.error()) {
+			throw KernelError.of(check);
+		}
+		return inRange(policy, SimpleCalculatorBl.multiplyValue(left, right, policy));
+	}
+
+	private static BigDecimal divide(PrecisionPolicy policy, BigDecimal left, BigDecimal right) {
+		ResultType check = SimpleCalculatorBl.checkDivide(left, right);
+		if (check.error()) {
+			throw KernelError.of(check);
+		}
+		return inRange(policy, SimpleCalculatorBl.divideValue(left, right, policy));
+	}
+
+	private static BigDecimal square(PrecisionPolicy policy, BigDecimal value) {
+		ResultType check = SimpleCalculatorBl.checkMultiply(value, value, policy);
+		if (check.error()) {
+			throw KernelError.of(check);
+		}
+		return inRange(policy, SimpleCalculatorBl.squareValue(value, policy));
+	}
+
+	private static BigDecimal root(PrecisionPolicy policy, BigDecimal value) {
+		ResultType check = SimpleCalculatorBl.checkRoot(value);
+		if (check.error()) {
+			throw KernelError.of(check);
+		}
+		return SimpleCalculatorBl.rootValue(value, policy);
+	}
+
+	private static BigDecimal oneDivX(PrecisionPolicy policy, BigDecimal value) {
+		ResultType check = SimpleCalculatorBl.checkOneDivX(value);
+		if (check.error()) {
+			throw KernelError.of(check);
+		}
+		return inRange(policy, SimpleCalculatorBl.oneDivXValue(value, policy));
+	}
+
+	private static BigDecimal inRange(PrecisionPolicy policy, BigDecimal value) {
+		ResultType check = SimpleCalculatorBl.checkMagnitude(value, policy);
+		if (check.error()) {
+			throw KernelError.of(check);
+		}
+		return value;
+	}
+
+	private static Result errorResult(KernelError error) {
+		return error.result;
+	}
+
+	private record Node(MethodHandle handle, boolean constant) {
+	}
+
+	/**
+	 * Carries an error result out of the kernel. Without stack trace and one
+	 * shared instance per result type.
+	 */
+	private static final class KernelError extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		private static final KernelError[] INSTANCES = create();
+
+		private final transient Result result;
+
+		private KernelError(ResultType type) {
+			super(type.name(), null, false, false);
+			this.result = Result.of(type);
+		}
+
+		static KernelError of(ResultType type) {
+			return INSTANCES[type.ordinal()];
+		}
+
+		private static KernelError[] create() {
+			ResultType[] types = ResultType.values();
+			KernelError[] errors = new KernelError[types.length];
+			for (ResultType type : types) {
+				errors[type.ordinal()] = new KernelError(type);
+			}
+			return errors;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package dev.dietermai.wincalc.core.simple;
+
+import java.util.List;
+
+import dev.dietermai.wincalc.core.simple.model.Equation;
+
+/**
+ * The default history, kept in a {@link PersistentVector} with the oldest
+ * equation first. {@link #getEquations()} hands out the current version
+ * without copying.
+ */
+public class InMemoryEquationHistory implements EquationHistory {
+	private PersistentVector<Equation> equations = PersistentVector.empty();
+	
+	@Override
+	public void add(Equation newEquation) {
+		equations = equations.append(newEquation);
+	}
+	
+	@Override
+	public List<Equation> getEquations(){
+		return equations.reverseView();
+	}
+	
+	@Override
+	public void delete(int index) {
+		if(index < equations.size()) {
+			equations = equations.without(equations.size() - 1 - index);
+		}
+	}
+	
+	@Override
+	public int size() {
+		return equations.size();
+	}
+	
+	@Override
+	public Equation get(int index) {
+		return equations.get(equations.size() - 1 - index);
+	}
+	
+	@Override
+	public void clear() {
+		equations = PersistentVector.empty();
+	}
+
+	@Override
+	public void addIfNewEquation(Equation equation) {
+		if(equation == null || isSameAsPrevEquation(equation)) {
+			return;
+		}
+		add(equation);
+	}
+	
+	private boolean isSameAsPrevEquation(Equation equation) {
+		return !equations.isEmpty() && equation == equations.get(equations.size() - 1);
+	}
+}
@@ -1,51 +1,79 @@
 package dev.dietermai.wincalc.core.simple;
 
 import java.math.BigDecimal;
-import java.util.LinkedList;
 import java.util.List;
 
+import dev.dietermai.wincalc.core.simple.jfr.MemoryOperationEvent;
+
+/**
+ * The saved memory values, kept in a {@link PersistentVector} with the oldest
+ * value first. {@link #getValues()} hands out the current version without
+ * copying. Every change is a {@link MemoryOperationEvent}.
+ */
 public class MemoryHistory {
-	private final LinkedList<BigDecimal> savedValues = new LinkedList<>();
+	private PersistentVector<BigDecimal> savedValues = PersistentVector.empty();
 
 	public void save(BigDecimal newValue) {
-		savedValues.push(newValue);
+		MemoryOperationEvent event = begin();
+		savedValues = savedValues.append(newValue);
+		commit(event, "save", newValue);
 	}
 
 	public List<BigDecimal> getValues() {
-		return List.copyOf(savedValues);
+		return savedValues.reverseView();
 	}
 
 	public BigDecimal getValue() {
 		if (savedValues.isEmpty()) {
 			return null;
 		} else {
-			return savedValues.peek();
+			return savedValues.get(savedValues.size() - 1);
 		}
 	}
 
 	public void delete(int index) {
+		MemoryOperationEvent event = begin();
 		if (index < savedValues.size()) {
-			savedValues.remove(index);
+			savedValues = savedValues.without(savedValues.size() - 1 - index);
 		}
+		commit(event, "delete", null);
 	}
 
 	public void clear() {
-		savedValues.clear();
+		MemoryOperationEvent event = begin();
+		savedValues = PersistentVector.empty();
+		commit(event, "clear", null);
 	}
 
 	public void addToSaved(BigDecimal valueToAdd) {
+		MemoryOperationEvent event = begin();
 		if (savedValues.isEmpty()) {
-			savedValues.push(valueToAdd);
+			savedValues = savedValues.append(valueToAdd);
 		} else {
-			savedValues.push(savedValues.pop().add(valueToAdd));
+			savedValues = savedValues.with(savedValues.size() - 1, getValue().add(valueToAdd));
 		}
+		commit(event, "add", valueToAdd);
 	}
 
 	public void subtractFromSaved(BigDecimal valueToAdd) {
+		MemoryOperationEvent event = begin();
 		if (savedValues.isEmpty()) {
-			savedValues.push(valueToAdd);
+			savedValues = savedValues.append(valueToAdd);
 		} else {
-			savedValues.push(savedValues.pop().subtract(valueToAdd));
+			savedValues = savedValues.with(savedValues.size() - 1, getValue().subtract(valueToAdd));
+		}
+		commit(event, "subtract", valueToAdd);
+	}
+
+	private static MemoryOperationEvent begin() {
+		MemoryOperationEvent event = new MemoryOperationEvent();
+		event.begin();
+		return event;
+	}
+
+	private void commit(MemoryOperationEvent event, String operation, BigDecimal operand) {
+		if (event.shouldCommit()) {
+			event.commit(operation, operand, savedValues.size());
 		}
 	}
 }
@@ -0,0 +1,115 @@
+package dev.dietermai.wincalc.core.simple;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Square root with the precision of a HALF_EVEN context, seeded with
+ * {@link Math#sqrt(double)} and refined with Newton iterations on integers.
+ * Each iteration doubles the correct digits of the 15 digit seed, 16 digits
+ * take one iteration and 32 digits two.
+ * <p>
+ * The rounded candidate is only returned if it provably equals
+ * {@link BigDecimal#sqrt(MathContext)}: the exact root has to lie inside the
+ * rounding interval of the candidate. BigDecimal.sqrt rounds twice, which goes
+ * wrong for roots within about 10^-8 units in the last place of the middle
+ * between two candidates. The interval is therefore narrowed by 10^-5 units in
+ * the last place on each side, and such roots are left to BigDecimal.
+ */
+final class NewtonSquareRoot {
+	/** The digits computed beyond the precision before rounding */
+	private static final int GUARD_DIGITS = 2;
+	/** The digits of the double seed that are correct */
+	private static final int SEED_DIGITS = 15;
+	/** The digits of the seed taken from the double */
+	private static final int SEED_LONG_DIGITS = 17;
+
+	private static final BigInteger[] TEN_POWERS = tenPowers(64);
+
+	private NewtonSquareRoot() {
+	}
+
+	/**
+	 * @param value A positive value
+	 * @param mc    The context to round with
+	 * @return The root, or null if it is not proven to be the same as
+	 *         {@link BigDecimal#sqrt(MathContext)}
+	 */
+	static BigDecimal sqrt(BigDecimal value, MathContext mc) {
+		int precision = mc.getPrecision();
+		if (precision == 0 || mc.getRoundingMode() != RoundingMode.HALF_EVEN || value.signum() <= 0) {
+			return null;
+		}
+		int digits = precision + GUARD_DIGITS;
+
+		// value = normalized * 10^(2 * half) with normalized in [0.1, 10)
+		int half = Math.floorDiv(value.precision() - value.scale(), 2);
+		double seed = Math.sqrt(value.scaleByPowerOfTen(-2 * half).doubleValue());
+
+		// The integer root of value * 10^(2 * shift) has digits or one more digits
+		int shift = digits - half;
+		BigInteger square = timesTenPower(value.unscaledValue(), 2 * shift - value.scale());
+		BigInteger root = digits <= SEED_LONG_DIGITS
+				? BigInteger.valueOf((long) (seed * Math.pow(10, digits)))
+				: BigInteger.valueOf((long) (seed * 1e17)).multiply(tenPower(digits - SEED_LONG_DIGITS));
+		for (int correct = SEED_DIGITS; correct < digits; correct *= 2) {
+			root = root.add(square.divide(root)).shiftRight(1);
+		}
+
+		BigDecimal candidate = new BigDecimal(root, shift).round(mc);
+		if (!isRoundedRoot(candidate, value, precision)) {
+			return null;
+		}
+		return withPreferredScale(candidate, value.scale() / 2, precision);
+	}
+
+	/**
+	 * @return true if the exact root of the value is inside the narrowed rounding
+	 *         interval of the candidate
+	 */
+	private static boolean isRoundedRoot(BigDecimal candidate, BigDecimal value, int precision) {
+		int scale = candidate.scale();
+		BigDecimal halfUlp = BigDecimal.valueOf(49_999, scale + 5);
+		// Below a power of ten the last place is ten times smaller
+		BigDecimal halfUlpBelow = candidate.unscaledValue().equals(tenPower(precision - 1)) ? BigDecimal.valueOf(4_999, scale + 5) : halfUlp;
+		BigDecimal above = candidate.add(halfUlp);
+		BigDecimal below = candidate.subtract(halfUlpBelow);
+		return below.multiply(below).compareTo(value) < 0 && above.multiply(above).compareTo(value) > 0;
+	}
+
+	/**
+	 * The scale {@link BigDecimal#sqrt(MathContext)} picks: trailing zeros are
+	 * removed and added again towards the preferred scale, as long as the
+	 * precision allows.
+	 */
+	private static BigDecimal withPreferredScale(BigDecimal root, int preferredScale, int precision) {
+		BigDecimal stripped = root.stripTrailingZeros();
+		int padding = Math.min(Math.max(preferredScale - stripped.scale(), 0), precision - stripped.precision());
+		return padding == 0 ? stripped : stripped.setScale(stripped.scale() + padding);
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	/**
+	 * @return value * 10^exponent, truncated if the exponent is negative
+	 */
+	private static BigInteger timesTenPower(BigInteger value, int exponent) {
+		return exponent >= 0 ? value.multiply(tenPower(exponent)) : value.divide(tenPower(-exponent));
+	}
+
+	private static BigInteger tenPower(int exponent) {
+		return exponent < TEN_POWERS.length ? TEN_POWERS[exponent] : BigInteger.TEN.pow(exponent);
+	}
+
+	private static BigInteger[] tenPowers(int count) {
+		BigInteger[] powers = new BigInteger[count];
+		powers[0] = BigInteger.ONE;
+		for (int i = 1; i < count; i++) {
+			powers[i] = powers[i - 1].multiply(BigInteger.TEN);
+		}
+		return powers;
+	}
+}
@@ -0,0 +1,250 @@
+package dev.dietermai.wincalc.core.simple;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list that shares its structure with the versions it was derived
+ * from. The elements are stored in a trie of 32 element arrays plus a tail
+ * array for the last elements. Appending, replacing and removing the last
+ * element copy only the path to the changed element, which takes O(log32 n).
+ * <p>
+ * A vector never changes, so it can be handed to other threads as a snapshot
+ * without copying. All mutator methods of {@link List} throw an
+ * {@link UnsupportedOperationException}.
+ *
+ * @param <E> The element type
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	private static final Object[] EMPTY_NODE = new Object[WIDTH];
+	private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+	private final int size;
+	private final int shift;
+	private final Object[] root;
+	private final Object[] tail;
+
+	private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+		this.size = size;
+		this.shift = shift;
+		this.root = root;
+		this.tail = tail;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentVector<E> empty() {
+		return (PersistentVector<E>) EMPTY;
+	}
+
+	/* ----------- */
+	/* List access */
+	/* ----------- */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		checkIndex(index);
+		return (E) arrayFor(index)[index & MASK];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return A view of this vector in reverse order, without copying
+	 */
+	public List<E> reverseView() {
+		return new ReverseView<>(this);
+	}
+
+	/* -------------------------- */
+	/* Derivation of new versions */
+	/* -------------------------- */
+	/**
+	 * @return A new vector with the given element added at the end
+	 */
+	public PersistentVector<E> append(E element) {
+		if (size - tailOffset() < WIDTH) {
+			Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+			newTail[tail.length] = element;
+			return new PersistentVector<>(size + 1, shift, root, newTail);
+		}
+		Object[] newRoot;
+		int newShift = shift;
+		if ((size >>> BITS) > (1 << shift)) {
+			// The trie is full, it gets one level more
+			newRoot = new Object[WIDTH];
+			newRoot[0] = root;
+			newRoot[1] = newPath(shift, tail);
+			newShift += BITS;
+		} else {
+			newRoot = pushTail(shift, root, tail);
+		}
+		return new PersistentVector<>(size + 1, newShift, newRoot, new Object[] { element });
+	}
+
+	/**
+	 * @return A new vector with the element at the given index replaced
+	 */
+	public PersistentVector<E> with(int index, E element) {
+		checkIndex(index);
+		if (index >= tailOffset()) {
+			Object[] newTail = tail.clone();
+			newTail[index & MASK] = element;
+			return new PersistentVector<>(size, shift, root, newTail);
+		}
+		return new PersistentVector<>(size, shift, assoc(shift, root, index, element), tail);
+	}
+
+	/**
+	 * @return A new vector without the last element
+	 */
+	public PersistentVector<E> pop() {
+		if (size == 0) {
+			throw new IllegalStateException("Vector is empty");
+		}
+		if (size == 1) {
+			return empty();
+		}
+		if (size - tailOffset() > 1) {
+			return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+		}
+		Object[] newTail = arrayFor(size - 2);
+		Object[] newRoot = popTail(shift, root);
+		int newShift = shift;
+		if (newRoot == null) {
+			newRoot = EMPTY_NODE;
+		}
+		if (shift > BITS && newRoot[1] == null) {
+			newRoot = (Object[]) newRoot[0];
+			newShift -= BITS;
+		}
+		return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+	}
+
+	/**
+	 * Removes the element at the given index. The elements after it are appended
+	 * again, so this takes O((size - index) log32 n).
+	 *
+	 * @return A new vector without the element at the given index
+	 */
+	public PersistentVector<E> without(int index) {
+		checkIndex(index);
+		PersistentVector<E> result = this;
+		while (result.size > index) {
+			result = result.pop();
+		}
+		for (int i = index + 1; i < size; i++) {
+			result = result.append(get(i));
+		}
+		return result;
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private int tailOffset() {
+		return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+	}
+
+	private Object[] arrayFor(int index) {
+		if (index >= tailOffset()) {
+			return tail;
+		}
+		Object[] node = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			node = (Object[]) node[(index >>> level) & MASK];
+		}
+		return node;
+	}
+
+	private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+		int subIndex = ((size - 1) >>> level) & MASK;
+		Object[] result = parent.clone();
+		Object[] nodeToInsert;
+		if (level == BITS) {
+			nodeToInsert = tailNode;
+		} else {
+			Object[] child = (Object[]) parent[subIndex];
+			nodeToInsert = child != null ? pushTail(level - BITS, child, tailNode) : newPath(level - BITS, tailNode);
+		}
+		result[subIndex] = nodeToInsert;
+		return result;
+	}
+
+	private static Object[] newPath(int level, Object[] node) {
+		if (level == 0) {
+			return node;
+		}
+		Object[] result = new Object[WIDTH];
+		result[0] = newPath(level - BITS, node);
+		return result;
+	}
+
+	private static Object[] assoc(int level, Object[] node, int index, Object element) {
+		Object[] result = node.clone();
+		if (level == 0) {
+			result[index & MASK] = element;
+		} else {
+			int subIndex = (index >>> level) & MASK;
+			result[subIndex] = assoc(level - BITS, (Object[]) node[subIndex], index, element);
+		}
+		return result;
+	}
+
+	/**
+	 * @return The node without the last leaf, or null if the node becomes empty
+	 */
+	private Object[] popTail(int level, Object[] node) {
+		int subIndex = ((size - 2) >>> level) & MASK;
+		if (level > BITS) {
+			Object[] newChild = popTail(level - BITS, (Object[]) node[subIndex]);
+			if (newChild == null && subIndex == 0) {
+				return null;
+			}
+			Object[] result = node.clone();
+			result[subIndex] = newChild;
+			return result;
+		} else if (subIndex == 0) {
+			return null;
+		} else {
+			Object[] result = node.clone();
+			result[subIndex] = null;
+			return result;
+		}
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		}
+	}
+
+	private static final class ReverseView<E> extends AbstractList<E> implements RandomAccess {
+		private final PersistentVector<E> vector;
+
+		ReverseView(PersistentVector<E> vector) {
+			this.vector = vector;
+		}
+
+		@Override
+		public E get(int index) {
+			if (index < 0 || index >= vector.size) {
+				throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + vector.size);
+			}
+			return vector.get(vector.size - 1 - index);
+		}
+
+		@Override
+		public int size() {
+			return vector.size;
+		}
+	}
+}
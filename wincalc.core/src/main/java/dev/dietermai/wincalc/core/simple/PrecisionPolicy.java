@@ -0,0 +1,131 @@
+package dev.dietermai.wincalc.core.simple;
+
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * The number of digits the simple calculator keeps of results that are not
+ * exact. A division is rounded HALF_UP to {@link #digits()} fractional digits,
+ * square, root and 1/x are rounded to {@link #digits()} significant digits.
+ * Addition and subtraction are always exact, a product is exact up to
+ * {@link #maxDigits()} digits and rounded beyond.
+ * <p>
+ * Like in the Windows calculator, a result that is not 0 and not between
+ * 10^-{@link #maxExponent()} and 10^{@link #maxExponent()} is an
+ * {@link dev.dietermai.wincalc.core.simple.model.ResultType#OVERFLOW}.
+ * Together the two ceilings bound the cost of every operation.
+ * <p>
+ * The ceilings also apply to the {@link #DEFAULT} policy. Before they existed,
+ * products were always exact and results had no magnitude limit, a caller that
+ * relies on that needs {@link #withMaxDigits(int)} and
+ * {@link #withMaxExponent(int)} with {@link Integer#MAX_VALUE}.
+ */
+public final class PrecisionPolicy {
+	/** 16 digits, the precision the calculator always had */
+	public static final PrecisionPolicy DIGITS_16 = new PrecisionPolicy(16);
+	/** 32 digits, the precision of the Windows calculator */
+	public static final PrecisionPolicy WINDOWS = new PrecisionPolicy(32);
+	/** The precision of a calculator that was not configured otherwise */
+	public static final PrecisionPolicy DEFAULT = DIGITS_16;
+
+	/** Results are below 10^10000, like in the Windows calculator */
+	public static final int DEFAULT_MAX_EXPONENT = 10_000;
+	public static final int DEFAULT_MAX_DIGITS = 1_000;
+
+	private final int digits;
+	private final int maxDigits;
+	private final int maxExponent;
+	private final MathContext mathContext;
+	private final MathContext ceilingContext;
+
+	private PrecisionPolicy(int digits) {
+		this(digits, Math.max(digits, DEFAULT_MAX_DIGITS), DEFAULT_MAX_EXPONENT);
+	}
+
+	private PrecisionPolicy(int digits, int maxDigits, int maxExponent) {
+		this.digits = digits;
+		this.maxDigits = maxDigits;
+		this.maxExponent = maxExponent;
+		this.mathContext = digits == 16 ? MathContext.DECIMAL64 : new MathContext(digits, RoundingMode.HALF_EVEN);
+		this.ceilingContext = new MathContext(maxDigits, RoundingMode.HALF_EVEN);
+	}
+
+	/**
+	 * @param digits The number of digits, at least 1
+	 * @return The policy for the given number of digits
+	 */
+	public static PrecisionPolicy of(int digits) {
+		if (digits < 1) {
+			throw new IllegalArgumentException("A precision needs at least one digit: " + digits);
+		}
+		return switch (digits) {
+		case 16 -> DIGITS_16;
+		case 32 -> WINDOWS;
+		default -> new PrecisionPolicy(digits);
+		};
+	}
+
+	/**
+	 * @param maxDigits The digits of a product that are kept exactly, at least
+	 *                  {@link #digits()}
+	 * @return This policy with the given precision ceiling
+	 */
+	public PrecisionPolicy withMaxDigits(int maxDigits) {
+		if (maxDigits < digits) {
+			throw new IllegalArgumentException("The precision ceiling is below the precision of " + digits + " digits: " + maxDigits);
+		}
+		return new PrecisionPolicy(digits, maxDigits, maxExponent);
+	}
+
+	/**
+	 * @param maxExponent The exponent of the magnitude ceiling, at least 1
+	 * @return This policy with the given magnitude ceiling
+	 */
+	public PrecisionPolicy withMaxExponent(int maxExponent) {
+		if (maxExponent < 1) {
+			throw new IllegalArgumentException("The magnitude ceiling needs a positive exponent: " + maxExponent);
+		}
+		return new PrecisionPolicy(digits, maxDigits, maxExponent);
+	}
+
+	public int digits() {
+		return digits;
+	}
+
+	public int maxDigits() {
+		return maxDigits;
+	}
+
+	public int maxExponent() {
+		return maxExponent;
+	}
+
+	/**
+	 * @return The context square, root and 1/x are rounded with
+	 */
+	public MathContext mathContext() {
+		return mathContext;
+	}
+
+	/**
+	 * @return The context products beyond {@link #maxDigits()} are rounded with
+	 */
+	public MathContext ceilingContext() {
+		return ceilingContext;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof PrecisionPolicy other && other.digits == digits && other.maxDigits == maxDigits && other.maxExponent == maxExponent;
+	}
+
+	@Override
+	public int hashCode() {
+		return (digits * 31 + maxDigits) * 31 + maxExponent;
+	}
+
+	@Override
+	public String toString() {
+		return "PrecisionPolicy[digits=" + digits + ", maxDigits=" + maxDigits + ", maxExponent=" + maxExponent + "]";
+	}
+}
@@ -2,18 +2,37 @@ package dev.dietermai.wincalc.core.simple;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Objects;
 
+import dev.dietermai.wincalc.core.simple.metrics.HistoryOperationType;
+import dev.dietermai.wincalc.core.simple.metrics.OperationMetrics;
 import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
 import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
 
 /**
  * State-full simple calculator.
  */
 public class SimpleCalculator {
-	private final EquationHistory equationHistory = new EquationHistory();
+	private final EquationHistory equationHistory;
 	private final MemoryHistory memory = new MemoryHistory();
+	private final OperationMetrics metrics = OperationMetrics.shared();
 
 	private SimpleCalculatorRecord state = SimpleCalculatorRecord.of();
+	private PrecisionPolicy precision = PrecisionPolicy.DEFAULT;
+
+	public SimpleCalculator() {
+		this(new InMemoryEquationHistory());
+	}
+
+	/**
+	 * @param equationHistory The history the resolved equations are added to,
+	 *                        for example a persistent one
+	 */
+	public SimpleCalculator(EquationHistory equationHistory) {
+		this.equationHistory = equationHistory;
+	}
 
 	/* **********************************/
 	/* Calculator state related methods */
@@ -22,74 +41,167 @@ public class SimpleCalculator {
 		return state;
 	}
 
+	public PrecisionPolicy getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * @param precision The precision of the following operations, results that
+	 *                  are already computed keep their digits
+	 */
+	public void setPrecision(PrecisionPolicy precision) {
+		this.precision = Objects.requireNonNull(precision);
+	}
+
 	public void resolve() {
-		state = SimpleCalculatorBl.resolve(state);
+		long start = metrics.start();
+		state = SimpleCalculatorBl.resolve(state, precision);
 		equationHistory.addIfNewEquation(state.equation());
+		metrics.record(OperationType.resolve, start, state.lastResolve());
+	}
+
+	/**
+	 * Resolves the given number of times, only the last equation is added to the
+	 * history.
+	 * 
+	 * @param times How often to resolve, at least 1
+	 */
+	public void resolve(long times) {
+		resolve(times, false);
+	}
+
+	/**
+	 * Resolves the given number of times.
+	 * 
+	 * @param times           How often to resolve, at least 1
+	 * @param addAllToHistory true to add the equation of every resolve to the
+	 *                        history, like pressing "=" that often. This needs
+	 *                        one step per resolve.
+	 */
+	public void resolve(long times, boolean addAllToHistory) {
+		if (addAllToHistory) {
+			if (times < 1) {
+				throw new IllegalArgumentException("times must be at least 1: " + times);
+			}
+			for (long i = 0; i < times; i++) {
+				resolve();
+			}
+		} else {
+			long start = metrics.start();
+			state = SimpleCalculatorBl.resolve(state, times, precision);
+			equationHistory.addIfNewEquation(state.equation());
+			metrics.record(OperationType.resolve, start, state.lastResolve());
+		}
 	}
 
 	public void number(String number) {
+		long start = metrics.start();
 		state = SimpleCalculatorBl.number(state, number);
 		equationHistory.addIfNewEquation(state.equation());
+		metrics.record(OperationType.number, start, state.lastResolve());
+		metrics.recordOperand(start, number);
 	}
 
 	public void plus() {
-		state = SimpleCalculatorBl.plus(state);
+		long start = metrics.start();
+		state = SimpleCalculatorBl.plus(state, precision);
 		equationHistory.addIfNewEquation(state.equation());
+		metrics.record(OperationType.plus, start, state.lastResolve());
 	}
 
 	public void minus() {
-		state = SimpleCalculatorBl.minus(state);
+		long start = metrics.start();
+		state = SimpleCalculatorBl.minus(state, precision);
 		equationHistory.addIfNewEquation(state.equation());
+		metrics.record(OperationType.minus, start, state.lastResolve());
 	}
 
 	public void multiply() {
-		state = SimpleCalculatorBl.multiply(state);
+		long start = metrics.start();
+		state = SimpleCalculatorBl.multiply(state, precision);
 		equationHistory.addIfNewEquation(state.equation());
+		metrics.record(OperationType.multiply, start, state.lastResolve());
 	}
 
 	public void divide() {
-		state = SimpleCalculatorBl.divide(state);
+		long start = metrics.start();
+		state = SimpleCalculatorBl.divide(state, precision);
 		equationHistory.addIfNewEquation(state.equation());
+		metrics.record(OperationType.divide, start, state.lastResolve());
 	}
 
 	public void negate() {
+		long start = metrics.start();
 		state = SimpleCalculatorBl.negate(state);
 		equationHistory.addIfNewEquation(state.equation());
+		metrics.record(OperationType.negate, start, state.lastResolve());
 	}
 
 	public void percent() {
-		state = SimpleCalculatorBl.percent(state);
+		long start = metrics.start();
+		state = SimpleCalculatorBl.percent(state, precision);
 		equationHistory.addIfNewEquation(state.equation());
+		metrics.record(OperationType.percent, start, state.lastResolve());
 	}
 
 	public void square() {
-		state = SimpleCalculatorBl.square(state);
+		long start = metrics.start();
+		state = SimpleCalculatorBl.square(state, precision);
 		equationHistory.addIfNewEquation(state.equation());
+		metrics.record(OperationType.square, start, state.lastResolve());
 	}
 
 	public void root() {
-		state = SimpleCalculatorBl.root(state);
+		long start = metrics.start();
+		state = SimpleCalculatorBl.root(state, precision);
 		equationHistory.addIfNewEquation(state.equation());
+		metrics.record(OperationType.root, start, state.lastResolve());
 	}
 
 	public void oneDivX() {
-		state = SimpleCalculatorBl.oneDivX(state);
+		long start = metrics.start();
+		state = SimpleCalculatorBl.oneDivX(state, precision);
 		equationHistory.addIfNewEquation(state.equation());
+		metrics.record(OperationType.oneDivX, start, state.lastResolve());
 	}
 
 	public void ce() {
+		long start = metrics.start();
 		state = SimpleCalculatorBl.ce(state);
+		metrics.record(OperationType.ce, start, state.lastResolve());
 	}
 
 	public void c() {
-		state = SimpleCalculatorRecord.of();
+		long start = metrics.start();
+		state = SimpleCalculatorBl.c(state);
+		metrics.record(OperationType.c, start, state.lastResolve());
+	}
+
+	public void apply(Operation operation) {
+		switch (operation.type()) {
+		case number -> number(operation.input());
+		case resolve -> resolve();
+		case plus -> plus();
+		case minus -> minus();
+		case multiply -> multiply();
+		case divide -> divide();
+		case negate -> negate();
+		case percent -> percent();
+		case square -> square();
+		case root -> root();
+		case oneDivX -> oneDivX();
+		case ce -> ce();
+		case c -> c();
+		}
 	}
 
 	/* ****************************************/
 	/* Equation History state related methods */
 	/* ****************************************/
 	public void add(Equation newEquation) {
+		long start = metrics.start();
 		equationHistory.add(newEquation);
+		metrics.record(HistoryOperationType.add, start);
 	}
 
 	public List<Equation> getEquations() {
@@ -97,11 +209,15 @@ public class SimpleCalculator {
 	}
 
 	public void deleteEquation(int index) {
+		long start = metrics.start();
 		equationHistory.delete(index);
+		metrics.record(HistoryOperationType.deleteEquation, start);
 	}
 
 	public void clearEquationHistory() {
+		long start = metrics.start();
 		equationHistory.clear();
+		metrics.record(HistoryOperationType.clearEquationHistory, start);
 	}
 
 	/* *************************************/
@@ -112,22 +228,33 @@ public class SimpleCalculator {
 	}
 
 	public BigDecimal mr() {
-		return memory.getValue();
+		long start = metrics.start();
+		BigDecimal value = memory.getValue();
+		metrics.record(HistoryOperationType.mr, start);
+		return value;
 	}
 
 	public void ms() {
-		memory.save(SimpleCalculatorBl.getCurrentValue(state));
+		long start = metrics.start();
+		memory.save(SimpleCalculatorBl.getCurrentValue(state, precision));
+		metrics.record(HistoryOperationType.ms, start);
 	}
 
 	public void mc() {
+		long start = metrics.start();
 		memory.clear();
+		metrics.record(HistoryOperationType.mc, start);
 	}
 
 	public void mPlus() {
-		memory.addToSaved(SimpleCalculatorBl.getCurrentValue(state));
+		long start = metrics.start();
+		memory.addToSaved(SimpleCalculatorBl.getCurrentValue(state, precision));
+		metrics.record(HistoryOperationType.mPlus, start);
 	}
 
 	public void mMinus() {
-		memory.subtractFromSaved(SimpleCalculatorBl.getCurrentValue(state));
+		long start = metrics.start();
+		memory.subtractFromSaved(SimpleCalculatorBl.getCurrentValue(state, precision));
+		metrics.record(HistoryOperationType.mMinus, start);
 	}
 }
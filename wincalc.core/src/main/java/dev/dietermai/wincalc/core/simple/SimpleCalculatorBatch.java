@@ -0,0 +1,84 @@
+package dev.dietermai.wincalc.core.simple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import dev.dietermai.wincalc.core.simple.model.BatchResult;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * Evaluates many independent operation sequences in parallel. Every sequence is
+ * folded through the pure functions of {@link SimpleCalculatorBl}, so no
+ * {@link SimpleCalculator} is created and the sequences share no state. The
+ * result of each sequence is identical to feeding the operations one by one
+ * into a new {@link SimpleCalculator}. A sequence that throws is recorded as a
+ * failed {@link BatchResult}, so it does not affect the other sequences.
+ */
+public class SimpleCalculatorBatch {
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a batch engine that runs on the common pool.
+	 */
+	public SimpleCalculatorBatch() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a batch engine that runs on the given pool.
+	 *
+	 * @param pool The pool that executes the evaluation
+	 */
+	public SimpleCalculatorBatch(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Evaluates the given sessions in parallel.
+	 *
+	 * @param sessions The operation sequences to evaluate
+	 * @return The result of each session, in the order of the given sessions
+	 */
+	public List<BatchResult> evaluate(List<? extends List<Operation>> sessions) {
+		List<? extends List<Operation>> splittable = sessions instanceof RandomAccess ? sessions : new ArrayList<>(sessions);
+		return evaluate(splittable.stream());
+	}
+
+	/**
+	 * Evaluates the given sessions in parallel. The stream should be backed by a
+	 * source that splits well, like an array or an {@link ArrayList}.
+	 *
+	 * @param sessions The operation sequences to evaluate
+	 * @return The result of each session, in the encounter order of the stream
+	 */
+	public List<BatchResult> evaluate(Stream<? extends List<Operation>> sessions) {
+		return pool.submit(() -> sessions.parallel().map(SimpleCalculatorBatch::evaluateSession).toList()).join();
+	}
+
+	/**
+	 * Evaluates a single session on the calling thread.
+	 *
+	 * @param operations The operations of the session
+	 * @return The final state and equation history of the session, or the state
+	 *         and history before the operation that threw
+	 */
+	public static BatchResult evaluateSession(List<Operation> operations) {
+		EquationHistory history = new InMemoryEquationHistory();
+		SimpleCalculatorRecord state = SimpleCalculatorRecord.of();
+		for (Operation operation : operations) {
+			try {
+				state = SimpleCalculatorBl.apply(state, operation);
+			} catch (RuntimeException e) {
+				return BatchResult.ofFailure(state, history.getEquations(), e);
+			}
+			if (operation.type().addsEquation()) {
+				history.addIfNewEquation(state.equation());
+			}
+		}
+		return BatchResult.of(state, history.getEquations());
+	}
+}
@@ -1,15 +1,23 @@
 package dev.dietermai.wincalc.core.simple;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.LongFunction;
 
+import dev.dietermai.wincalc.core.simple.jfr.BinaryOperationEvent;
+import dev.dietermai.wincalc.core.simple.jfr.ResolveEvent;
+import dev.dietermai.wincalc.core.simple.jfr.UnaryOperationEvent;
 import dev.dietermai.wincalc.core.simple.model.BiOperator;
 import dev.dietermai.wincalc.core.simple.model.BinaryExpression;
 import dev.dietermai.wincalc.core.simple.model.Equation;
 import dev.dietermai.wincalc.core.simple.model.Expression;
 import dev.dietermai.wincalc.core.simple.model.IdleExpression;
 import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.Operation;
 import dev.dietermai.wincalc.core.simple.model.Result;
 import dev.dietermai.wincalc.core.simple.model.ResultType;
 import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
@@ -26,6 +34,12 @@ import dev.dietermai.wincalc.core.simple.model.UnaryOperator;
 public class SimpleCalculatorBl {
 	private static final BigDecimal ZERO = BigDecimal.ZERO;
 	private static final NumberExpression NUMBER_ZERO = NumberExpression.ZERO;
+	private static final UnaryResultCache UNARY_RESULTS = new UnaryResultCache();
+	private static final double LOG10_2 = Math.log10(2);
+	private static final double LN_10 = Math.log(10);
+	private static final BigDecimal HALF = new BigDecimal("0.5");
+	/** Resolves of rounded products or quotients that are repeated one by one, more are computed with a rounded power */
+	private static final int MAX_ROUNDED_STEPS = 64;
 
 	/**
 	 * Resolves the given state of the calculator
@@ -34,30 +48,417 @@ public class SimpleCalculatorBl {
 	 * @return The calculator state after resolving
 	 */
 	public static SimpleCalculatorRecord resolve(final SimpleCalculatorRecord before) {
-		return SimpleCalculatorRecord.of(resolveExpression(before));
+		return resolve(before, PrecisionPolicy.DEFAULT);
 	}
 
-	private static Equation resolveExpression(final SimpleCalculatorRecord state) {
+	/**
+	 * Same as {@link #resolve(SimpleCalculatorRecord)}, computing with the given precision
+	 */
+	public static SimpleCalculatorRecord resolve(final SimpleCalculatorRecord before, final PrecisionPolicy policy) {
+		ResolveEvent event = new ResolveEvent();
+		event.begin();
+		Equation equation = resolveExpression(before, policy);
+		if (event.shouldCommit()) {
+			// The equation of a binary expression only keeps the values of its sides
+			Expression resolved = before.expression() instanceof IdleExpression ? equation.expression() : before.expression();
+			event.commit(operatorOf(resolved), operandOf(before, policy), resolved, equation.error());
+		}
+		return SimpleCalculatorRecord.of(equation);
+	}
+
+	/**
+	 * Resolves the given state the given number of times, with the same result as
+	 * calling {@link #resolve(SimpleCalculatorRecord)} that often. Repeating a
+	 * plus, minus or multiply is computed in closed form, as is a division by an
+	 * integer with an exact quotient. The repetition stops at the first resolve
+	 * that ends in an error, like the overflow of a growing product.
+	 * <p>
+	 * A product beyond the precision ceiling is rounded after every resolve. Up
+	 * to {@value #MAX_ROUNDED_STEPS} such resolves are repeated one by one, more
+	 * are computed as a power rounded to the ceiling, which can differ from
+	 * single resolves in the last few of the {@link PrecisionPolicy#maxDigits()}
+	 * digits. Other divisions are rounded to {@link PrecisionPolicy#digits()}
+	 * fractional digits after every resolve. Up to {@value #MAX_ROUNDED_STEPS}
+	 * of them are repeated one by one as well, more are computed as one quotient
+	 * by a rounded power. Its rounding errors do not add up like those of single
+	 * resolves, so the last digits can differ, the more the more resolves.
+	 * 
+	 * @param before The calculator state before resolving
+	 * @param times  How often to resolve, at least 1
+	 * @return The calculator state after the last resolve
+	 */
+	public static SimpleCalculatorRecord resolve(final SimpleCalculatorRecord before, final long times) {
+		return resolve(before, times, PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #resolve(SimpleCalculatorRecord, long)}, computing with the given precision
+	 */
+	public static SimpleCalculatorRecord resolve(final SimpleCalculatorRecord before, final long times, final PrecisionPolicy policy) {
+		if (times < 1) {
+			throw new IllegalArgumentException("times must be at least 1: " + times);
+		}
+		SimpleCalculatorRecord state = resolve(before, policy);
+		long remaining = times - 1;
+		while (remaining > 0 && state.lastResolve().ok()) {
+			Equation equation = state.equation();
+			if (!(equation.expression() instanceof BinaryExpression be)) {
+				// Resolving a number again gives the same equation, everything else fails right away
+				return resolve(state, policy);
+			}
+			Result right = resultOf(be.right(), policy);
+			if (right.error()) {
+				return resolveOneByOne(state, remaining, policy);
+			}
+			// The last resolve is done regularly, so the final equation holds the value before it.
+			// The repetition stops before a value beyond the ceilings, so that resolve fails like a single one.
+			Repeated repeated = repeatValue(equation.value(), be.operator(), right.value(), remaining - 1, policy);
+			state = resolve(SimpleCalculatorRecord.of(Equation.of(be, Result.of(repeated.value()))), policy);
+			remaining -= repeated.times() + 1;
+		}
+		return state;
+	}
+
+	/**
+	 * Resolves one by one, until the state is an error, stays the same or
+	 * alternates between two states.
+	 */
+	private static SimpleCalculatorRecord resolveOneByOne(SimpleCalculatorRecord state, long times, PrecisionPolicy policy) {
+		SimpleCalculatorRecord previous = null;
+		for (long i = 0; i < times && state.lastResolve().ok(); i++) {
+			SimpleCalculatorRecord next = resolve(state, policy);
+			if (next.equals(state)) {
+				return state;
+			}
+			if (next.equals(previous)) {
+				// Alternates between previous and state from here on
+				return (times - i - 1) % 2 == 0 ? next : state;
+			}
+			previous = state;
+			state = next;
+		}
+		return state;
+	}
+
+	/**
+	 * A value after applying "value operator right" the given number of times
+	 */
+	private record Repeated(BigDecimal value, long times) {
+	}
+
+	/**
+	 * Applies "value operator right" the given number of times, but stops before
+	 * the first value beyond the magnitude ceiling.
+	 * 
+	 * @return The last value within the ceiling and how often it was applied
+	 */
+	private static Repeated repeatValue(BigDecimal value, BiOperator operator, BigDecimal right, long times, PrecisionPolicy policy) {
+		if (times == 0) {
+			return new Repeated(value, 0);
+		}
+		return switch (operator) {
+		case plus -> repeatLinear(value, right, times, policy);
+		case minus -> repeatLinear(value, right.negate(), times, policy);
+		case multiply -> repeatMultiply(value, right, times, policy);
+		case divide -> {
+			BigDecimal closedForm = exactRepeatedDivide(value, right, times, policy);
+			// The exact quotients shrink, so no value before the last one is beyond the ceiling
+			yield closedForm != null && checkMagnitude(closedForm, policy).ok() ? new Repeated(closedForm, times) : repeatDivide(value, right, times, policy);
+		}
+		};
+	}
+
+	/**
+	 * The sums lie on a line, so once one is beyond the magnitude ceiling, all
+	 * after it are as well. The last one within is found by bisection.
+	 */
+	private static Repeated repeatLinear(BigDecimal value, BigDecimal right, long times, PrecisionPolicy policy) {
+		BigDecimal last = plusValue(value, right.multiply(BigDecimal.valueOf(times)));
+		if (checkMagnitude(last, policy).ok()) {
+			return new Repeated(last, times);
+		}
+		long within = 0;
+		long beyond = times;
+		while (beyond - within > 1) {
+			long middle = within + (beyond - within) / 2;
+			if (checkMagnitude(plusValue(value, right.multiply(BigDecimal.valueOf(middle))), policy).ok()) {
+				within = middle;
+			} else {
+				beyond = middle;
+			}
+		}
+		return new Repeated(plusValue(value, right.multiply(BigDecimal.valueOf(within))), within);
+	}
+
+	/**
+	 * Products of a factor other than 0, 1 and -1 grow or shrink with every
+	 * resolve. An exact power is computed if it fits the ceilings, a short run of
+	 * rounded products one by one, a long one as a rounded power up to the
+	 * resolve that its logarithm puts beyond the magnitude ceiling.
+	 */
+	private static Repeated repeatMultiply(BigDecimal value, BigDecimal right, long times, PrecisionPolicy policy) {
+		boolean minusOne = right.compareTo(BigDecimal.ONE.negate()) == 0;
+		if (value.signum() == 0 || right.signum() == 0 || right.compareTo(BigDecimal.ONE) == 0 || minusOne) {
+			// The first product normalizes the value like a single resolve, after it
+			// the value stays the same or only changes its sign
+			BigDecimal first = multiplyValue(value, right, policy);
+			if (checkMagnitude(first, policy).error()) {
+				return new Repeated(value, 0);
+			}
+			return new Repeated(minusOne && times % 2 == 0 ? first.negate() : first, times);
+		}
+		if (exactPowerFits(value, right, times, policy)) {
+			BigDecimal closedForm = multiplyValue(value, right.pow((int) times), policy);
+			if (checkMagnitude(closedForm, policy).ok()) {
+				return new Repeated(closedForm, times);
+			}
+		}
+		if (times <= MAX_ROUNDED_STEPS) {
+			return repeatValueOneByOne(value, BiOperator.multiply, right, times, policy);
+		}
+		long beyond = firstStepBeyond(value, log10(right.abs()), times, n -> powerValue(value, right, n, policy), policy);
+		long within = Math.min(times, beyond - 1);
+		return new Repeated(powerValue(value, right, within, policy), within);
+	}
+
+	/**
+	 * Quotients that are rounded after every resolve. A short run is repeated one
+	 * by one, a long one as a quotient by a rounded power. Unless the rounding
+	 * keeps the first value, growing quotients end beyond the magnitude ceiling,
+	 * at the resolve their logarithm estimates. Shrinking ones end at a value
+	 * that the rounding keeps the same or only changes in sign, at the latest at
+	 * 0. The logarithms bound that resolve and bisection finds it.
+	 */
+	private static Repeated repeatDivide(BigDecimal value, BigDecimal right, long times, PrecisionPolicy policy) {
+		if (times <= MAX_ROUNDED_STEPS) {
+			return repeatValueOneByOne(value, BiOperator.divide, right, times, policy);
+		}
+		BigDecimal first = divideValue(value, right, policy);
+		if (first.equals(value) || first.equals(value.negate()) || right.abs().compareTo(BigDecimal.ONE) == 0) {
+			// After the first quotient the value stays the same or only changes its sign
+			return new Repeated(times % 2 == 0 ? divideValue(first, right, policy) : first, times);
+		}
+		double logValue = log10(value.abs());
+		double logRight = log10(right.abs());
+		if (logRight < 0) {
+			long beyond = firstStepBeyond(value, -logRight, times, n -> value.divide(powerValue(BigDecimal.ONE, right, n, policy), policy.mathContext()), policy);
+			long within = Math.min(times, beyond - 1);
+			return new Repeated(quotientValue(value, right, within, policy), within);
+		}
+		long bound = times;
+		if (logRight > 0) {
+			// Twice the estimate of the resolves down to 0 leaves room for the error of the logarithms
+			bound = (long) Math.max(1, Math.min(times, 2 * (logValue + policy.digits() + 1) / logRight + 2));
+		}
+		// Dividing x once more changes it by x * (1 - 1/|right|), a change below the
+		// rounding leaves it the same or only changes its sign
+		BigDecimal change = BigDecimal.ONE.subtract(BigDecimal.ONE.divide(right.abs(), MathContext.DECIMAL64)).abs();
+		double settleLimit = 1 - policy.digits() - Math.log10(change.doubleValue());
+		if (!quotientSettles(value, right, bound, settleLimit, policy)) {
+			// Either all resolves are done, or the caller continues after the bound
+			return new Repeated(quotientValue(value, right, bound, policy), bound);
+		}
+		long within = 0;
+		long settles = bound;
+		while (settles - within > 1) {
+			long middle = within + (settles - within) / 2;
+			if (quotientSettles(value, right, middle, settleLimit, policy)) {
+				settles = middle;
+			} else {
+				within = middle;
+			}
+		}
+		BigDecimal end = quotientValue(value, right, settles, policy);
+		if (checkMagnitude(end, policy).error()) {
+			return new Repeated(quotientValue(value, right, within, policy), within);
+		}
+		return new Repeated((times - settles) % 2 == 0 ? end : divideValue(end, right, policy), times);
+	}
+
+	/**
+	 * Only computes the digits of a quotient small enough to settle.
+	 * 
+	 * @return true if value / right^times is below the magnitude ceiling, or if
+	 *         dividing it once more gives the same value or its negation
+	 */
+	private static boolean quotientSettles(BigDecimal value, BigDecimal right, long times, double settleLimit, PrecisionPolicy policy) {
+		BigDecimal power = powerValue(BigDecimal.ONE, right, times, policy);
+		BigDecimal estimate = value.divide(power, policy.mathContext()).abs();
+		if (estimate.signum() != 0 && log10(estimate) > settleLimit) {
+			return false;
+		}
+		BigDecimal quotient = quotientValue(value, power, policy);
+		if (checkMagnitude(quotient, policy).error()) {
+			return true;
+		}
+		BigDecimal next = divideValue(quotient, right, policy);
+		return next.equals(quotient) || next.equals(quotient.negate());
+	}
+
+	/**
+	 * @return value / right^times, rounded like a single division. The power is
+	 *         rounded to the precision ceiling.
+	 */
+	private static BigDecimal quotientValue(BigDecimal value, BigDecimal right, long times, PrecisionPolicy policy) {
+		return quotientValue(value, powerValue(BigDecimal.ONE, right, times, policy), policy);
+	}
+
+	private static BigDecimal quotientValue(BigDecimal value, BigDecimal power, PrecisionPolicy policy) {
+		return normalize(value.divide(power, policy.digits(), RoundingMode.HALF_UP));
+	}
+
+	/**
+	 * Estimates the first resolve that puts value * factor^n beyond the
+	 * magnitude ceiling from the logarithms, and corrects the estimate with the
+	 * rounded values around it.
+	 * 
+	 * @param logFactor log10 of the factor every resolve applies
+	 * @param repeated  The rounded value after n resolves
+	 * @return The first such n, or a number above times if it is not reached
+	 */
+	private static long firstStepBeyond(BigDecimal value, double logFactor, long times, LongFunction<BigDecimal> repeated, PrecisionPolicy policy) {
+		double logValue = log10(value.abs());
+		double steps;
+		if (logFactor > 0) {
+			steps = Math.ceil((policy.maxExponent() - logValue) / logFactor);
+		} else if (logFactor < 0) {
+			steps = Math.floor((logValue + policy.maxExponent()) / -logFactor) + 1;
+		} else {
+			// Closer to 1 than a double can tell, no long number of resolves leaves the range
+			return times + 1;
+		}
+		long step = (long) Math.max(1, Math.min(steps, times + 1.0));
+		while (step > 1 && checkMagnitude(repeated.apply(step - 1), policy).error()) {
+			step--;
+		}
+		while (step <= times && checkMagnitude(repeated.apply(step), policy).ok()) {
+			step++;
+		}
+		return step;
+	}
+
+	/**
+	 * @return value * right^times, rounded to the precision ceiling. The power
+	 *         is computed by squaring, rounding every product.
+	 */
+	private static BigDecimal powerValue(BigDecimal value, BigDecimal right, long times, PrecisionPolicy policy) {
+		BigDecimal power = BigDecimal.ONE;
+		BigDecimal square = withinCeiling(right, policy);
+		for (long rest = times; rest > 0;) {
+			if ((rest & 1) == 1) {
+				power = power.multiply(square, policy.ceilingContext());
+			}
+			rest >>>= 1;
+			if (rest > 0) {
+				square = square.multiply(square, policy.ceilingContext());
+			}
+		}
+		return withinCeiling(value, policy).multiply(power, policy.ceilingContext()).stripTrailingZeros();
+	}
+
+	/**
+	 * @return log10 of the positive value, with the digits of a double
+	 */
+	private static double log10(BigDecimal value) {
+		BigDecimal distance = value.subtract(BigDecimal.ONE);
+		if (distance.abs().compareTo(HALF) < 0) {
+			// Accurate for values close to 1, where the mantissa would round to 1
+			return Math.log1p(distance.doubleValue()) / LN_10;
+		}
+		long exponent = exponent(value);
+		return exponent + Math.log10(value.movePointLeft((int) exponent).doubleValue());
+	}
+
+	/**
+	 * Estimates the size of value * right^times from the bit lengths of the
+	 * unscaled values, without computing it.
+	 * 
+	 * @return true if the product is exact within the precision ceiling and its
+	 *         scale is possible within the magnitude ceiling
+	 */
+	private static boolean exactPowerFits(BigDecimal value, BigDecimal right, long times, PrecisionPolicy policy) {
+		if (times > Integer.MAX_VALUE) {
+			return false;
+		}
+		// A power of n has at most n times the bits of the base, and 1 has none
+		long bits = times * right.unscaledValue().abs().subtract(BigInteger.ONE).bitLength() + value.unscaledValue().bitLength() + 1;
+		long digits = (long) (bits * LOG10_2) + 1;
+		long scale = times * right.scale() + value.scale();
+		return digits <= policy.maxDigits() && Math.abs(scale) <= (long) policy.maxExponent() + policy.maxDigits();
+	}
+
+	/**
+	 * Dividing by an integer never reduces the number of fractional digits. If
+	 * value / right^times is exact with as many fractional digits as the policy
+	 * keeps, then every single division is exact as well and no rounding happens
+	 * on the way.
+	 * 
+	 * @return The quotient, or null if it is not exact
+	 */
+	private static BigDecimal exactRepeatedDivide(BigDecimal value, BigDecimal right, long times, PrecisionPolicy policy) {
+		if (right.stripTrailingZeros().scale() > 0) {
+			return null;
+		}
+		// A divisor of at least 2^times has too many digits for an exact quotient
+		if (right.abs().compareTo(BigDecimal.ONE) != 0 && times > 4L * (value.precision() + policy.digits() + 1)) {
+			return null;
+		}
+		BigDecimal divisor = right.abs().compareTo(BigDecimal.ONE) == 0 ? right.pow((int) (times % 2)) : right.pow((int) times);
+		BigDecimal quotient = value.divide(divisor, policy.digits(), RoundingMode.DOWN);
+		return quotient.multiply(divisor).compareTo(value) == 0 ? normalize(quotient) : null;
+	}
+
+	/**
+	 * Applies "value operator right" one by one, until the value stays the
+	 * same, alternates between two values or the next one is beyond the
+	 * magnitude ceiling.
+	 */
+	private static Repeated repeatValueOneByOne(BigDecimal value, BiOperator operator, BigDecimal right, long times, PrecisionPolicy policy) {
+		BigDecimal previous = null;
+		for (long i = 0; i < times; i++) {
+			BigDecimal next = switch (operator) {
+			case plus -> plusValue(value, right);
+			case minus -> minusValue(value, right);
+			case multiply -> multiplyValue(value, right, policy);
+			case divide -> divideValue(value, right, policy);
+			};
+			if (next.equals(value)) {
+				return new Repeated(value, times);
+			}
+			if (next.equals(previous)) {
+				// Alternates between previous and value from here on
+				return new Repeated((times - i - 1) % 2 == 0 ? next : value, times);
+			}
+			if (checkMagnitude(next, policy).error()) {
+				return new Repeated(value, i);
+			}
+			previous = value;
+			value = next;
+		}
+		return new Repeated(value, times);
+	}
+
+	private static Equation resolveExpression(final SimpleCalculatorRecord state, final PrecisionPolicy policy) {
 		return switch (state.expression()) {
-		case IdleExpression i -> resolveOfIdle(state);
-		case UnaryExpression unary -> resolveOfUnary(unary);
-		case BinaryExpression binary -> resolveBinaryExpression(state);
+		case IdleExpression i -> resolveOfIdle(state, policy);
+		case UnaryExpression unary -> resolveOfUnary(state, unary, policy);
+		case BinaryExpression binary -> resolveBinaryExpression(state, policy);
 		case NumberExpression number -> Equation.of(number, Result.of(number.value()));
 		default -> throw new IllegalStateException("Not yet implemented: " + state.expression());
 		};
 	}
 
-	private static Equation resolveOfIdle(final SimpleCalculatorRecord state) {
+	private static Equation resolveOfIdle(final SimpleCalculatorRecord state, final PrecisionPolicy policy) {
 		if (state.input().isBlank()) {
 			Equation previousEquation = state.equation();
 			Expression previousExpression = getPreviousExpression(previousEquation);
 			return switch (previousExpression) {
-			case NumberExpression ne -> equationOf(ne);
-			case BinaryExpression be -> equationOf(BinaryExpression.of(previousEquation.value(), be.operator(), be.right()));
+			case NumberExpression ne -> equationOf(ne, policy);
+			case BinaryExpression be -> equationOf(BinaryExpression.of(previousEquation.value(), be.operator(), be.right()), policy);
 			default -> throw new IllegalStateException("expression: " + previousExpression);
 			};
 		} else {
-			return equationOf(NumberExpression.of(state.input()));
+			return equationOf(NumberExpression.of(state.input()), policy);
 		}
 	}
 
@@ -65,31 +466,35 @@ public class SimpleCalculatorBl {
 		return previousEquation != null ? previousEquation.expression() : NUMBER_ZERO;
 	}
 
-	private static Equation resolveOfUnary(final UnaryExpression unary) {
-		return equationOf(unary);
+	private static Equation resolveOfUnary(final SimpleCalculatorRecord state, final UnaryExpression unary, final PrecisionPolicy policy) {
+		// A number typed after the function replaces it
+		if (!state.input().isBlank()) {
+			return equationOf(NumberExpression.of(state.input()), policy);
+		}
+		return equationOf(unary, policy);
 	}
 
-	private static Equation equationOf(final Expression expression) {
-		return Equation.of(expression, resultOf(expression));
+	private static Equation equationOf(final Expression expression, final PrecisionPolicy policy) {
+		return Equation.of(expression, resultOf(expression, policy));
 	}
 
-	private static Equation resolveBinaryExpression(final SimpleCalculatorRecord state) {
+	private static Equation resolveBinaryExpression(final SimpleCalculatorRecord state, final PrecisionPolicy policy) {
 		BinaryExpression expression = (BinaryExpression) state.expression();
 		BiOperator operator = expression.operator();
 		Expression leftExpression = expression.left();
-		Result left = resultOf(leftExpression);
+		Result left = resultOf(leftExpression, policy);
 		if (left.error())
 			return Equation.of(expression, left);
 		Expression rightExpression = getRightExpression(expression.right(), state.input(), left.value());
-		Result right = resultOf(rightExpression);
+		Result right = resultOf(rightExpression, policy);
 		if (right.error())
 			return Equation.of(expression, right);
 
 		return switch (operator) {
-		case plus -> resolvePlusExpression(left.value(), right.value());
-		case minus -> resolveMinusExpression(left.value(), right.value());
-		case multiply -> resolveMultiplyExpression(left.value(), right.value());
-		case divide -> resolveDivideExpression(left.value(), right.value());
+		case plus -> resolvePlusExpression(left.value(), right.value(), policy);
+		case minus -> resolveMinusExpression(left.value(), right.value(), policy);
+		case multiply -> resolveMultiplyExpression(left.value(), right.value(), policy);
+		case divide -> resolveDivideExpression(left.value(), right.value(), policy);
 		};
 	}
 
@@ -111,13 +516,46 @@ public class SimpleCalculatorBl {
 	 * @return The state after changing the input number
 	 */
 	public static SimpleCalculatorRecord number(final SimpleCalculatorRecord before, final String input) {
-		if(before.equation() != null && before.equation().expression() instanceof BinaryExpression) {
+		// A number after "=" starts a new calculation, one after a chained operator is its right operand
+		if(before.expression() instanceof IdleExpression && before.equation() != null && before.equation().expression() instanceof BinaryExpression) {
 			return SimpleCalculatorRecord.of(input);
 		}else {
 			return before.with(input);
 		}
 	}
 
+	/**
+	 * Executes the given operation on the given state
+	 * 
+	 * @param state     The state before the operation
+	 * @param operation The operation to execute
+	 * @return The state after the operation
+	 */
+	public static SimpleCalculatorRecord apply(final SimpleCalculatorRecord state, final Operation operation) {
+		return apply(state, operation, PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #apply(SimpleCalculatorRecord, Operation)}, computing with the given precision
+	 */
+	public static SimpleCalculatorRecord apply(final SimpleCalculatorRecord state, final Operation operation, final PrecisionPolicy policy) {
+		return switch (operation.type()) {
+		case number -> number(state, operation.input());
+		case resolve -> resolve(state, policy);
+		case plus -> plus(state, policy);
+		case minus -> minus(state, policy);
+		case multiply -> multiply(state, policy);
+		case divide -> divide(state, policy);
+		case negate -> negate(state);
+		case percent -> percent(state, policy);
+		case square -> square(state, policy);
+		case root -> root(state, policy);
+		case oneDivX -> oneDivX(state, policy);
+		case ce -> ce(state);
+		case c -> c(state);
+		};
+	}
+
 	/**
 	 * Executes the plus operation on the given state
 	 * 
@@ -125,7 +563,14 @@ public class SimpleCalculatorBl {
 	 * @return The state after the operation
 	 */
 	public static SimpleCalculatorRecord plus(final SimpleCalculatorRecord state) {
-		return binaryOperation(state, BiOperator.plus);
+		return plus(state, PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #plus(SimpleCalculatorRecord)}, computing with the given precision
+	 */
+	public static SimpleCalculatorRecord plus(final SimpleCalculatorRecord state, final PrecisionPolicy policy) {
+		return binaryOperation(state, BiOperator.plus, policy);
 	}
 
 	/**
@@ -135,7 +580,14 @@ public class SimpleCalculatorBl {
 	 * @return The state after the operation
 	 */
 	public static SimpleCalculatorRecord minus(final SimpleCalculatorRecord state) {
-		return binaryOperation(state, BiOperator.minus);
+		return minus(state, PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #minus(SimpleCalculatorRecord)}, computing with the given precision
+	 */
+	public static SimpleCalculatorRecord minus(final SimpleCalculatorRecord state, final PrecisionPolicy policy) {
+		return binaryOperation(state, BiOperator.minus, policy);
 	}
 
 	/**
@@ -145,7 +597,14 @@ public class SimpleCalculatorBl {
 	 * @return The state after the operation
 	 */
 	public static SimpleCalculatorRecord multiply(final SimpleCalculatorRecord state) {
-		return binaryOperation(state, BiOperator.multiply);
+		return multiply(state, PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #multiply(SimpleCalculatorRecord)}, computing with the given precision
+	 */
+	public static SimpleCalculatorRecord multiply(final SimpleCalculatorRecord state, final PrecisionPolicy policy) {
+		return binaryOperation(state, BiOperator.multiply, policy);
 	}
 
 	/**
@@ -155,12 +614,32 @@ public class SimpleCalculatorBl {
 	 * @return The state after the operation
 	 */
 	public static SimpleCalculatorRecord divide(final SimpleCalculatorRecord state) {
-		return binaryOperation(state, BiOperator.divide);
+		return divide(state, PrecisionPolicy.DEFAULT);
 	}
 
-	private static SimpleCalculatorRecord binaryOperation(final SimpleCalculatorRecord state, final BiOperator operator) {
+	/**
+	 * Same as {@link #divide(SimpleCalculatorRecord)}, computing with the given precision
+	 */
+	public static SimpleCalculatorRecord divide(final SimpleCalculatorRecord state, final PrecisionPolicy policy) {
+		return binaryOperation(state, BiOperator.divide, policy);
+	}
+
+	private static SimpleCalculatorRecord binaryOperation(final SimpleCalculatorRecord state, final BiOperator operator, final PrecisionPolicy policy) {
 		noOpOnError(state);
-		
+
+		BinaryOperationEvent event = new BinaryOperationEvent();
+		event.begin();
+		SimpleCalculatorRecord after = applyBinaryOperator(state, operator, policy);
+		if (event.shouldCommit()) {
+			// Completing an expression evaluates it into the new equation
+			Equation equation = after.equation();
+			Expression evaluated = equation != null && equation != state.equation() ? equation.expression() : after.expression();
+			event.commit(operator, operandOf(state, policy), evaluated, after.lastResolve());
+		}
+		return after;
+	}
+
+	private static SimpleCalculatorRecord applyBinaryOperator(final SimpleCalculatorRecord state, final BiOperator operator, final PrecisionPolicy policy) {
 		final Expression expression = state.expression();
 		final String input = state.input();
 		final Equation equation = state.equation();
@@ -176,7 +655,7 @@ public class SimpleCalculatorBl {
 		} else if (expression instanceof BinaryExpression be) {
 			if (!input.isBlank()) {
 				BinaryExpression completedExpression = be.withRight(input);
-				final Result result = resultOf(completedExpression);
+				final Result result = resultOf(completedExpression, policy);
 				final Equation newEquation = Equation.of(completedExpression, result);
 				if (result.error()) {
 					return SimpleCalculatorRecord.of(newEquation, result.type());
@@ -186,17 +665,23 @@ public class SimpleCalculatorBl {
 			} else if (be.isComplete()) {
 				if (be.right() instanceof UnaryExpression unaryRight) {
 					be = be.withRight(unaryRight);
-					Result result = resultOf(be);
+					Result result = resultOf(be, policy);
 					Equation newEquation = Equation.of(be, result);
 					return SimpleCalculatorRecord.of(BinaryExpression.of(result.value(), operator), newEquation);
 				} else if (be.right() instanceof NumberExpression ne) {
-					Result result = resultOf(be);
+					Result result = resultOf(be, policy);
 					Equation newEquation = Equation.of(be, result);
 					return SimpleCalculatorRecord.of(BinaryExpression.of(result.value(), operator), newEquation);
 				}
 			} else {
 				return state.with(be.with(operator));
 			}
+		} else if (expression instanceof UnaryExpression unary) {
+			// A number typed after the function replaces it, like on an idle calculator
+			if (!input.isBlank()) {
+				return SimpleCalculatorRecord.of(BinaryExpression.of(input, operator), equation);
+			}
+			return SimpleCalculatorRecord.of(BinaryExpression.of(unary, operator), equation);
 		}
 
 		throw new IllegalStateException("Not implemented yet");
@@ -210,7 +695,17 @@ public class SimpleCalculatorBl {
 	 */
 	public static SimpleCalculatorRecord negate(final SimpleCalculatorRecord state) {
 		noOpOnError(state);
-		
+
+		UnaryOperationEvent event = new UnaryOperationEvent();
+		event.begin();
+		SimpleCalculatorRecord after = applyNegate(state);
+		if (event.shouldCommit()) {
+			event.commit(UnaryOperator.negate, operandOf(state, PrecisionPolicy.DEFAULT), after.expression(), after.lastResolve());
+		}
+		return after;
+	}
+
+	private static SimpleCalculatorRecord applyNegate(final SimpleCalculatorRecord state) {
 		String input = state.input();
 		if (!input.isBlank()) {
 			if (input.equals("0")) {
@@ -249,6 +744,13 @@ public class SimpleCalculatorBl {
 	 * @return The state after the operation
 	 */
 	public static SimpleCalculatorRecord percent(final SimpleCalculatorRecord state) {
+		return percent(state, PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #percent(SimpleCalculatorRecord)}, computing with the given precision
+	 */
+	public static SimpleCalculatorRecord percent(final SimpleCalculatorRecord state, final PrecisionPolicy policy) {
 		noOpOnError(state);
 
 		Expression expression = state.expression();
@@ -261,17 +763,17 @@ public class SimpleCalculatorBl {
 			} else {
 				Result result;
 				if (be.right() == null) {
-					result = resultOf(be.left());
+					result = resultOf(be.left(), policy);
 					percentNumber = result.value();
 				} else {
-					result = resultOf(be.right());
+					result = resultOf(be.right(), policy);
 				}
 				if (result.error()) {
 					throw new IllegalStateException("Not implemented yet!");
 				}
 				percentNumber = result.value();
 			}
-			Result leftResult = resultOf(be.left());
+			Result leftResult = resultOf(be.left(), policy);
 			if (leftResult.error()) {
 				throw new IllegalStateException("Not implemented yet!");
 			}
@@ -296,15 +798,14 @@ public class SimpleCalculatorBl {
 	 * @return The state after the operation
 	 */
 	public static SimpleCalculatorRecord square(SimpleCalculatorRecord state) {
-		noOpOnError(state);
+		return square(state, PrecisionPolicy.DEFAULT);
+	}
 
-		Expression newExpression = appyUnaryOperator(state, UnaryOperator.square);
-		Result newExpressionResult = resultOf(newExpression);
-		if (newExpressionResult.error()) {
-			return SimpleCalculatorRecord.of(newExpression, newExpressionResult.type());
-		} else {
-			return SimpleCalculatorRecord.of(newExpression);
-		}
+	/**
+	 * Same as {@link #square(SimpleCalculatorRecord)}, computing with the given precision
+	 */
+	public static SimpleCalculatorRecord square(SimpleCalculatorRecord state, PrecisionPolicy policy) {
+		return unaryOperation(state, UnaryOperator.square, policy);
 	}
 
 	/**
@@ -314,15 +815,14 @@ public class SimpleCalculatorBl {
 	 * @return The state after the operation
 	 */
 	public static SimpleCalculatorRecord root(SimpleCalculatorRecord state) {
-		noOpOnError(state);
+		return root(state, PrecisionPolicy.DEFAULT);
+	}
 
-		Expression newExpression = appyUnaryOperator(state, UnaryOperator.root);
-		Result newExpressionResult = resultOf(newExpression);
-		if (newExpressionResult.error()) {
-			return SimpleCalculatorRecord.of(newExpression, newExpressionResult.type());
-		} else {
-			return SimpleCalculatorRecord.of(newExpression);
-		}
+	/**
+	 * Same as {@link #root(SimpleCalculatorRecord)}, computing with the given precision
+	 */
+	public static SimpleCalculatorRecord root(SimpleCalculatorRecord state, PrecisionPolicy policy) {
+		return unaryOperation(state, UnaryOperator.root, policy);
 	}
 
 	/**
@@ -332,24 +832,43 @@ public class SimpleCalculatorBl {
 	 * @return The state after the operation
 	 */
 	public static SimpleCalculatorRecord oneDivX(SimpleCalculatorRecord state) {
+		return oneDivX(state, PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #oneDivX(SimpleCalculatorRecord)}, computing with the given precision
+	 */
+	public static SimpleCalculatorRecord oneDivX(SimpleCalculatorRecord state, PrecisionPolicy policy) {
+		return unaryOperation(state, UnaryOperator.oneDivX, policy);
+	}
+
+	private static SimpleCalculatorRecord unaryOperation(SimpleCalculatorRecord state, UnaryOperator operator, PrecisionPolicy policy) {
 		noOpOnError(state);
 
-		Expression newExpression = appyUnaryOperator(state, UnaryOperator.oneDivX);
-		Result newExpressionResult = resultOf(newExpression);
+		UnaryOperationEvent event = new UnaryOperationEvent();
+		event.begin();
+		Expression newExpression = appyUnaryOperator(state, operator, policy);
+		Result newExpressionResult = resultOf(newExpression, policy);
+		SimpleCalculatorRecord after;
 		if (newExpressionResult.error()) {
-			return SimpleCalculatorRecord.of(newExpression, newExpressionResult.type());
+			after = SimpleCalculatorRecord.of(newExpression, newExpressionResult.type());
 		} else {
-			return SimpleCalculatorRecord.of(newExpression);
+			after = SimpleCalculatorRecord.of(newExpression);
+		}
+		if (event.shouldCommit()) {
+			event.commit(operator, operandOf(state, policy), newExpression, after.lastResolve());
 		}
+		return after;
 	}
 
-	private static Expression appyUnaryOperator(SimpleCalculatorRecord state, UnaryOperator operator) {
+	private static Expression appyUnaryOperator(SimpleCalculatorRecord state, UnaryOperator operator, PrecisionPolicy policy) {
 		String input = state.input();
+		Expression expression = state.expression();
 		if (!input.isBlank()) {
-			return UnaryExpression.of(operator, input);
+			UnaryExpression unary = UnaryExpression.of(operator, input);
+			return expression instanceof BinaryExpression binary ? binary.withRight(unary) : unary;
 		}
 
-		Expression expression = state.expression();
 		if (expression instanceof UnaryExpression unary) {
 			return UnaryExpression.of(operator, unary);
 		}
@@ -358,7 +877,7 @@ public class SimpleCalculatorBl {
 			if (binary.right() != null) {
 				return binary.withRight(UnaryExpression.of(operator, binary.right()));
 			} else {
-				return binary.withRight(UnaryExpression.of(operator, resultOf(binary.left()).value()));
+				return binary.withRight(UnaryExpression.of(operator, resultOf(binary.left(), policy).value()));
 			}
 		}
 
@@ -370,25 +889,28 @@ public class SimpleCalculatorBl {
 		}
 	}
 
-	private static Equation resolvePlusExpression(BigDecimal left, BigDecimal right) {
+	private static Equation resolvePlusExpression(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
 		BigDecimal result = left.add(right);
 		Expression expression = BinaryExpression.of(left, BiOperator.plus, right);
-		return Equation.of(expression, Result.of(result));
+		return Equation.of(expression, resultInRange(result, policy));
 	}
 
-	private static Equation resolveMinusExpression(BigDecimal left, BigDecimal right) {
+	private static Equation resolveMinusExpression(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
 		BigDecimal result = left.subtract(right);
 		Expression expression = BinaryExpression.of(left, BiOperator.minus, right);
-		return Equation.of(expression, Result.of(result));
+		return Equation.of(expression, resultInRange(result, policy));
 	}
 
-	private static Equation resolveMultiplyExpression(BigDecimal left, BigDecimal right) {
-		BigDecimal result = left.multiply(right);
+	private static Equation resolveMultiplyExpression(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
 		Expression expression = BinaryExpression.of(left, BiOperator.multiply, right);
-		return Equation.of(expression, Result.of(result));
+		ResultType check = checkMultiply(left, right, policy);
+		if (check.error()) {
+			return Equation.of(expression, Result.of(check));
+		}
+		return Equation.of(expression, resultInRange(productValue(left, right, policy), policy));
 	}
 
-	private static Equation resolveDivideExpression(BigDecimal left, BigDecimal right) {
+	private static Equation resolveDivideExpression(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
 		Expression expression = BinaryExpression.of(left, BiOperator.divide, right);
 		if (right.equals(ZERO)) {
 			if (left.equals(ZERO)) {
@@ -397,17 +919,17 @@ public class SimpleCalculatorBl {
 				return Equation.of(expression, Result.of(ResultType.DIVIDE_BY_ZERO));
 			}
 		} else {
-			BigDecimal result = left.divide(right, 16, RoundingMode.HALF_UP).stripTrailingZeros();
-			return Equation.of(expression, Result.of(result));
+			BigDecimal result = left.divide(right, policy.digits(), RoundingMode.HALF_UP).stripTrailingZeros();
+			return Equation.of(expression, resultInRange(result, policy));
 		}
 	}
 
-	private static Result resultOf(Expression expression) {
+	private static Result resultOf(Expression expression, PrecisionPolicy policy) {
 		return switch (expression) {
 		case IdleExpression idle -> resultOfIdleExpression();
 		case NumberExpression ne -> resultOfNumberExpression(ne);
-		case UnaryExpression ue -> resultOfUnaryExpression(ue);
-		case BinaryExpression be -> resultOfBinaryExpression(be);
+		case UnaryExpression ue -> resultOfUnaryExpression(ue, policy);
+		case BinaryExpression be -> resultOfBinaryExpression(be, policy);
 		};
 	}
 
@@ -419,9 +941,9 @@ public class SimpleCalculatorBl {
 		return Result.of(number.value());
 	}
 
-	private static Result resultOfBinaryExpression(BinaryExpression binary) {
-		Result leftResult = resultOf(binary.left());
-		Result rightResult = resultOf(binary.right());
+	private static Result resultOfBinaryExpression(BinaryExpression binary, PrecisionPolicy policy) {
+		Result leftResult = resultOf(binary.left(), policy);
+		Result rightResult = resultOf(binary.right(), policy);
 		if (leftResult.error())
 			return leftResult;
 		if (rightResult.error())
@@ -431,84 +953,284 @@ public class SimpleCalculatorBl {
 		BigDecimal right = rightResult.value();
 
 		return switch (binary.operator()) {
-		case plus -> resultPlusExpression(left, right);
-		case minus -> resultMinusExpression(left, right);
-		case multiply -> resultMultiplyExpression(left, right);
-		case divide -> resultDivideExpression(left, right);
+		case plus -> resultPlusExpression(left, right, policy);
+		case minus -> resultMinusExpression(left, right, policy);
+		case multiply -> resultMultiplyExpression(left, right, policy);
+		case divide -> resultDivideExpression(left, right, policy);
 		};
 	}
 
-	private static Result resultPlusExpression(BigDecimal left, BigDecimal right) {
-		return Result.of(left.add(right));
+	private static Result resultPlusExpression(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
+		return resultInRange(plusValue(left, right), policy);
 	}
 
-	private static Result resultMinusExpression(BigDecimal left, BigDecimal right) {
-		return Result.of(left.subtract(right));
+	private static Result resultMinusExpression(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
+		return resultInRange(minusValue(left, right), policy);
 	}
 
-	private static Result resultMultiplyExpression(BigDecimal left, BigDecimal right) {
-		return Result.of(left.multiply(right).stripTrailingZeros());
+	private static Result resultMultiplyExpression(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
+		ResultType check = checkMultiply(left, right, policy);
+		if (check.error()) {
+			return Result.of(check);
+		}
+		return resultInRange(multiplyValue(left, right, policy), policy);
 	}
 
-	private static Result resultDivideExpression(BigDecimal left, BigDecimal right) {
-		if (right.equals(ZERO)) {
-			if (left.equals(ZERO)) {
-				return Result.of(ResultType.UNDEFINED);
-			} else {
-				return Result.of(ResultType.DIVIDE_BY_ZERO);
-			}
+	private static Result resultDivideExpression(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
+		ResultType check = checkDivide(left, right);
+		if (check.error()) {
+			return Result.of(check);
 		} else {
-			BigDecimal result = normalize(left.divide(right, 16, RoundingMode.HALF_UP));
-			return Result.of(result);
+			return resultInRange(divideValue(left, right, policy), policy);
 		}
 	}
 
-	private static Result resultOfUnaryExpression(UnaryExpression unary) {
-		Result nestedResult = switch (unary.nested()) {
+	/**
+	 * Evaluates a chain of unary expressions without recursion. Chains of at
+	 * least two operators cache their result, so pressing another unary
+	 * operator only applies that one. Otherwise the operators are pushed down
+	 * to the first expression with a cached result or the innermost operand
+	 * and then applied inside out.
+	 */
+	private static Result resultOfUnaryExpression(UnaryExpression unary, PrecisionPolicy policy) {
+		Result result = cheapResultOf(unary, policy);
+		if (result != null) {
+			return result;
+		}
+
+		// Only a chain has no cheap result
+		UnaryExpression nested = (UnaryExpression) unary.nested();
+		result = cheapResultOf(nested, policy);
+		if (result == null) {
+			Deque<UnaryOperator> operators = new ArrayDeque<>();
+			do {
+				operators.push(nested.operator());
+				nested = (UnaryExpression) nested.nested();
+				result = cheapResultOf(nested, policy);
+			} while (result == null);
+			while (!operators.isEmpty()) {
+				result = applyUnaryOperator(operators.pop(), result, policy);
+			}
+		}
+		result = applyUnaryOperator(unary.operator(), result, policy);
+		UNARY_RESULTS.put(unary, policy, result);
+		return result;
+	}
+
+	/**
+	 * @return The result of a single operator on its operand, the cached result
+	 *         of a chain, or null
+	 */
+	private static Result cheapResultOf(UnaryExpression unary, PrecisionPolicy policy) {
+		if (unary.nested() instanceof UnaryExpression) {
+			return UNARY_RESULTS.get(unary, policy);
+		}
+		return applyUnaryOperator(unary.operator(), resultOfUnaryOperand(unary.nested()), policy);
+	}
+
+	private static Result resultOfUnaryOperand(Expression operand) {
+		return switch (operand) {
 		case IdleExpression idle -> Result.of(ZERO);
 		case NumberExpression ne -> Result.of(ne.value());
-		case UnaryExpression ue -> resultOfUnaryExpression(ue);
+		case UnaryExpression ue -> throw new IllegalArgumentException("Not an operand: " + ue.operator());
 		case BinaryExpression be -> throw new IllegalStateException("No binary expression in unary expression allowed");
 		};
+	}
 
+	private static Result applyUnaryOperator(UnaryOperator operator, Result nestedResult, PrecisionPolicy policy) {
 		if (nestedResult.error()) {
 			return nestedResult;
 		}
 
-		return switch (unary.operator()) {
+		return switch (operator) {
 		case negate -> resultNegateExpression(nestedResult.value());
-		case oneDivX -> resultOneDivX(nestedResult.value());
+		case oneDivX -> resultOneDivX(nestedResult.value(), policy);
 		case percent -> throw new IllegalStateException("Not implemented yet!");
-		case root -> resultRoot(nestedResult.value());
-		case square -> resultSquare(nestedResult.value());
+		case root -> resultRoot(nestedResult.value(), policy);
+		case square -> resultSquare(nestedResult.value(), policy);
 		default -> null;
 		};
 	}
 
 	private static Result resultNegateExpression(BigDecimal value) {
-		return Result.of(value.negate());
+		return Result.of(negateValue(value));
 	}
 
-	private static Result resultSquare(BigDecimal value) {
-		return Result.of(value.multiply(value, MathContext.DECIMAL64));
+	private static Result resultSquare(BigDecimal value, PrecisionPolicy policy) {
+		ResultType check = checkMultiply(value, value, policy);
+		if (check.error()) {
+			return Result.of(check);
+		}
+		return resultInRange(squareValue(value, policy), policy);
 	}
 
-	private static Result resultRoot(BigDecimal value) {
-		if (value.compareTo(ZERO) == -1) {
-			return Result.of(ResultType.INVALID_INPUT);
+	private static Result resultRoot(BigDecimal value, PrecisionPolicy policy) {
+		ResultType check = checkRoot(value);
+		if (check.error()) {
+			return Result.of(check);
 		} else {
-			return Result.of(value.sqrt(MathContext.DECIMAL64));
+			return Result.of(rootValue(value, policy));
 		}
 	}
 
-	private static Result resultOneDivX(BigDecimal value) {
-		if (value.equals(ZERO)) {
-			return Result.of(ResultType.DIVIDE_BY_ZERO);
+	private static Result resultOneDivX(BigDecimal value, PrecisionPolicy policy) {
+		ResultType check = checkOneDivX(value);
+		if (check.error()) {
+			return Result.of(check);
 		} else {
-			return Result.of(BigDecimal.ONE.divide(value, MathContext.DECIMAL64));
+			return resultInRange(oneDivXValue(value, policy), policy);
 		}
 	}
 
+	private static Result resultInRange(BigDecimal value, PrecisionPolicy policy) {
+		ResultType check = checkMagnitude(value, policy);
+		return check.error() ? Result.of(check) : Result.of(value);
+	}
+
+	/* ------------------------------------------------------------------ */
+	/* Value functions, shared with the FormulaCompiler. The value of the */
+	/* division, root and 1/x functions is only defined if the matching   */
+	/* check* function returns OK.                                        */
+	/* ------------------------------------------------------------------ */
+	static BigDecimal plusValue(BigDecimal left, BigDecimal right) {
+		return left.add(right);
+	}
+
+	static BigDecimal minusValue(BigDecimal left, BigDecimal right) {
+		return left.subtract(right);
+	}
+
+	static BigDecimal multiplyValue(BigDecimal left, BigDecimal right) {
+		return multiplyValue(left, right, PrecisionPolicy.DEFAULT);
+	}
+
+	static BigDecimal multiplyValue(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
+		return productValue(left, right, policy).stripTrailingZeros();
+	}
+
+	/**
+	 * The exact product if it has at most as many digits as the precision
+	 * ceiling, otherwise the product rounded to the ceiling. The product is
+	 * rounded once, operands beyond the ceiling are multiplied as they are. They
+	 * can only be typed or come from an exact sum, products never exceed the
+	 * ceiling.
+	 */
+	private static BigDecimal productValue(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
+		if ((long) left.precision() + right.precision() <= policy.maxDigits()) {
+			return left.multiply(right);
+		}
+		return left.multiply(right, policy.ceilingContext());
+	}
+
+	private static BigDecimal withinCeiling(BigDecimal value, PrecisionPolicy policy) {
+		return value.precision() > policy.maxDigits() ? value.round(policy.ceilingContext()) : value;
+	}
+
+	/**
+	 * Refuses a product that is certainly beyond the magnitude ceiling before
+	 * computing it. The exponents of the operands only bound the exponent of
+	 * the product to two values, a product at the edge of the range is left to
+	 * {@link #checkMagnitude(BigDecimal, PrecisionPolicy)}.
+	 */
+	static ResultType checkMultiply(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
+		if (left.signum() == 0 || right.signum() == 0) {
+			return ResultType.OK;
+		}
+		long exponent = exponent(left) + exponent(right);
+		return exponent - 1 > policy.maxExponent() || exponent <= -policy.maxExponent() ? ResultType.OVERFLOW : ResultType.OK;
+	}
+
+	/**
+	 * @return OVERFLOW if the value is not 0 and not between
+	 *         10^-{@link PrecisionPolicy#maxExponent()} and
+	 *         10^{@link PrecisionPolicy#maxExponent()}
+	 */
+	static ResultType checkMagnitude(BigDecimal value, PrecisionPolicy policy) {
+		if (value.signum() == 0) {
+			return ResultType.OK;
+		}
+		long exponent = exponent(value);
+		return exponent > policy.maxExponent() || exponent <= -policy.maxExponent() ? ResultType.OVERFLOW : ResultType.OK;
+	}
+
+	/**
+	 * @return The exponent e with 10^(e-1) <= |value| < 10^e
+	 */
+	private static long exponent(BigDecimal value) {
+		return (long) value.precision() - value.scale();
+	}
+
+	static ResultType checkDivide(BigDecimal left, BigDecimal right) {
+		if (right.equals(ZERO)) {
+			return left.equals(ZERO) ? ResultType.UNDEFINED : ResultType.DIVIDE_BY_ZERO;
+		} else {
+			return ResultType.OK;
+		}
+	}
+
+	static BigDecimal divideValue(BigDecimal left, BigDecimal right) {
+		return divideValue(left, right, PrecisionPolicy.DEFAULT);
+	}
+
+	static BigDecimal divideValue(BigDecimal left, BigDecimal right, PrecisionPolicy policy) {
+		BigDecimal fast = FastPath.divide(left, right, policy.digits());
+		if (fast != null) {
+			return fast;
+		}
+		BigDecimal quotient = left.divide(right, policy.digits(), RoundingMode.HALF_UP);
+		// Beyond a long the quotient holds a BigInteger. An odd one does not end in
+		// zero, so the scale is already minimal and normalizing would only copy it.
+		if (policy.digits() > FastPath.MAX_PRECISION && quotient.unscaledValue().testBit(0)) {
+			return quotient;
+		}
+		return normalize(quotient);
+	}
+
+	static BigDecimal negateValue(BigDecimal value) {
+		return value.negate();
+	}
+
+	static BigDecimal squareValue(BigDecimal value) {
+		return squareValue(value, PrecisionPolicy.DEFAULT);
+	}
+
+	static BigDecimal squareValue(BigDecimal value, PrecisionPolicy policy) {
+		// The square has at most twice the digits of the value, it is only rounded
+		// if there are more digits than the policy keeps
+		if (2 * value.precision() <= policy.digits()) {
+			return value.multiply(value);
+		}
+		return value.multiply(value, policy.mathContext());
+	}
+
+	static ResultType checkRoot(BigDecimal value) {
+		return value.compareTo(ZERO) == -1 ? ResultType.INVALID_INPUT : ResultType.OK;
+	}
+
+	static BigDecimal rootValue(BigDecimal value) {
+		return rootValue(value, PrecisionPolicy.DEFAULT);
+	}
+
+	static BigDecimal rootValue(BigDecimal value, PrecisionPolicy policy) {
+		BigDecimal fast = FastPath.root(value, policy.digits());
+		if (fast == null) {
+			fast = FastPath.newtonRoot(value, policy.mathContext());
+		}
+		return fast != null ? fast : value.sqrt(policy.mathContext());
+	}
+
+	static ResultType checkOneDivX(BigDecimal value) {
+		return value.equals(ZERO) ? ResultType.DIVIDE_BY_ZERO : ResultType.OK;
+	}
+
+	static BigDecimal oneDivXValue(BigDecimal value) {
+		return oneDivXValue(value, PrecisionPolicy.DEFAULT);
+	}
+
+	static BigDecimal oneDivXValue(BigDecimal value, PrecisionPolicy policy) {
+		return BigDecimal.ONE.divide(value, policy.mathContext());
+	}
+
 	private static BigDecimal normalize(BigDecimal bd) {
 		return new BigDecimal(bd.stripTrailingZeros().toPlainString());
 	}
@@ -517,7 +1239,18 @@ public class SimpleCalculatorBl {
 		return state.with("");
 	}
 
+	public static SimpleCalculatorRecord c(SimpleCalculatorRecord state) {
+		return SimpleCalculatorRecord.of();
+	}
+
 	public static BigDecimal getCurrentValue(SimpleCalculatorRecord state) {
+		return getCurrentValue(state, PrecisionPolicy.DEFAULT);
+	}
+
+	/**
+	 * Same as {@link #getCurrentValue(SimpleCalculatorRecord)}, computing with the given precision
+	 */
+	public static BigDecimal getCurrentValue(SimpleCalculatorRecord state, PrecisionPolicy policy) {
 		noOpOnError(state);
 		
 		String input = state.input();
@@ -527,10 +1260,10 @@ public class SimpleCalculatorBl {
 		
 		Expression expression = state.expression();
 		if(expression instanceof UnaryExpression ue) {
-				return validResultOf(ue);
+				return validResultOf(ue, policy);
 		}
 		if(expression instanceof BinaryExpression be) {
-			return validResultOf(be.activeSide());
+			return validResultOf(be.activeSide(), policy);
 		}
 
 		Equation equation = state.equation();
@@ -544,8 +1277,8 @@ public class SimpleCalculatorBl {
 		throw new IllegalStateException("error: "+state);
 	}
 	
-	private static BigDecimal validResultOf(Expression expression) {
-		Result result = resultOf(expression);
+	private static BigDecimal validResultOf(Expression expression, PrecisionPolicy policy) {
+		Result result = resultOf(expression, policy);
 		if(result.isOK()) {
 			return result.value();
 		}else {
@@ -553,6 +1286,39 @@ public class SimpleCalculatorBl {
 		}
 	}
 	
+	/* ----------------------------- */
+	/* Flight Recorder event details */
+	/* ----------------------------- */
+	private static Enum<?> operatorOf(Expression expression) {
+		return switch (expression) {
+		case BinaryExpression binary -> binary.operator();
+		case UnaryExpression unary -> unary.operator();
+		default -> null;
+		};
+	}
+
+	/**
+	 * @return The value an operation on the given state applies to, like
+	 *         {@link #getCurrentValue(SimpleCalculatorRecord, PrecisionPolicy)}
+	 *         but null instead of an exception if there is none
+	 */
+	private static BigDecimal operandOf(SimpleCalculatorRecord state, PrecisionPolicy policy) {
+		if (!state.input().isBlank()) {
+			return new BigDecimal(state.input());
+		}
+		Expression active = switch (state.expression()) {
+		case BinaryExpression binary -> binary.activeSide();
+		case UnaryExpression unary -> unary;
+		default -> null;
+		};
+		if (active != null) {
+			Result result = resultOf(active, policy);
+			return result.error() ? null : result.value();
+		}
+		Equation equation = state.equation();
+		return equation == null || equation.error().error() ? null : equation.value();
+	}
+
 	private static void noOpOnError(SimpleCalculatorRecord state) {
 		if (state.lastResolve().error()) {
 			throw new IllegalStateException("Can't operate on an error");
@@ -0,0 +1,55 @@
+package dev.dietermai.wincalc.core.simple;
+
+import java.lang.ref.WeakReference;
+
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+
+/**
+ * The results of recently evaluated unary expressions, looked up by identity.
+ * Every unary key press wraps the previous expression, so with the result of
+ * the previous expression cached the next one is a single operation instead of
+ * a walk through the whole chain.
+ * <p>
+ * The cache is direct mapped: an expression can only be in the slot of its
+ * identity hash code and replaces whatever was there. Entries only hold weak
+ * references to their expression, so the cache never keeps a discarded chain
+ * alive. Slots are read and written without locks; the entries are immutable,
+ * so a racing read sees a complete entry or misses.
+ */
+final class UnaryResultCache {
+	private static final int SLOTS = 256;
+
+	private final Entry[] entries = new Entry[SLOTS];
+
+	/**
+	 * @return The cached result of the given expression computed with the given
+	 *         policy, or null
+	 */
+	Result get(UnaryExpression unary, PrecisionPolicy policy) {
+		Entry entry = entries[slot(unary)];
+		if (entry != null && entry.get() == unary && entry.policy.equals(policy)) {
+			return entry.result;
+		}
+		return null;
+	}
+
+	void put(UnaryExpression unary, PrecisionPolicy policy, Result result) {
+		entries[slot(unary)] = new Entry(unary, policy, result);
+	}
+
+	private static int slot(UnaryExpression unary) {
+		return System.identityHashCode(unary) & (SLOTS - 1);
+	}
+
+	private static final class Entry extends WeakReference<UnaryExpression> {
+		private final PrecisionPolicy policy;
+		private final Result result;
+
+		Entry(UnaryExpression unary, PrecisionPolicy policy, Result result) {
+			super(unary);
+			this.policy = policy;
+			this.result = result;
+		}
+	}
+}
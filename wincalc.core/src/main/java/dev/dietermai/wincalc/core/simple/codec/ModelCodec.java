@@ -0,0 +1,126 @@
+package dev.dietermai.wincalc.core.simple.codec;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Expression;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * Versioned binary encoding of the model records. The format:
+ * <ul>
+ * <li>Numbers are zig-zag varints, so small values of both signs take one
+ * byte.</li>
+ * <li>A decimal is a tag byte, the unscaled value as varint, or as length and
+ * two's-complement bytes if it does not fit a long, and the scale as
+ * varint.</li>
+ * <li>Enums are one byte, the ordinal plus one, so 0 stands for null.</li>
+ * <li>An expression is a tag byte followed by its fields. An expression
+ * instance that was already written in the same stream is written as a
+ * back-reference to it instead.</li>
+ * </ul>
+ * The static methods encode a single value with a leading {@link #VERSION}
+ * byte. Use a {@link ModelWriter} and {@link ModelReader} directly to write
+ * several values into one stream, where they share back-references, and to
+ * reuse the instances.
+ */
+public final class ModelCodec {
+	public static final byte VERSION = 1;
+
+	/* Tags, a reader completes the expressions with a tag above REFERENCE */
+	static final byte NULL = 0;
+	static final byte IDLE = 1;
+	static final byte REFERENCE = 2;
+	static final byte NUMBER = 3;
+	static final byte UNARY = 4;
+	static final byte BINARY = 5;
+
+	static final byte PRESENT = 1;
+
+	static final byte COMPACT = 1;
+	static final byte BIG = 2;
+	/** Decimals with less digits have an unscaled value that fits a long */
+	static final int COMPACT_DIGITS = 19;
+
+	private static final int INITIAL_SIZE = 64;
+
+	private ModelCodec() {
+	}
+
+	/* -------- */
+	/* Encoding */
+	/* -------- */
+	public static void encode(Expression expression, ByteBuffer buffer) {
+		writer(buffer).writeExpression(expression);
+	}
+
+	public static void encode(Equation equation, ByteBuffer buffer) {
+		writer(buffer).writeEquation(equation);
+	}
+
+	public static void encode(Result result, ByteBuffer buffer) {
+		writer(buffer).writeResult(result);
+	}
+
+	public static void encode(SimpleCalculatorRecord state, ByteBuffer buffer) {
+		writer(buffer).writeRecord(state);
+	}
+
+	/**
+	 * Runs the given writes into a buffer that grows until they fit.
+	 *
+	 * @param writes Writes the stream, may be run more than once
+	 * @return The written bytes, without a version byte
+	 */
+	public static byte[] toByteArray(Consumer<ModelWriter> writes) {
+		ModelWriter writer = new ModelWriter(ByteBuffer.allocate(INITIAL_SIZE));
+		while (true) {
+			try {
+				writes.accept(writer);
+				ByteBuffer buffer = writer.buffer();
+				return Arrays.copyOf(buffer.array(), buffer.position());
+			} catch (BufferOverflowException e) {
+				writer.reset(ByteBuffer.allocate(writer.buffer().capacity() * 2));
+			}
+		}
+	}
+
+	/* -------- */
+	/* Decoding */
+	/* -------- */
+	public static Expression decodeExpression(ByteBuffer buffer) {
+		return reader(buffer).readExpression();
+	}
+
+	public static Equation decodeEquation(ByteBuffer buffer) {
+		return reader(buffer).readEquation();
+	}
+
+	public static Result decodeResult(ByteBuffer buffer) {
+		return reader(buffer).readResult();
+	}
+
+	public static SimpleCalculatorRecord decodeRecord(ByteBuffer buffer) {
+		return reader(buffer).readRecord();
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private static ModelWriter writer(ByteBuffer buffer) {
+		buffer.put(VERSION);
+		return new ModelWriter(buffer);
+	}
+
+	private static ModelReader reader(ByteBuffer buffer) {
+		byte version = buffer.get();
+		if (version != VERSION) {
+			throw new IllegalArgumentException("Unsupported version: " + version);
+		}
+		return new ModelReader(buffer);
+	}
+}
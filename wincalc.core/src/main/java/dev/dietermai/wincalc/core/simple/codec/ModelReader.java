@@ -0,0 +1,214 @@
+package dev.dietermai.wincalc.core.simple.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import dev.dietermai.wincalc.core.simple.model.BiOperator;
+import dev.dietermai.wincalc.core.simple.model.BinaryExpression;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Expression;
+import dev.dietermai.wincalc.core.simple.model.IdleExpression;
+import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+import dev.dietermai.wincalc.core.simple.model.UnaryOperator;
+
+/**
+ * Reads model records that a {@link ModelWriter} wrote. Back-references
+ * resolve to the same instance, so shared subtrees are shared again after
+ * reading. Call {@link #reset(ByteBuffer)} to start a new stream.
+ * <p>
+ * All read methods throw an {@link IllegalArgumentException} if the bytes are
+ * not valid, or a {@link java.nio.BufferUnderflowException} if they end too
+ * early.
+ * <p>
+ * Not thread safe.
+ */
+public final class ModelReader {
+	private static final ResultType[] RESULT_TYPES = ResultType.values();
+	private static final UnaryOperator[] UNARY_OPERATORS = UnaryOperator.values();
+	private static final BiOperator[] BI_OPERATORS = BiOperator.values();
+
+	private final List<Expression> read = new ArrayList<>();
+	private ByteBuffer buffer;
+
+	public ModelReader(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Starts a new stream, back-references to values read before are invalid.
+	 */
+	public ModelReader reset(ByteBuffer newBuffer) {
+		this.buffer = newBuffer;
+		read.clear();
+		return this;
+	}
+
+	public ByteBuffer buffer() {
+		return buffer;
+	}
+
+	/* ----------- */
+	/* Model types */
+	/* ----------- */
+	public Expression readExpression() {
+		int tag = buffer.get();
+		Expression expression = switch (tag) {
+		case ModelCodec.NULL -> null;
+		case ModelCodec.IDLE -> IdleExpression.of();
+		case ModelCodec.REFERENCE -> {
+			long reference = readVarLong();
+			if (reference < 0 || reference >= read.size()) {
+				throw new IllegalArgumentException("Invalid back-reference: " + reference);
+			}
+			yield read.get((int) reference);
+		}
+		case ModelCodec.NUMBER -> NumberExpression.of(readDecimal());
+		case ModelCodec.UNARY -> readUnaryChain();
+		case ModelCodec.BINARY -> {
+			Expression left = readExpression();
+			BiOperator operator = readEnum(BI_OPERATORS);
+			yield new BinaryExpression(left, operator, readExpression());
+		}
+		default -> throw new IllegalArgumentException("Unknown expression tag: " + tag);
+		};
+		if (tag >= ModelCodec.NUMBER) {
+			read.add(expression);
+		}
+		return expression;
+	}
+
+	/**
+	 * Reads a chain of unary expressions and their operand. The nested
+	 * expressions of the chain are completed innermost first, the returned
+	 * outermost one is completed by {@link #readExpression()}.
+	 */
+	private UnaryExpression readUnaryChain() {
+		Deque<UnaryOperator> operators = new ArrayDeque<>();
+		operators.push(readEnum(UNARY_OPERATORS));
+		// Unary chains grow with every key press, so read them without recursion
+		while (buffer.hasRemaining() && buffer.get(buffer.position()) == ModelCodec.UNARY) {
+			buffer.get();
+			operators.push(readEnum(UNARY_OPERATORS));
+		}
+		Expression nested = readExpression();
+		while (operators.size() > 1) {
+			nested = UnaryExpression.of(operators.pop(), nested);
+			read.add(nested);
+		}
+		return UnaryExpression.of(operators.pop(), nested);
+	}
+
+	/**
+	 * @return The equation, or null
+	 */
+	public Equation readEquation() {
+		int tag = buffer.get();
+		if (tag == ModelCodec.NULL) {
+			return null;
+		} else if (tag != ModelCodec.PRESENT) {
+			throw new IllegalArgumentException("Unknown equation tag: " + tag);
+		}
+		ResultType type = readEnum(RESULT_TYPES);
+		BigDecimal value = readDecimal();
+		return new Equation(readExpression(), value, type);
+	}
+
+	public Result readResult() {
+		ResultType type = readEnum(RESULT_TYPES);
+		BigDecimal value = readDecimal();
+		return type == ResultType.OK && value != null ? Result.of(value) : new Result(value, type);
+	}
+
+	public SimpleCalculatorRecord readRecord() {
+		String input = readString();
+		Expression expression = readExpression();
+		Equation equation = readEquation();
+		return SimpleCalculatorRecord.of(input, expression, equation, readEnum(RESULT_TYPES));
+	}
+
+	/* -------------- */
+	/* Building parts */
+	/* -------------- */
+	/**
+	 * @return The decimal, or null
+	 */
+	public BigDecimal readDecimal() {
+		int tag = buffer.get();
+		return switch (tag) {
+		case ModelCodec.NULL -> null;
+		case ModelCodec.COMPACT -> {
+			long unscaled = readVarLong();
+			yield BigDecimal.valueOf(unscaled, readScale());
+		}
+		case ModelCodec.BIG -> {
+			byte[] bytes = new byte[readLength()];
+			buffer.get(bytes);
+			yield new BigDecimal(new BigInteger(bytes), readScale());
+		}
+		default -> throw new IllegalArgumentException("Unknown number tag: " + tag);
+		};
+	}
+
+	/**
+	 * @return The enum constant, or null
+	 */
+	public <E extends Enum<E>> E readEnum(E[] values) {
+		int index = (buffer.get() & 0xFF) - 1;
+		if (index >= values.length) {
+			throw new IllegalArgumentException("Unknown ordinal: " + index);
+		}
+		return index < 0 ? null : values[index];
+	}
+
+	public String readString() {
+		char[] chars = new char[readLength()];
+		for (int i = 0; i < chars.length; i++) {
+			long c = readVarLong();
+			if (c < 0 || c > Character.MAX_VALUE) {
+				throw new IllegalArgumentException("Invalid char: " + c);
+			}
+			chars[i] = (char) c;
+		}
+		return new String(chars);
+	}
+
+	public long readVarLong() {
+		long zigZag = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			byte b = buffer.get();
+			zigZag |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return (zigZag >>> 1) ^ -(zigZag & 1);
+			}
+		}
+		throw new IllegalArgumentException("Varint too long");
+	}
+
+	/**
+	 * @return A length that is not longer than the rest of the buffer
+	 */
+	public int readLength() {
+		long length = readVarLong();
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IllegalArgumentException("Invalid length: " + length);
+		}
+		return (int) length;
+	}
+
+	private int readScale() {
+		long scale = readVarLong();
+		if (scale < Integer.MIN_VALUE || scale > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid scale: " + scale);
+		}
+		return (int) scale;
+	}
+}
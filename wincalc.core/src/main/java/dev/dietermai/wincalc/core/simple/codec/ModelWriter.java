@@ -0,0 +1,209 @@
+package dev.dietermai.wincalc.core.simple.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import dev.dietermai.wincalc.core.simple.model.BinaryExpression;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Expression;
+import dev.dietermai.wincalc.core.simple.model.IdleExpression;
+import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+
+/**
+ * Writes model records into a {@link ByteBuffer} in the format described in
+ * {@link ModelCodec}. An expression instance that was already written by this
+ * writer is written as a back-reference, so subtrees that are shared between
+ * the values of one stream are only stored once. Call {@link #reset(ByteBuffer)}
+ * to start a new stream.
+ * <p>
+ * If the buffer is too small, a {@link BufferOverflowException} is thrown and
+ * the content of the buffer is undefined.
+ * <p>
+ * Not thread safe.
+ */
+public final class ModelWriter {
+	private final Map<Expression, Integer> written = new IdentityHashMap<>();
+	private ByteBuffer buffer;
+
+	public ModelWriter(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Starts a new stream, the following values do not refer to values written
+	 * before.
+	 */
+	public ModelWriter reset(ByteBuffer newBuffer) {
+		this.buffer = newBuffer;
+		written.clear();
+		return this;
+	}
+
+	public ByteBuffer buffer() {
+		return buffer;
+	}
+
+	/* ----------- */
+	/* Model types */
+	/* ----------- */
+	public ModelWriter writeExpression(Expression expression) {
+		if (expression == null) {
+			buffer.put(ModelCodec.NULL);
+			return this;
+		}
+		if (expression instanceof IdleExpression) {
+			buffer.put(ModelCodec.IDLE);
+			return this;
+		}
+		Integer reference = written.get(expression);
+		if (reference != null) {
+			buffer.put(ModelCodec.REFERENCE);
+			writeVarLong(reference);
+			return this;
+		}
+		switch (expression) {
+		case NumberExpression number -> {
+			buffer.put(ModelCodec.NUMBER);
+			writeDecimal(number.value());
+		}
+		case UnaryExpression unary -> {
+			return writeUnaryChain(unary);
+		}
+		case BinaryExpression binary -> {
+			buffer.put(ModelCodec.BINARY);
+			writeExpression(binary.left());
+			writeEnum(binary.operator());
+			writeExpression(binary.right());
+		}
+		case IdleExpression idle -> throw new IllegalStateException("Handled above");
+		}
+		// Numbered after the children, in the order the reader completes them
+		written.put(expression, written.size());
+		return this;
+	}
+
+	/**
+	 * Writes the unary expressions of a chain that were not written yet, their
+	 * operand and then numbers them innermost first, like
+	 * {@link #writeExpression(Expression)} does for a single expression.
+	 */
+	private ModelWriter writeUnaryChain(UnaryExpression unary) {
+		Deque<UnaryExpression> chain = new ArrayDeque<>();
+		Expression operand = unary;
+		// Unary chains grow with every key press, so walk them without recursion
+		while (operand instanceof UnaryExpression nested && !written.containsKey(nested)) {
+			buffer.put(ModelCodec.UNARY);
+			writeEnum(nested.operator());
+			chain.push(nested);
+			operand = nested.nested();
+		}
+		writeExpression(operand);
+		while (!chain.isEmpty()) {
+			written.put(chain.pop(), written.size());
+		}
+		return this;
+	}
+
+	/**
+	 * Writes the equation, which may be null.
+	 */
+	public ModelWriter writeEquation(Equation equation) {
+		if (equation == null) {
+			buffer.put(ModelCodec.NULL);
+			return this;
+		}
+		buffer.put(ModelCodec.PRESENT);
+		writeEnum(equation.error());
+		writeDecimal(equation.value());
+		return writeExpression(equation.expression());
+	}
+
+	public ModelWriter writeResult(Result result) {
+		writeEnum(result.type());
+		return writeDecimal(result.value());
+	}
+
+	public ModelWriter writeRecord(SimpleCalculatorRecord state) {
+		writeString(state.input());
+		writeExpression(state.expression());
+		writeEquation(state.equation());
+		return writeEnum(state.lastResolve());
+	}
+
+	/* -------------- */
+	/* Building parts */
+	/* -------------- */
+	/**
+	 * Writes the decimal, which may be null, as the varint of the unscaled value
+	 * and the varint of the scale. Unscaled values that do not fit a long are
+	 * written as two's-complement bytes.
+	 */
+	public ModelWriter writeDecimal(BigDecimal value) {
+		if (value == null) {
+			buffer.put(ModelCodec.NULL);
+			return this;
+		}
+		if (value.precision() < ModelCodec.COMPACT_DIGITS) {
+			// Fits a long without creating a BigInteger
+			buffer.put(ModelCodec.COMPACT);
+			writeVarLong(value.scaleByPowerOfTen(value.scale()).longValue());
+		} else {
+			BigInteger unscaled = value.unscaledValue();
+			if (unscaled.bitLength() < Long.SIZE) {
+				buffer.put(ModelCodec.COMPACT);
+				writeVarLong(unscaled.longValue());
+			} else {
+				byte[] bytes = unscaled.toByteArray();
+				buffer.put(ModelCodec.BIG);
+				writeVarLong(bytes.length);
+				buffer.put(bytes);
+			}
+		}
+		return writeVarLong(value.scale());
+	}
+
+	/**
+	 * Writes the enum, which may be null, as one byte: the ordinal plus one.
+	 */
+	public ModelWriter writeEnum(Enum<?> value) {
+		buffer.put((byte) (value == null ? 0 : value.ordinal() + 1));
+		return this;
+	}
+
+	/**
+	 * Writes the length and every char as varint, without encoding the string
+	 * into a byte array first. Digits, the decimal point and the minus sign take
+	 * one byte each.
+	 */
+	public ModelWriter writeString(String value) {
+		int length = value.length();
+		writeVarLong(length);
+		for (int i = 0; i < length; i++) {
+			writeVarLong(value.charAt(i));
+		}
+		return this;
+	}
+
+	/**
+	 * Writes the value as zig-zag varint, small values of both signs take few
+	 * bytes.
+	 */
+	public ModelWriter writeVarLong(long value) {
+		long zigZag = (value << 1) ^ (value >> 63);
+		while ((zigZag & ~0x7FL) != 0) {
+			buffer.put((byte) ((zigZag & 0x7F) | 0x80));
+			zigZag >>>= 7;
+		}
+		buffer.put((byte) zigZag);
+		return this;
+	}
+}
@@ -0,0 +1,88 @@
+package dev.dietermai.wincalc.core.simple.history;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+import dev.dietermai.wincalc.core.simple.CalculatorSnapshot;
+import dev.dietermai.wincalc.core.simple.PersistentVector;
+import dev.dietermai.wincalc.core.simple.codec.ModelCodec;
+import dev.dietermai.wincalc.core.simple.codec.ModelReader;
+import dev.dietermai.wincalc.core.simple.codec.ModelWriter;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * Binary encoding of an {@link Equation} and of a whole
+ * {@link CalculatorSnapshot} in the format of {@link ModelCodec}, without the
+ * version byte: the files that store them have their own version. All values
+ * of a snapshot are one stream, so the expressions that the state and the
+ * history share are stored once.
+ */
+public final class EquationCodec {
+
+	private EquationCodec() {
+	}
+
+	/* -------- */
+	/* Encoding */
+	/* -------- */
+	public static byte[] encode(Equation equation) {
+		return ModelCodec.toByteArray(writer -> writer.writeEquation(equation));
+	}
+
+	/**
+	 * Encodes the calculator state followed by both histories, oldest first.
+	 */
+	public static byte[] encode(CalculatorSnapshot snapshot) {
+		return ModelCodec.toByteArray(writer -> write(writer, snapshot));
+	}
+
+	private static void write(ModelWriter writer, CalculatorSnapshot snapshot) {
+		writer.writeRecord(snapshot.state());
+		writer.writeVarLong(snapshot.equations().size());
+		for (Equation equation : snapshot.equations()) {
+			writer.writeEquation(equation);
+		}
+		writer.writeVarLong(snapshot.memory().size());
+		for (BigDecimal value : snapshot.memory()) {
+			writer.writeDecimal(value);
+		}
+	}
+
+	/* -------- */
+	/* Decoding */
+	/* -------- */
+	/**
+	 * @param buffer The buffer, positioned at the start of an encoded equation
+	 * @return The decoded equation
+	 * @throws IllegalArgumentException if the buffer does not contain a valid
+	 *                                  equation
+	 */
+	public static Equation decode(ByteBuffer buffer) {
+		Equation equation = new ModelReader(buffer).readEquation();
+		if (equation == null) {
+			throw new IllegalArgumentException("Not an equation");
+		}
+		return equation;
+	}
+
+	/**
+	 * @param buffer The buffer, positioned at the start of an encoded snapshot
+	 * @return The decoded snapshot
+	 * @throws IllegalArgumentException if the buffer does not contain a valid
+	 *                                  snapshot
+	 */
+	public static CalculatorSnapshot decodeSnapshot(ByteBuffer buffer) {
+		ModelReader reader = new ModelReader(buffer);
+		SimpleCalculatorRecord state = reader.readRecord();
+		PersistentVector<Equation> equations = PersistentVector.empty();
+		for (int i = reader.readLength(); i > 0; i--) {
+			equations = equations.append(reader.readEquation());
+		}
+		PersistentVector<BigDecimal> memory = PersistentVector.empty();
+		for (int i = reader.readLength(); i > 0; i--) {
+			memory = memory.append(reader.readDecimal());
+		}
+		return new CalculatorSnapshot(state, equations, memory);
+	}
+}
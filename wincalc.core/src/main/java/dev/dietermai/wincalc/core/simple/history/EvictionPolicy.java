@@ -0,0 +1,31 @@
+package dev.dietermai.wincalc.core.simple.history;
+
+/**
+ * Chooses the equation that is evicted when a {@link RingBufferEquationHistory}
+ * is full and a new equation is added.
+ */
+@FunctionalInterface
+public interface EvictionPolicy {
+
+	/** Evicts the oldest equation */
+	EvictionPolicy DROP_OLDEST = history -> history.size() - 1;
+
+	/**
+	 * Evicts the oldest equation that is not pinned, or the oldest equation if
+	 * all are pinned
+	 */
+	EvictionPolicy KEEP_PINNED = history -> {
+		for (int index = history.size() - 1; index >= 0; index--) {
+			if (!history.isPinned(index)) {
+				return index;
+			}
+		}
+		return history.size() - 1;
+	};
+
+	/**
+	 * @param history The full history
+	 * @return The index of the equation to evict, 0 is the newest
+	 */
+	int victim(RingBufferEquationHistory history);
+}
@@ -0,0 +1,210 @@
+package dev.dietermai.wincalc.core.simple.history;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import dev.dietermai.wincalc.core.simple.EquationHistory;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+
+/**
+ * Adds an index over the results to another {@link EquationHistory}. Results
+ * are ordered by {@link BigDecimal#compareTo(BigDecimal)}, so 1.0 and 1.00 are
+ * the same key, and equal results are ordered by the time they were added.
+ * Equations with an error result are kept in one bucket per
+ * {@link ResultType}. Lookups take O(log n + k) for k found equations.
+ * <p>
+ * The index is updated on add, delete and clear. Creating it indexes all
+ * equations that are already in the wrapped history. If the wrapped history
+ * evicts equations on its own, like a {@link RingBufferEquationHistory}, the
+ * index follows as long as the oldest equation is evicted, otherwise it is
+ * rebuilt.
+ * <p>
+ * Not thread safe.
+ */
+public final class IndexedEquationHistory implements EquationHistory {
+	private final EquationHistory history;
+
+	private final NavigableMap<BigDecimal, NavigableMap<Long, Equation>> byValue = new TreeMap<>();
+	private final Map<ResultType, NavigableMap<Long, Equation>> byError = new EnumMap<>(ResultType.class);
+	/** The indexed equations from first on, oldest first like the wrapped history */
+	private final List<Entry> entries = new ArrayList<>();
+	private int first;
+	private long nextSequence;
+
+	private record Entry(long sequence, Equation equation) {
+	}
+
+	public IndexedEquationHistory(EquationHistory history) {
+		this.history = history;
+		rebuild();
+	}
+
+	/* ------------------------ */
+	/* EquationHistory contract */
+	/* ------------------------ */
+	@Override
+	public void add(Equation newEquation) {
+		history.add(newEquation);
+		Entry entry = new Entry(nextSequence++, newEquation);
+		entries.add(entry);
+		index(entry);
+		followEviction();
+	}
+
+	@Override
+	public List<Equation> getEquations() {
+		return history.getEquations();
+	}
+
+	@Override
+	public void delete(int index) {
+		if (index < 0 || index >= size()) {
+			return;
+		}
+		history.delete(index);
+		int position = entries.size() - 1 - index;
+		unindex(entries.get(position));
+		entries.remove(position);
+	}
+
+	@Override
+	public void clear() {
+		history.clear();
+		byValue.clear();
+		byError.clear();
+		entries.clear();
+		first = 0;
+	}
+
+	@Override
+	public int size() {
+		return entries.size() - first;
+	}
+
+	@Override
+	public void addIfNewEquation(Equation equation) {
+		if (equation == null || (size() > 0 && equation == entries.get(entries.size() - 1).equation())) {
+			return;
+		}
+		add(equation);
+	}
+
+	/* ------- */
+	/* Lookups */
+	/* ------- */
+	/**
+	 * @param from The smallest result, inclusive
+	 * @param to   The largest result, inclusive
+	 * @return The equations with a result in the given range, ordered by result.
+	 *         Equations with the same result are ordered newest first.
+	 */
+	public List<Equation> between(BigDecimal from, BigDecimal to) {
+		List<Equation> found = new ArrayList<>();
+		if (from.compareTo(to) > 0) {
+			return found;
+		}
+		for (NavigableMap<Long, Equation> equal : byValue.subMap(from, true, to, true).values()) {
+			found.addAll(equal.descendingMap().values());
+		}
+		return found;
+	}
+
+	/**
+	 * @param value The result to look for
+	 * @return The newest equation with a result equal to the given value
+	 */
+	public Optional<Equation> latestEqualTo(BigDecimal value) {
+		NavigableMap<Long, Equation> equal = byValue.get(value);
+		return equal == null ? Optional.empty() : Optional.of(equal.lastEntry().getValue());
+	}
+
+	/**
+	 * @param type An error result type
+	 * @return The equations with the given error, newest first
+	 */
+	public List<Equation> withError(ResultType type) {
+		if (type.ok()) {
+			throw new IllegalArgumentException("Not an error: " + type);
+		}
+		NavigableMap<Long, Equation> errors = byError.get(type);
+		return errors == null ? List.of() : List.copyOf(errors.descendingMap().values());
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private void index(Entry entry) {
+		NavigableMap<Long, Equation> bucket = bucketOf(entry.equation(), true);
+		if (bucket != null) {
+			bucket.put(entry.sequence(), entry.equation());
+		}
+	}
+
+	private void unindex(Entry entry) {
+		Equation equation = entry.equation();
+		NavigableMap<Long, Equation> bucket = bucketOf(equation, false);
+		if (bucket == null) {
+			return;
+		}
+		bucket.remove(entry.sequence());
+		if (bucket.isEmpty()) {
+			if (equation.error().ok()) {
+				byValue.remove(equation.value());
+			} else {
+				byError.remove(equation.error());
+			}
+		}
+	}
+
+	/**
+	 * @return The bucket of the equation, or null if it has none and create is
+	 *         false or the equation has no result value
+	 */
+	private NavigableMap<Long, Equation> bucketOf(Equation equation, boolean create) {
+		if (equation.error().error()) {
+			return create ? byError.computeIfAbsent(equation.error(), type -> new TreeMap<>()) : byError.get(equation.error());
+		} else if (equation.value() == null) {
+			return null;
+		} else {
+			return create ? byValue.computeIfAbsent(equation.value(), value -> new TreeMap<>()) : byValue.get(equation.value());
+		}
+	}
+
+	/**
+	 * Drops the entries the wrapped history evicted
+	 */
+	private void followEviction() {
+		int size = history.size();
+		while (size() > size && size > 0 && entries.get(first + 1).equation() == history.get(size - 1)) {
+			unindex(entries.get(first));
+			entries.set(first++, null);
+		}
+		if (first > entries.size() / 2) {
+			entries.subList(0, first).clear();
+			first = 0;
+		}
+		if (size() != size) {
+			rebuild();
+		}
+	}
+
+	private void rebuild() {
+		byValue.clear();
+		byError.clear();
+		entries.clear();
+		first = 0;
+		List<Equation> equations = history.getEquations();
+		for (int i = equations.size() - 1; i >= 0; i--) {
+			Entry entry = new Entry(nextSequence++, equations.get(i));
+			entries.add(entry);
+			index(entry);
+		}
+	}
+}
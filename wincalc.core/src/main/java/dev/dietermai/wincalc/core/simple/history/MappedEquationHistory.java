@@ -0,0 +1,408 @@
+package dev.dietermai.wincalc.core.simple.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.zip.CRC32;
+
+import dev.dietermai.wincalc.core.simple.EquationHistory;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+
+/**
+ * An {@link EquationHistory} that is stored in memory-mapped files, so it
+ * survives a restart. It consists of three files:
+ * <ul>
+ * <li>The segment file holds the equations as append-only records, each with
+ * its length and a CRC32 of the length and the encoded equation.</li>
+ * <li>The index file ({@code .idx}) holds the offset of every record, so any
+ * equation can be read without reading the ones before it.</li>
+ * <li>The tombstone file ({@code .del}) holds the records that were deleted.
+ * Records are never removed from the segment file.</li>
+ * </ul>
+ * Opening a history only reads the headers, the last record and the
+ * tombstones. Equations are decoded on access, {@link #getEquations()} returns
+ * a view that decodes them when they are read. Since records are never
+ * overwritten, the view does not change when the history changes.
+ * <p>
+ * Clearing the history only moves its start behind the last record, so the
+ * files never shrink. A segment file can hold up to 2 GB of records.
+ * <p>
+ * Not thread safe. Views returned by {@link #getEquations()} may be read by
+ * any thread.
+ */
+public final class MappedEquationHistory implements EquationHistory, Closeable {
+	private static final int MAGIC = 0x57434548; // WCEH
+	private static final int VERSION = 3;
+
+	private static final int DATA_HEADER = 16;
+	private static final int DATA_END = 8;
+	private static final int RECORD_HEADER = 8;
+
+	private static final int INDEX_HEADER = 24;
+	private static final int INDEX_COUNT = 8;
+	private static final int INDEX_BASE = 16;
+	private static final int INDEX_ENTRY = Long.BYTES;
+
+	private static final long INITIAL_CAPACITY = 1 << 16;
+	private static final long MAX_CAPACITY = Integer.MAX_VALUE;
+
+	private final FileChannel dataChannel;
+	private final FileChannel indexChannel;
+	private final FileChannel tombstoneChannel;
+
+	private MappedByteBuffer data;
+	private MappedByteBuffer index;
+	/** Deleted slots at or after base, ascending */
+	private long[] tombstones;
+	private int tombstoneCount;
+
+	/** Number of records ever written */
+	private long count;
+	/** First slot that is part of the history, all before were cleared */
+	private long base;
+	private long end;
+
+	private Equation lastAdded;
+
+	private MappedEquationHistory(FileChannel dataChannel, FileChannel indexChannel, FileChannel tombstoneChannel) {
+		this.dataChannel = dataChannel;
+		this.indexChannel = indexChannel;
+		this.tombstoneChannel = tombstoneChannel;
+	}
+
+	/**
+	 * Opens the history stored at the given path, or creates a new one.
+	 *
+	 * @param path The segment file, the index and tombstone files are stored next
+	 *             to it
+	 * @return The opened history
+	 * @throws IOException if the files can not be opened or are not a history
+	 */
+	public static MappedEquationHistory open(Path path) throws IOException {
+		FileChannel dataChannel = openChannel(path);
+		FileChannel indexChannel = null;
+		FileChannel tombstoneChannel = null;
+		try {
+			indexChannel = openChannel(sibling(path, ".idx"));
+			tombstoneChannel = openChannel(sibling(path, ".del"));
+			MappedEquationHistory history = new MappedEquationHistory(dataChannel, indexChannel, tombstoneChannel);
+			history.load();
+			return history;
+		} catch (IOException | RuntimeException e) {
+			for (FileChannel channel : new FileChannel[] { dataChannel, indexChannel, tombstoneChannel }) {
+				if (channel != null) {
+					channel.close();
+				}
+			}
+			throw e;
+		}
+	}
+
+	/* ------------------------ */
+	/* EquationHistory contract */
+	/* ------------------------ */
+	@Override
+	public void add(Equation newEquation) {
+		byte[] payload = EquationCodec.encode(newEquation);
+
+		long offset = end;
+		ensureDataCapacity(offset + RECORD_HEADER + payload.length);
+		data.putInt((int) offset, payload.length);
+		data.putInt((int) offset + 4, checksum(payload.length, ByteBuffer.wrap(payload)));
+		data.put((int) offset + RECORD_HEADER, payload);
+		end = offset + RECORD_HEADER + payload.length;
+		data.putLong(DATA_END, end);
+
+		// The count in the index header commits the record
+		ensureIndexCapacity(count + 1);
+		index.putLong((int) indexPosition(count), offset);
+		count++;
+		index.putLong(INDEX_COUNT, count);
+		lastAdded = newEquation;
+	}
+
+	@Override
+	public List<Equation> getEquations() {
+		return new EquationView(data, index, base, count, Arrays.copyOf(tombstones, tombstoneCount));
+	}
+
+	@Override
+	public void delete(int position) {
+		if (position < 0 || position >= size()) {
+			return;
+		}
+		long slot = slotOf(size() - 1 - position, base, tombstones, tombstoneCount);
+		try {
+			ByteBuffer entry = ByteBuffer.allocate(Long.BYTES).putLong(0, slot);
+			tombstoneChannel.write(entry, tombstoneChannel.size());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		insertTombstone(slot);
+		if (slot == count - 1) {
+			lastAdded = null;
+		}
+	}
+
+	@Override
+	public void clear() {
+		base = count;
+		index.putLong(INDEX_BASE, base);
+		tombstoneCount = 0;
+		try {
+			tombstoneChannel.truncate(0);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		lastAdded = null;
+	}
+
+	@Override
+	public void addIfNewEquation(Equation equation) {
+		if (equation == null || equation == lastAdded) {
+			return;
+		}
+		add(equation);
+	}
+
+	/* -------------------- */
+	/* File related methods */
+	/* -------------------- */
+	@Override
+	public int size() {
+		return (int) (count - base - tombstoneCount);
+	}
+
+	/**
+	 * Writes all changes to the storage device.
+	 */
+	public void flush() {
+		data.force();
+		index.force();
+		try {
+			tombstoneChannel.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+		dataChannel.close();
+		indexChannel.close();
+		tombstoneChannel.close();
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private void load() throws IOException {
+		boolean created = dataChannel.size() == 0;
+		data = dataChannel.map(MapMode.READ_WRITE, 0, Math.max(dataChannel.size(), INITIAL_CAPACITY));
+		index = indexChannel.map(MapMode.READ_WRITE, 0, Math.max(indexChannel.size(), INITIAL_CAPACITY));
+		if (created) {
+			data.putInt(0, MAGIC).putInt(4, VERSION).putLong(DATA_END, DATA_HEADER);
+			index.putInt(0, MAGIC).putInt(4, VERSION).putLong(INDEX_COUNT, 0).putLong(INDEX_BASE, 0);
+		} else if (data.getInt(0) != MAGIC || index.getInt(0) != MAGIC) {
+			throw new IOException("Not an equation history");
+		} else if (data.getInt(4) != VERSION || index.getInt(4) != VERSION) {
+			throw new IOException("Unsupported equation history version");
+		}
+		count = index.getLong(INDEX_COUNT);
+		base = index.getLong(INDEX_BASE);
+		end = data.getLong(DATA_END);
+		recover();
+		loadTombstones();
+	}
+
+	/**
+	 * Drops records at the end that were not completely written
+	 */
+	private void recover() {
+		long maxCount = (index.capacity() - INDEX_HEADER) / INDEX_ENTRY;
+		count = Math.min(count, maxCount);
+		while (count > 0 && !isValid(data, index.getLong((int) indexPosition(count - 1)))) {
+			count--;
+		}
+		base = Math.min(base, count);
+		if (count > 0) {
+			long offset = index.getLong((int) indexPosition(count - 1));
+			end = offset + RECORD_HEADER + data.getInt((int) offset);
+		} else {
+			end = DATA_HEADER;
+		}
+		data.putLong(DATA_END, end);
+		index.putLong(INDEX_COUNT, count);
+		index.putLong(INDEX_BASE, base);
+	}
+
+	private void loadTombstones() throws IOException {
+		int size = (int) (tombstoneChannel.size() / Long.BYTES);
+		ByteBuffer buffer = ByteBuffer.allocate(size * Long.BYTES);
+		tombstoneChannel.read(buffer, 0);
+		long[] loaded = new long[size];
+		int loadedCount = 0;
+		for (int i = 0; i < size; i++) {
+			long slot = buffer.getLong(i * Long.BYTES);
+			if (slot >= base && slot < count) {
+				loaded[loadedCount++] = slot;
+			}
+		}
+		Arrays.sort(loaded, 0, loadedCount);
+
+		tombstones = new long[Math.max(loadedCount, 8)];
+		tombstoneCount = 0;
+		for (int i = 0; i < loadedCount; i++) {
+			if (tombstoneCount == 0 || tombstones[tombstoneCount - 1] != loaded[i]) {
+				tombstones[tombstoneCount++] = loaded[i];
+			}
+		}
+	}
+
+	private void insertTombstone(long slot) {
+		int insertAt = -Arrays.binarySearch(tombstones, 0, tombstoneCount, slot) - 1;
+		if (tombstoneCount == tombstones.length) {
+			tombstones = Arrays.copyOf(tombstones, tombstones.length * 2);
+		}
+		System.arraycopy(tombstones, insertAt, tombstones, insertAt + 1, tombstoneCount - insertAt);
+		tombstones[insertAt] = slot;
+		tombstoneCount++;
+	}
+
+	private void ensureDataCapacity(long required) {
+		if (required > MAX_CAPACITY) {
+			throw new IllegalStateException("Segment file is full");
+		}
+		if (required > data.capacity()) {
+			data = remap(dataChannel, data, required);
+		}
+	}
+
+	private void ensureIndexCapacity(long requiredCount) {
+		long required = indexPosition(requiredCount);
+		if (required > MAX_CAPACITY) {
+			throw new IllegalStateException("Index file is full");
+		}
+		if (required > index.capacity()) {
+			index = remap(indexChannel, index, required);
+		}
+	}
+
+	private static MappedByteBuffer remap(FileChannel channel, MappedByteBuffer buffer, long required) {
+		long capacity = Math.min(Math.max(required, buffer.capacity() * 2L), MAX_CAPACITY);
+		try {
+			buffer.force();
+			return channel.map(MapMode.READ_WRITE, 0, capacity);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static boolean isValid(ByteBuffer data, long offset) {
+		if (offset < DATA_HEADER || offset + RECORD_HEADER > data.capacity()) {
+			return false;
+		}
+		// An encoded equation is never empty, so a zero-filled record is not valid
+		int length = data.getInt((int) offset);
+		if (length <= 0 || offset + RECORD_HEADER + length > data.capacity()) {
+			return false;
+		}
+		return checksum(length, data.slice((int) offset + RECORD_HEADER, length)) == data.getInt((int) offset + 4);
+	}
+
+	/**
+	 * CRC32 of the length followed by the payload
+	 */
+	private static int checksum(int length, ByteBuffer payload) {
+		CRC32 crc = new CRC32();
+		crc.update(length >>> 24);
+		crc.update(length >>> 16);
+		crc.update(length >>> 8);
+		crc.update(length);
+		crc.update(payload);
+		return (int) crc.getValue();
+	}
+
+	private static long indexPosition(long slot) {
+		return INDEX_HEADER + slot * INDEX_ENTRY;
+	}
+
+	/**
+	 * @param live The number of live records before the wanted one
+	 * @return The slot of the live record
+	 */
+	private static long slotOf(long live, long base, long[] tombstones, int tombstoneCount) {
+		// tombstones[i] - base - i live records are before the i-th tombstone, count
+		// the tombstones that are before the wanted record
+		int low = 0;
+		int high = tombstoneCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (tombstones[mid] - base - mid <= live) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return base + live + low;
+	}
+
+	private static FileChannel openChannel(Path path) throws IOException {
+		return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	private static Path sibling(Path path, String suffix) {
+		Path fileName = path.getFileName();
+		return path.resolveSibling(fileName + suffix);
+	}
+
+	/**
+	 * The equations at the time of the view creation, newest first. Decodes and
+	 * checks an equation on every access.
+	 */
+	private static final class EquationView extends AbstractList<Equation> implements RandomAccess {
+		private final ByteBuffer data;
+		private final ByteBuffer index;
+		private final long base;
+		private final long[] tombstones;
+		private final int size;
+
+		EquationView(ByteBuffer data, ByteBuffer index, long base, long count, long[] tombstones) {
+			this.data = data;
+			this.index = index;
+			this.base = base;
+			this.tombstones = tombstones;
+			this.size = (int) (count - base - tombstones.length);
+		}
+
+		@Override
+		public Equation get(int position) {
+			if (position < 0 || position >= size) {
+				throw new IndexOutOfBoundsException(position);
+			}
+			long slot = slotOf(size - 1 - position, base, tombstones, tombstones.length);
+			long offset = index.getLong((int) indexPosition(slot));
+			if (!isValid(data, offset)) {
+				throw new IllegalStateException("Corrupt record at offset " + offset);
+			}
+			int length = data.getInt((int) offset);
+			return EquationCodec.decode(data.slice((int) offset + RECORD_HEADER, length));
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
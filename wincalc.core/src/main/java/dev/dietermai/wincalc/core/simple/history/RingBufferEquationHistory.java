@@ -0,0 +1,210 @@
+package dev.dietermai.wincalc.core.simple.history;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import dev.dietermai.wincalc.core.simple.EquationHistory;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+
+/**
+ * An {@link EquationHistory} with a fixed capacity, backed by an array that is
+ * used as ring buffer. When the history is full, adding an equation first
+ * evicts the equation chosen by the {@link EvictionPolicy}, so the memory
+ * stays the same no matter how many equations are added.
+ * <p>
+ * Access by index and removing the newest or oldest equation take constant
+ * time. Deleting any other equation moves the equations on the shorter side
+ * of it.
+ * <p>
+ * Not thread safe.
+ */
+public final class RingBufferEquationHistory implements EquationHistory {
+	private final Equation[] equations;
+	private final boolean[] pinned;
+	private final EvictionPolicy evictionPolicy;
+
+	/** Physical index of the oldest equation */
+	private int start;
+	private int size;
+
+	public RingBufferEquationHistory(int capacity) {
+		this(capacity, EvictionPolicy.DROP_OLDEST);
+	}
+
+	public RingBufferEquationHistory(int capacity, EvictionPolicy evictionPolicy) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+		}
+		this.equations = new Equation[capacity];
+		this.pinned = new boolean[capacity];
+		this.evictionPolicy = evictionPolicy;
+	}
+
+	/* ------------------------ */
+	/* EquationHistory contract */
+	/* ------------------------ */
+	@Override
+	public void add(Equation newEquation) {
+		if (size == equations.length) {
+			int victim = evictionPolicy.victim(this);
+			checkIndex(victim);
+			remove(victim);
+		}
+		int physical = physical(size);
+		equations[physical] = newEquation;
+		pinned[physical] = false;
+		size++;
+	}
+
+	/**
+	 * @return A copy of the equations, newest first. Use {@link #view()} to read
+	 *         them without copying.
+	 */
+	@Override
+	public List<Equation> getEquations() {
+		Equation[] copy = new Equation[size];
+		for (int i = 0; i < size; i++) {
+			copy[i] = get(i);
+		}
+		return List.of(copy);
+	}
+
+	@Override
+	public void delete(int index) {
+		if (index >= 0 && index < size) {
+			remove(index);
+		}
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(equations, null);
+		Arrays.fill(pinned, false);
+		start = 0;
+		size = 0;
+	}
+
+	@Override
+	public void addIfNewEquation(Equation equation) {
+		if (equation == null || (size > 0 && equation == get(0))) {
+			return;
+		}
+		add(equation);
+	}
+
+	/* ---------------------------- */
+	/* Ring buffer specific methods */
+	/* ---------------------------- */
+	/**
+	 * @return A read only view of the equations, newest first. The view is not a
+	 *         copy, it shows the current equations of this history.
+	 */
+	public List<Equation> view() {
+		return new View();
+	}
+
+	@Override
+	public Equation get(int index) {
+		checkIndex(index);
+		return equations[physical(size - 1 - index)];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return equations.length;
+	}
+
+	/**
+	 * Pins the equation at the given index, so {@link EvictionPolicy#KEEP_PINNED}
+	 * does not evict it.
+	 *
+	 * @param index The index, 0 is the newest equation
+	 */
+	public void pin(int index) {
+		checkIndex(index);
+		pinned[physical(size - 1 - index)] = true;
+	}
+
+	public void unpin(int index) {
+		checkIndex(index);
+		pinned[physical(size - 1 - index)] = false;
+	}
+
+	public boolean isPinned(int index) {
+		checkIndex(index);
+		return pinned[physical(size - 1 - index)];
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	/**
+	 * Removes the equation at the given index by moving the equations of the
+	 * shorter side into the gap
+	 */
+	private void remove(int index) {
+		int position = size - 1 - index;
+		if (position < size / 2) {
+			for (int i = position; i > 0; i--) {
+				move(i - 1, i);
+			}
+			clearSlot(0);
+			start = physical(1);
+		} else {
+			for (int i = position; i < size - 1; i++) {
+				move(i + 1, i);
+			}
+			clearSlot(size - 1);
+		}
+		size--;
+	}
+
+	private void move(int fromPosition, int toPosition) {
+		int from = physical(fromPosition);
+		int to = physical(toPosition);
+		equations[to] = equations[from];
+		pinned[to] = pinned[from];
+	}
+
+	private void clearSlot(int position) {
+		int physical = physical(position);
+		equations[physical] = null;
+		pinned[physical] = false;
+	}
+
+	/**
+	 * @param position The position counted from the oldest equation
+	 * @return The index into the arrays
+	 */
+	private int physical(int position) {
+		int physical = start + position;
+		return physical < equations.length ? physical : physical - equations.length;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		}
+	}
+
+	/**
+	 * Live, read only view, newest first
+	 */
+	private final class View extends AbstractList<Equation> implements RandomAccess {
+		@Override
+		public Equation get(int index) {
+			return RingBufferEquationHistory.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
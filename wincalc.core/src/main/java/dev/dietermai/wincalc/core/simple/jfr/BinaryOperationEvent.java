@@ -0,0 +1,11 @@
+package dev.dietermai.wincalc.core.simple.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(CalculatorEvents.PREFIX + "BinaryOperation")
+@Label("Binary Operation")
+@Description("Pressing plus, minus, multiply or divide")
+public final class BinaryOperationEvent extends TransitionEvent {
+}
@@ -0,0 +1,61 @@
+package dev.dietermai.wincalc.core.simple.jfr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import dev.dietermai.wincalc.core.simple.model.BinaryExpression;
+import dev.dietermai.wincalc.core.simple.model.Expression;
+import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+import jdk.jfr.Configuration;
+
+/**
+ * The Flight Recorder events of the calculator. They are disabled by default,
+ * which costs nothing once the JIT has compiled the instrumented code. The
+ * {@value #SETTINGS} profile next to this class enables all of them and can be
+ * combined with a JDK profile, either in process with {@link #configuration()}
+ * or on the command line after extracting it from the jar:
+ * 
+ * <pre>
+ * -XX:StartFlightRecording:settings=default,settings=wincalc.jfc
+ * </pre>
+ */
+public final class CalculatorEvents {
+	public static final String SETTINGS = "wincalc.jfc";
+
+	static final String PREFIX = "dev.dietermai.wincalc.";
+
+	private CalculatorEvents() {
+	}
+
+	/**
+	 * @return The {@value #SETTINGS} profile, for example for
+	 *         {@link jdk.jfr.Recording#setSettings(java.util.Map)}
+	 */
+	public static Configuration configuration() throws IOException, ParseException {
+		try (InputStream in = CalculatorEvents.class.getResourceAsStream(SETTINGS); Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+			return Configuration.create(reader);
+		}
+	}
+
+	/**
+	 * @return The number of expressions on the longest path from the given one
+	 *         to a number, 0 for an idle expression
+	 */
+	static int depth(Expression expression) {
+		int depth = 0;
+		// Unary chains grow with every key press, so walk them without recursion
+		while (expression instanceof UnaryExpression unary) {
+			depth++;
+			expression = unary.nested();
+		}
+		if (expression instanceof BinaryExpression binary) {
+			return depth + 1 + Math.max(depth(binary.left()), depth(binary.right()));
+		}
+		return expression instanceof NumberExpression ? depth + 1 : depth;
+	}
+}
@@ -0,0 +1,54 @@
+package dev.dietermai.wincalc.core.simple.jfr;
+
+import java.math.BigDecimal;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A change of the saved memory values. Memory operations have no expression
+ * and can't fail, so instead of a depth and result this records how many
+ * values are saved afterwards.
+ */
+@Name(CalculatorEvents.PREFIX + "MemoryOperation")
+@Label("Memory Operation")
+@Description("Saving, adding to, subtracting from, clearing or deleting memory values")
+@Category("Calculator")
+@Enabled(false)
+@StackTrace(false)
+public final class MemoryOperationEvent extends Event {
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Operand Precision")
+	@Description("The number of digits of the operand, 0 without an operand")
+	int operandPrecision;
+
+	@Label("Operand Scale")
+	int operandScale;
+
+	@Label("Saved Values")
+	int savedValues;
+
+	/**
+	 * Fills in the fields and commits the event. Only call this if
+	 * {@link #shouldCommit()} is true.
+	 * 
+	 * @param operand The saved, added or subtracted value, or null if there is none
+	 */
+	public void commit(String operation, BigDecimal operand, int savedValues) {
+		this.operation = operation;
+		if (operand != null) {
+			this.operandPrecision = operand.precision();
+			this.operandScale = operand.scale();
+		}
+		this.savedValues = savedValues;
+		commit();
+	}
+}
@@ -0,0 +1,11 @@
+package dev.dietermai.wincalc.core.simple.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(CalculatorEvents.PREFIX + "Resolve")
+@Label("Resolve")
+@Description("Resolving the current expression to an equation")
+public final class ResolveEvent extends TransitionEvent {
+}
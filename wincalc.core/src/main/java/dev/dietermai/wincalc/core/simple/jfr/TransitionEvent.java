@@ -0,0 +1,61 @@
+package dev.dietermai.wincalc.core.simple.jfr;
+
+import java.math.BigDecimal;
+
+import dev.dietermai.wincalc.core.simple.model.Expression;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * The fields shared by the events of calculator state transitions. Like all
+ * calculator events they are disabled unless enabled by the
+ * {@link CalculatorEvents#SETTINGS} profile or a recording.
+ */
+@Category("Calculator")
+@Enabled(false)
+@StackTrace(false)
+public abstract class TransitionEvent extends Event {
+
+	@Label("Operator")
+	String operator;
+
+	@Label("Operand Precision")
+	@Description("The number of digits of the operand, 0 without an operand")
+	int operandPrecision;
+
+	@Label("Operand Scale")
+	int operandScale;
+
+	@Label("Expression Depth")
+	@Description("How deeply the expression the transition evaluated is nested")
+	int expressionDepth;
+
+	@Label("Result")
+	String result;
+
+	/**
+	 * Fills in the fields and commits the event. Only call this if
+	 * {@link #shouldCommit()} is true, so the arguments are only computed for
+	 * recorded events.
+	 * 
+	 * @param operator The operator applied or resolved, or null if there is none
+	 * @param operand  The operand of the transition, or null if there is none
+	 */
+	public void commit(Enum<?> operator, BigDecimal operand, Expression expression, ResultType result) {
+		if (operator != null) {
+			this.operator = operator.name();
+		}
+		if (operand != null) {
+			this.operandPrecision = operand.precision();
+			this.operandScale = operand.scale();
+		}
+		this.expressionDepth = CalculatorEvents.depth(expression);
+		this.result = result.name();
+		commit();
+	}
+}
@@ -0,0 +1,11 @@
+package dev.dietermai.wincalc.core.simple.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(CalculatorEvents.PREFIX + "UnaryOperation")
+@Label("Unary Operation")
+@Description("Applying negate, square, root or 1/x")
+public final class UnaryOperationEvent extends TransitionEvent {
+}
@@ -0,0 +1,17 @@
+package dev.dietermai.wincalc.core.simple.journal;
+
+/**
+ * When an appended journal entry counts as durable.
+ */
+public enum Durability {
+	/**
+	 * Written to the file and forced to the storage device, survives a power
+	 * loss. Costs one fsync per group commit.
+	 */
+	FSYNC,
+	/**
+	 * Written to the file, survives a crash of the process but not of the
+	 * operating system. Costs one write call per group commit.
+	 */
+	WRITE;
+}
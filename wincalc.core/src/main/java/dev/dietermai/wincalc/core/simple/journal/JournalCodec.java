@@ -0,0 +1,81 @@
+package dev.dietermai.wincalc.core.simple.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import dev.dietermai.wincalc.core.simple.history.EquationCodec;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+
+/**
+ * Binary encoding of a {@link JournalEntry}: the type ordinal followed by the
+ * fields of that type. Equations are encoded with {@link EquationCodec}.
+ */
+final class JournalCodec {
+	private static final JournalEntryType[] TYPES = JournalEntryType.values();
+	private static final OperationType[] OPERATION_TYPES = OperationType.values();
+
+	private JournalCodec() {
+	}
+
+	static byte[] encode(JournalEntry entry) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(entry.type().ordinal());
+			switch (entry.type()) {
+			case operation -> {
+				Operation operation = entry.operation();
+				out.writeByte(operation.type().ordinal());
+				out.writeBoolean(operation.input() != null);
+				if (operation.input() != null) {
+					out.writeUTF(operation.input());
+				}
+			}
+			case resolveTimes, deleteEquation -> out.writeLong(entry.argument());
+			case add -> {
+				byte[] equation = EquationCodec.encode(entry.equation());
+				out.writeInt(equation.length);
+				out.write(equation);
+			}
+			default -> {
+				// Nothing but the type
+			}
+			}
+		} catch (IOException e) {
+			// A ByteArrayOutputStream does not throw
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the bytes are not a valid entry
+	 */
+	static JournalEntry decode(byte[] payload) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+			JournalEntryType type = TYPES[in.readUnsignedByte()];
+			return switch (type) {
+			case operation -> {
+				OperationType operationType = OPERATION_TYPES[in.readUnsignedByte()];
+				String input = in.readBoolean() ? in.readUTF() : null;
+				yield JournalEntry.of(new Operation(operationType, input));
+			}
+			case resolveTimes -> JournalEntry.resolveTimes(in.readLong());
+			case deleteEquation -> JournalEntry.deleteEquation((int) in.readLong());
+			case add -> {
+				byte[] equation = new byte[in.readInt()];
+				in.readFully(equation);
+				yield JournalEntry.add(EquationCodec.decode(ByteBuffer.wrap(equation)));
+			}
+			default -> JournalEntry.of(type);
+			};
+		} catch (IOException | RuntimeException e) {
+			throw new IllegalArgumentException("Invalid journal entry", e);
+		}
+	}
+}
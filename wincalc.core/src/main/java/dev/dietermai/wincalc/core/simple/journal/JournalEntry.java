@@ -0,0 +1,55 @@
+package dev.dietermai.wincalc.core.simple.journal;
+
+import dev.dietermai.wincalc.core.simple.CalculatorSnapshot;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+
+/**
+ * One recorded change of a calculator. Only the fields of the type are set:
+ * the operation for {@link JournalEntryType#operation}, the argument for
+ * {@link JournalEntryType#resolveTimes} and
+ * {@link JournalEntryType#deleteEquation}, the equation for
+ * {@link JournalEntryType#add}.
+ */
+public record JournalEntry(JournalEntryType type, Operation operation, long argument, Equation equation) {
+	private static final Operation DEFAULT_OPERATION = null;
+	private static final long DEFAULT_ARGUMENT = 0;
+	private static final Equation DEFAULT_EQUATION = null;
+
+	public static JournalEntry of(JournalEntryType type) {
+		return new JournalEntry(type, DEFAULT_OPERATION, DEFAULT_ARGUMENT, DEFAULT_EQUATION);
+	}
+
+	public static JournalEntry of(Operation operation) {
+		return new JournalEntry(JournalEntryType.operation, operation, DEFAULT_ARGUMENT, DEFAULT_EQUATION);
+	}
+
+	public static JournalEntry resolveTimes(long times) {
+		return new JournalEntry(JournalEntryType.resolveTimes, DEFAULT_OPERATION, times, DEFAULT_EQUATION);
+	}
+
+	public static JournalEntry add(Equation equation) {
+		return new JournalEntry(JournalEntryType.add, DEFAULT_OPERATION, DEFAULT_ARGUMENT, equation);
+	}
+
+	public static JournalEntry deleteEquation(int index) {
+		return new JournalEntry(JournalEntryType.deleteEquation, DEFAULT_OPERATION, index, DEFAULT_EQUATION);
+	}
+
+	/**
+	 * @return The snapshot after this change
+	 */
+	public CalculatorSnapshot applyTo(CalculatorSnapshot snapshot) {
+		return switch (type) {
+		case operation -> snapshot.apply(operation);
+		case resolveTimes -> snapshot.resolve(argument);
+		case add -> snapshot.add(equation);
+		case deleteEquation -> snapshot.deleteEquation((int) argument);
+		case clearEquationHistory -> snapshot.clearEquationHistory();
+		case ms -> snapshot.ms();
+		case mc -> snapshot.mc();
+		case mPlus -> snapshot.mPlus();
+		case mMinus -> snapshot.mMinus();
+		};
+	}
+}
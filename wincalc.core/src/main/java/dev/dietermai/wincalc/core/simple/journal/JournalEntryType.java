@@ -0,0 +1,9 @@
+package dev.dietermai.wincalc.core.simple.journal;
+
+/**
+ * The kinds of changes a calculator journal records. Each one matches a
+ * transition of {@link dev.dietermai.wincalc.core.simple.CalculatorSnapshot}.
+ */
+public enum JournalEntryType {
+	operation, resolveTimes, add, deleteEquation, clearEquationHistory, ms, mc, mPlus, mMinus;
+}
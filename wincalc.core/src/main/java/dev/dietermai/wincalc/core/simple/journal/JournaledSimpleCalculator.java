@@ -0,0 +1,243 @@
+package dev.dietermai.wincalc.core.simple.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import dev.dietermai.wincalc.core.simple.CalculatorSnapshot;
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * Simple calculator that survives a crash. It behaves like a
+ * {@link SimpleCalculator}, but every change is appended to an
+ * {@link OperationJournal} and only returns once the change is durable. Opening
+ * the calculator again restores the exact state, equation history and memory
+ * by replaying the journal from the latest snapshot.
+ * <p>
+ * A change is applied first and only journaled if it succeeded, so replaying
+ * the journal never fails. {@link #applyAll(List)} journals all operations
+ * with one group commit. Changes from several threads are serialized, but
+ * wait for durability in parallel, so they share group commits as well.
+ */
+public class JournaledSimpleCalculator implements Closeable {
+	private final OperationJournal journal;
+	private final long checkpointInterval;
+
+	/** Guarded by this */
+	private CalculatorSnapshot snapshot;
+	private long sinceCheckpoint;
+
+	private JournaledSimpleCalculator(OperationJournal journal, long checkpointInterval) {
+		this.journal = journal;
+		this.checkpointInterval = checkpointInterval;
+		this.snapshot = journal.recovered();
+		this.sinceCheckpoint = journal.replayed();
+	}
+
+	/**
+	 * Opens the calculator in the given directory, restoring its state.
+	 *
+	 * @param checkpointInterval The number of changes after which a snapshot is
+	 *                           written and the journal starts over, 0 to only
+	 *                           write one on {@link #checkpoint()}
+	 */
+	public static JournaledSimpleCalculator open(Path directory, Durability durability, long checkpointInterval) throws IOException {
+		return new JournaledSimpleCalculator(OperationJournal.open(directory, durability), checkpointInterval);
+	}
+
+	public synchronized CalculatorSnapshot snapshot() {
+		return snapshot;
+	}
+
+	public OperationJournal journal() {
+		return journal;
+	}
+
+	public SimpleCalculatorRecord getState() {
+		return snapshot().state();
+	}
+
+	/**
+	 * Writes a snapshot and starts the journal over.
+	 */
+	public synchronized void checkpoint() throws IOException {
+		journal.checkpoint(snapshot);
+		sinceCheckpoint = 0;
+	}
+
+	/**
+	 * Makes all changes durable and closes the journal.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		journal.close();
+	}
+
+	/* **********************************/
+	/* Calculator state related methods */
+	/* **********************************/
+	public SimpleCalculatorRecord apply(Operation operation) throws IOException {
+		return change(JournalEntry.of(operation)).state();
+	}
+
+	/**
+	 * Applies and journals all operations, then waits once until all of them are
+	 * durable.
+	 *
+	 * @return The calculator state after the last operation
+	 */
+	public SimpleCalculatorRecord applyAll(List<Operation> operations) throws IOException {
+		long sequence = 0;
+		CalculatorSnapshot after;
+		synchronized (this) {
+			for (Operation operation : operations) {
+				sequence = record(JournalEntry.of(operation));
+			}
+			after = snapshot;
+		}
+		journal.awaitDurable(sequence);
+		return after.state();
+	}
+
+	public SimpleCalculatorRecord resolve() throws IOException {
+		return apply(Operation.of(OperationType.resolve));
+	}
+
+	public SimpleCalculatorRecord resolve(long times) throws IOException {
+		return change(JournalEntry.resolveTimes(times)).state();
+	}
+
+	public SimpleCalculatorRecord number(String number) throws IOException {
+		return apply(Operation.number(number));
+	}
+
+	public SimpleCalculatorRecord plus() throws IOException {
+		return apply(Operation.of(OperationType.plus));
+	}
+
+	public SimpleCalculatorRecord minus() throws IOException {
+		return apply(Operation.of(OperationType.minus));
+	}
+
+	public SimpleCalculatorRecord multiply() throws IOException {
+		return apply(Operation.of(OperationType.multiply));
+	}
+
+	public SimpleCalculatorRecord divide() throws IOException {
+		return apply(Operation.of(OperationType.divide));
+	}
+
+	public SimpleCalculatorRecord negate() throws IOException {
+		return apply(Operation.of(OperationType.negate));
+	}
+
+	public SimpleCalculatorRecord percent() throws IOException {
+		return apply(Operation.of(OperationType.percent));
+	}
+
+	public SimpleCalculatorRecord square() throws IOException {
+		return apply(Operation.of(OperationType.square));
+	}
+
+	public SimpleCalculatorRecord root() throws IOException {
+		return apply(Operation.of(OperationType.root));
+	}
+
+	public SimpleCalculatorRecord oneDivX() throws IOException {
+		return apply(Operation.of(OperationType.oneDivX));
+	}
+
+	public SimpleCalculatorRecord ce() throws IOException {
+		return apply(Operation.of(OperationType.ce));
+	}
+
+	public SimpleCalculatorRecord c() throws IOException {
+		return apply(Operation.of(OperationType.c));
+	}
+
+	/* ****************************************/
+	/* Equation History state related methods */
+	/* ****************************************/
+	public void add(Equation newEquation) throws IOException {
+		change(JournalEntry.add(newEquation));
+	}
+
+	public List<Equation> getEquations() {
+		return snapshot().getEquations();
+	}
+
+	public void deleteEquation(int index) throws IOException {
+		change(JournalEntry.deleteEquation(index));
+	}
+
+	public void clearEquationHistory() throws IOException {
+		change(JournalEntry.of(JournalEntryType.clearEquationHistory));
+	}
+
+	/* *************************************/
+	/* Memory related methods */
+	/* *************************************/
+	public List<BigDecimal> getAllMemoryValues() {
+		return snapshot().getMemoryValues();
+	}
+
+	public BigDecimal mr() {
+		return snapshot().mr();
+	}
+
+	public void ms() throws IOException {
+		change(JournalEntry.of(JournalEntryType.ms));
+	}
+
+	public void mc() throws IOException {
+		change(JournalEntry.of(JournalEntryType.mc));
+	}
+
+	public void mPlus() throws IOException {
+		change(JournalEntry.of(JournalEntryType.mPlus));
+	}
+
+	public void mMinus() throws IOException {
+		change(JournalEntry.of(JournalEntryType.mMinus));
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	/**
+	 * Applies and journals the change and waits until it is durable. The wait is
+	 * outside of the lock, so other threads can join the group commit.
+	 */
+	private CalculatorSnapshot change(JournalEntry entry) throws IOException {
+		long sequence;
+		CalculatorSnapshot after;
+		synchronized (this) {
+			sequence = record(entry);
+			after = snapshot;
+		}
+		journal.awaitDurable(sequence);
+		return after;
+	}
+
+	/**
+	 * Called with the lock of this.
+	 *
+	 * @return The sequence number of the journaled entry
+	 */
+	private long record(JournalEntry entry) throws IOException {
+		CalculatorSnapshot next = entry.applyTo(snapshot);
+		long sequence = journal.append(entry);
+		snapshot = next;
+		if (checkpointInterval > 0 && ++sinceCheckpoint >= checkpointInterval) {
+			journal.checkpoint(snapshot);
+			sinceCheckpoint = 0;
+		}
+		return sequence;
+	}
+}
@@ -0,0 +1,401 @@
+package dev.dietermai.wincalc.core.simple.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import dev.dietermai.wincalc.core.simple.CalculatorSnapshot;
+import dev.dietermai.wincalc.core.simple.history.EquationCodec;
+
+/**
+ * Write-ahead journal of calculator changes in a directory. It holds the
+ * latest snapshot and the journal of the changes since that snapshot:
+ * <ul>
+ * <li>snapshot: magic, version, the generation of the journal that continues
+ * it, and the snapshot encoded with {@link EquationCodec}.</li>
+ * <li>journal-&lt;generation&gt;.log: magic, version and one record per entry
+ * with the length of the payload, a CRC32 of the payload and the payload.</li>
+ * </ul>
+ * {@link #append(JournalEntry)} only copies the entry into a buffer. The first
+ * thread that waits in {@link #awaitDurable(long)} writes the buffer of all
+ * threads with one write call and, if the durability asks for it, one fsync.
+ * Threads that append while that is running are written by the next group
+ * commit. So a burst of entries shares one fsync.
+ * <p>
+ * {@link #open(Path, Durability)} reads the journal in chunks, so recovery
+ * needs memory for the largest record rather than for the whole journal. A
+ * record that was torn by a crash is cut off. Records have no size limit, a
+ * length that reaches beyond the end of the file marks a torn record.
+ * {@link #checkpoint(CalculatorSnapshot)} writes a new snapshot and starts the
+ * next generation, so the journal does not grow forever.
+ * <p>
+ * Thread safe.
+ */
+public final class OperationJournal implements Closeable {
+	private static final int MAGIC = 0x5743534A; // WCSJ
+	private static final int VERSION = 2;
+	private static final int SNAPSHOT_HEADER = 16;
+	private static final int JOURNAL_HEADER = 8;
+	private static final int RECORD_HEADER = 8;
+	private static final int READ_CHUNK = 1 << 16;
+	private static final String SNAPSHOT = "snapshot";
+
+	private final Path directory;
+	private final Durability durability;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition committed = lock.newCondition();
+	/** The following fields are guarded by lock */
+	private FileChannel channel;
+	private long generation;
+	private byte[] pending = new byte[4096];
+	private int pendingSize;
+	private byte[] spare = new byte[4096];
+	private long appended;
+	private long durable;
+	private boolean committing;
+	private IOException failure;
+	private long groupCommits;
+
+	private final CalculatorSnapshot recovered;
+	private final long replayed;
+
+	private OperationJournal(Path directory, Durability durability, FileChannel channel, long generation, CalculatorSnapshot recovered, long replayed) {
+		this.directory = directory;
+		this.durability = durability;
+		this.channel = channel;
+		this.generation = generation;
+		this.recovered = recovered;
+		this.replayed = replayed;
+	}
+
+	/**
+	 * Opens the journal in the given directory, creating it if needed, and
+	 * replays the entries since the latest snapshot.
+	 */
+	public static OperationJournal open(Path directory, Durability durability) throws IOException {
+		Files.createDirectories(directory);
+		long generation = 0;
+		CalculatorSnapshot snapshot = CalculatorSnapshot.of();
+		Path snapshotPath = directory.resolve(SNAPSHOT);
+		if (Files.exists(snapshotPath)) {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotPath));
+			if (buffer.remaining() < SNAPSHOT_HEADER || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("Not a snapshot of version " + VERSION + ": " + snapshotPath);
+			}
+			generation = buffer.getLong();
+			snapshot = EquationCodec.decodeSnapshot(buffer);
+		}
+
+		FileChannel channel = openJournal(directory, generation, false);
+		long replayed = 0;
+		ByteBuffer data = fill(channel, ByteBuffer.allocate(READ_CHUNK).flip(), 0, JOURNAL_HEADER);
+		if (data.remaining() < JOURNAL_HEADER || data.getInt() != MAGIC || data.getInt() != VERSION) {
+			channel.close();
+			throw new IOException("Not a journal of version " + VERSION + ": " + journalPath(directory, generation));
+		}
+		long size = channel.size();
+		long position = JOURNAL_HEADER;
+		while (true) {
+			data = fill(channel, data, position, RECORD_HEADER);
+			if (data.remaining() < RECORD_HEADER) {
+				break;
+			}
+			int length = data.getInt(data.position());
+			if (length <= 0 || length > size - position - RECORD_HEADER) {
+				break;
+			}
+			data = fill(channel, data, position, RECORD_HEADER + length);
+			if (data.remaining() < RECORD_HEADER + length) {
+				break;
+			}
+			byte[] payload = new byte[length];
+			data.get(data.position() + RECORD_HEADER, payload);
+			if (crcOf(payload, 0, length) != data.getInt(data.position() + 4)) {
+				break;
+			}
+			snapshot = JournalCodec.decode(payload).applyTo(snapshot);
+			replayed++;
+			data.position(data.position() + RECORD_HEADER + length);
+			position += RECORD_HEADER + length;
+		}
+		// Cut off a record that was torn by a crash
+		channel.truncate(position);
+		channel.position(position);
+		deleteOlderGenerations(directory, generation);
+		return new OperationJournal(directory, durability, channel, generation, snapshot, replayed);
+	}
+
+	/**
+	 * @return The snapshot with all entries that were in the journal when it was
+	 *         opened
+	 */
+	public CalculatorSnapshot recovered() {
+		return recovered;
+	}
+
+	/**
+	 * @return The number of entries that were replayed on open
+	 */
+	public long replayed() {
+		return replayed;
+	}
+
+	public Durability durability() {
+		return durability;
+	}
+
+	/**
+	 * Adds the entry to the next group commit. The entry is not durable before
+	 * {@link #awaitDurable(long)} returned for its sequence number.
+	 *
+	 * @return The sequence number of the entry
+	 */
+	public long append(JournalEntry entry) throws IOException {
+		byte[] payload = JournalCodec.encode(entry);
+		int crc = crcOf(payload, 0, payload.length);
+		lock.lock();
+		try {
+			if (failure != null) {
+				throw failure;
+			}
+			ensureCapacity(RECORD_HEADER + payload.length);
+			ByteBuffer.wrap(pending, pendingSize, RECORD_HEADER).putInt(payload.length).putInt(crc);
+			System.arraycopy(payload, 0, pending, pendingSize + RECORD_HEADER, payload.length);
+			pendingSize += RECORD_HEADER + payload.length;
+			return ++appended;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until the entry with the given sequence number and all before it are
+	 * durable. Either commits the entries of all threads itself or waits for the
+	 * thread that does.
+	 */
+	public void awaitDurable(long sequence) throws IOException {
+		lock.lock();
+		try {
+			while (durable < sequence) {
+				if (failure != null) {
+					throw failure;
+				}
+				if (committing) {
+					committed.awaitUninterruptibly();
+				} else {
+					commitPending();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes the given snapshot, which has to contain all appended entries, and
+	 * starts a new generation of the journal. The caller has to make sure that no
+	 * entry is appended meanwhile.
+	 */
+	public void checkpoint(CalculatorSnapshot snapshot) throws IOException {
+		lock.lock();
+		try {
+			while (committing) {
+				committed.awaitUninterruptibly();
+			}
+			commitPending();
+			long next = generation + 1;
+			byte[] payload = EquationCodec.encode(snapshot);
+			ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_HEADER + payload.length);
+			buffer.putInt(MAGIC).putInt(VERSION).putLong(next).put(payload).flip();
+
+			Path snapshotPath = directory.resolve(SNAPSHOT);
+			Path temp = directory.resolve(SNAPSHOT + ".tmp");
+			try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				while (buffer.hasRemaining()) {
+					out.write(buffer);
+				}
+				out.force(true);
+			}
+			FileChannel nextChannel = openJournal(directory, next, true);
+			Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			channel.close();
+			channel = nextChannel;
+			generation = next;
+			deleteOlderGenerations(directory, next);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return The number of group commits, each one write call and at most one
+	 *         fsync
+	 */
+	public long groupCommits() {
+		lock.lock();
+		try {
+			return groupCommits;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return The number of entries appended since the journal was opened
+	 */
+	public long appended() {
+		lock.lock();
+		try {
+			return appended;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Commits the pending entries and closes the journal.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			awaitDurable(appended());
+		} finally {
+			lock.lock();
+			try {
+				channel.close();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	/**
+	 * Writes all pending entries. Called with the lock, which is released during
+	 * the IO so other threads can append the next group.
+	 */
+	private void commitPending() throws IOException {
+		if (pendingSize == 0) {
+			durable = appended;
+			return;
+		}
+		byte[] group = pending;
+		int size = pendingSize;
+		long target = appended;
+		pending = spare;
+		pendingSize = 0;
+		committing = true;
+		lock.unlock();
+		IOException error = null;
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(group, 0, size);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			if (durability == Durability.FSYNC) {
+				channel.force(false);
+			}
+		} catch (IOException e) {
+			error = e instanceof InterruptedIOException ? new IOException("Interrupted during commit", e) : e;
+		} finally {
+			lock.lock();
+			spare = group;
+			committing = false;
+			if (error == null) {
+				durable = Math.max(durable, target);
+				groupCommits++;
+			} else {
+				// The file may end with a partial group, nothing is durable any more
+				failure = error;
+			}
+			committed.signalAll();
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	private void ensureCapacity(int additional) {
+		if (pendingSize + additional > pending.length) {
+			pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingSize + additional));
+		}
+	}
+
+	/**
+	 * Makes sure that the buffer holds at least the given number of bytes,
+	 * starting with the byte at the given position of the file, by reading the
+	 * next chunk of the file. The buffer is only replaced by a larger one for a
+	 * record that does not fit.
+	 *
+	 * @return The buffer ready to read, with fewer bytes remaining only at the
+	 *         end of the file
+	 */
+	private static ByteBuffer fill(FileChannel channel, ByteBuffer buffer, long position, int needed) throws IOException {
+		if (buffer.remaining() >= needed) {
+			return buffer;
+		}
+		ByteBuffer target = buffer.capacity() < needed ? ByteBuffer.allocate(needed).put(buffer) : buffer.compact();
+		while (target.hasRemaining()) {
+			if (channel.read(target, position + target.position()) < 0) {
+				break;
+			}
+		}
+		return target.flip();
+	}
+
+	private static int crcOf(byte[] bytes, int offset, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, offset, length);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Opens the journal of the given generation and writes the header if it is
+	 * empty. A header that was torn by a crash while the journal was created is
+	 * cut off and written again, like a torn record.
+	 */
+	private static FileChannel openJournal(Path directory, long generation, boolean truncate) throws IOException {
+		FileChannel channel = truncate
+				? FileChannel.open(journalPath(directory, generation), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)
+				: FileChannel.open(journalPath(directory, generation), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if (channel.size() < JOURNAL_HEADER) {
+			channel.truncate(0);
+			ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER).putInt(MAGIC).putInt(VERSION).flip();
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+			channel.force(true);
+		}
+		channel.position(channel.size());
+		return channel;
+	}
+
+	private static Path journalPath(Path directory, long generation) {
+		return directory.resolve("journal-" + generation + ".log");
+	}
+
+	private static void deleteOlderGenerations(Path directory, long generation) throws IOException {
+		for (long older = generation - 1; older >= 0; older--) {
+			try {
+				Files.delete(journalPath(directory, older));
+			} catch (NoSuchFileException e) {
+				return;
+			}
+		}
+	}
+}
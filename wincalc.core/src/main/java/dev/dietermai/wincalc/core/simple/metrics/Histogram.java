@@ -0,0 +1,86 @@
+package dev.dietermai.wincalc.core.simple.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values with logarithmic buckets, like
+ * HdrHistogram with three significant bits: every power of two is split into
+ * eight buckets, so a bucket is at most 12.5% wide. Values of 2^40 and above,
+ * about 18 minutes in nanoseconds, are counted in the last bucket.
+ * <p>
+ * The counts are striped by the low bits of the thread id, so recording is one
+ * atomic add for the bucket and one for the sum, shared only with the threads
+ * whose ids map to the same stripe. Which threads share a stripe depends on
+ * their ids, not on their number, so two threads can contend even if there are
+ * fewer threads than stripes.
+ */
+public final class Histogram {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 40;
+	private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+	static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	/** The buckets of a stripe followed by the sum of its values */
+	private static final int STRIDE = BUCKETS + 1;
+	private static final int MAX_STRIPES = 8;
+	private static final int STRIPES = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+	private final AtomicLongArray counts = new AtomicLongArray(STRIPES * STRIDE);
+
+	/**
+	 * @param value The value to count, negative values are counted as 0
+	 */
+	public void record(long value) {
+		int stripe = (int) (Thread.currentThread().threadId() & (STRIPES - 1)) * STRIDE;
+		long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+		counts.getAndIncrement(stripe + bucket(clamped));
+		counts.getAndAdd(stripe + BUCKETS, clamped);
+	}
+
+	public HistogramSnapshot snapshot() {
+		long[] merged = new long[BUCKETS];
+		long sum = 0;
+		for (int stripe = 0; stripe < STRIPES * STRIDE; stripe += STRIDE) {
+			for (int i = 0; i < BUCKETS; i++) {
+				merged[i] += counts.get(stripe + i);
+			}
+			sum += counts.get(stripe + BUCKETS);
+		}
+		return new HistogramSnapshot(merged, sum);
+	}
+
+	/**
+	 * Sets all counts to 0. Values recorded at the same time may be lost.
+	 */
+	public void reset() {
+		for (int i = 0; i < counts.length(); i++) {
+			counts.set(i, 0);
+		}
+	}
+
+	/* ---------------------------- */
+	/* Bucket and value conversions */
+	/* ---------------------------- */
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @return The largest value that is counted in the bucket
+	 */
+	static long highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		long lowest = (SUB_BUCKETS + bucket % SUB_BUCKETS) * width;
+		return lowest + width - 1;
+	}
+}
@@ -0,0 +1,77 @@
+package dev.dietermai.wincalc.core.simple.metrics;
+
+/**
+ * The counts of a {@link Histogram} at one point in time. Percentiles and the
+ * maximum are the highest value of their bucket, so they are at most 12.5%
+ * above the recorded value. The mean is exact.
+ */
+public final class HistogramSnapshot {
+	private final long[] counts;
+	private final long count;
+	private final long sum;
+
+	HistogramSnapshot(long[] counts, long sum) {
+		this.counts = counts;
+		this.sum = sum;
+		long total = 0;
+		for (long bucketCount : counts) {
+			total += bucketCount;
+		}
+		this.count = total;
+	}
+
+	/**
+	 * @return The number of recorded values
+	 */
+	public long count() {
+		return count;
+	}
+
+	public long sum() {
+		return sum;
+	}
+
+	/**
+	 * @return The mean of the recorded values, or 0 if there are none
+	 */
+	public double mean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * @param percentile The percentile between 0 and 100
+	 * @return The value that the given percentage of the recorded values is at
+	 *         or below, or 0 if there are none
+	 */
+	public long percentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("A percentile is between 0 and 100: " + percentile);
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int bucket = 0; bucket < counts.length; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank) {
+				return Histogram.highestValue(bucket);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return The largest recorded value, or 0 if there are none
+	 */
+	public long max() {
+		for (int bucket = counts.length - 1; bucket >= 0; bucket--) {
+			if (counts[bucket] != 0) {
+				return Histogram.highestValue(bucket);
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public String toString() {
+		return "HistogramSnapshot[count=" + count + ", mean=" + mean() + ", p50=" + percentile(50) + ", p99=" + percentile(99) + ", max=" + max() + "]";
+	}
+}
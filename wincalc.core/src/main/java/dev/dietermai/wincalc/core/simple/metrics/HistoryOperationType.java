@@ -0,0 +1,10 @@
+package dev.dietermai.wincalc.core.simple.metrics;
+
+/**
+ * The operations of a SimpleCalculator on its memory and equation history,
+ * which are recorded next to the key presses of
+ * {@link dev.dietermai.wincalc.core.simple.model.OperationType}.
+ */
+public enum HistoryOperationType {
+	ms, mc, mPlus, mMinus, mr, add, deleteEquation, clearEquationHistory;
+}
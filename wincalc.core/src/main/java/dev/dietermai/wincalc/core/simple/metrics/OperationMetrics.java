@@ -0,0 +1,286 @@
+package dev.dietermai.wincalc.core.simple.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+
+/**
+ * Latencies, errors and operand sizes of calculator operations, the key
+ * presses of {@link OperationType} and the operations on the memory and
+ * equation history of {@link HistoryOperationType}. The
+ * {@link #shared()} instance is the one every SimpleCalculator records to and
+ * the one {@link #registerMBean()} publishes as {@value #OBJECT_NAME}.
+ * <p>
+ * Recording is disabled until {@link #setEnabled(boolean)} is called, here or
+ * over JMX. A disabled registry costs one volatile read per operation.
+ * Operations and errors are always counted, but only every n-th operation on
+ * average is timed and has its operand measured, as reading the clock twice
+ * costs more than the rest of the recording.
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+	public static final String OBJECT_NAME = "dev.dietermai.wincalc:type=OperationMetrics";
+
+	public static final int DEFAULT_SAMPLE_INTERVAL = 8;
+
+	/** Returned by {@link #start()} while disabled */
+	private static final long NOT_STARTED = Long.MIN_VALUE;
+	/** Returned by {@link #start()} for an operation that is not timed */
+	private static final long NOT_TIMED = Long.MIN_VALUE + 1;
+	/** The history operations are counted after the key presses */
+	private static final int HISTORY_OFFSET = OperationType.values().length;
+	private static final OperationMetrics SHARED = new OperationMetrics();
+
+	private final LongAdder[] counts = new LongAdder[HISTORY_OFFSET + HistoryOperationType.values().length];
+	private final Histogram[] latencies = new Histogram[counts.length];
+	private final LongAdder[] errors = new LongAdder[ResultType.values().length];
+	private final Histogram operandDigits = new Histogram();
+	private volatile boolean enabled;
+	private volatile int sampleInterval = DEFAULT_SAMPLE_INTERVAL;
+
+	public OperationMetrics() {
+		for (int i = 0; i < latencies.length; i++) {
+			counts[i] = new LongAdder();
+			latencies[i] = new Histogram();
+		}
+		for (int i = 0; i < errors.length; i++) {
+			errors[i] = new LongAdder();
+		}
+	}
+
+	public static OperationMetrics shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Registers the shared instance with the platform MBean server, unless it is
+	 * already registered.
+	 */
+	public static void registerMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(SHARED, name);
+			}
+		} catch (InstanceAlreadyExistsException e) {
+			// Registered by another thread in the meantime
+		} catch (JMException e) {
+			throw new IllegalStateException("Can't register " + OBJECT_NAME, e);
+		}
+	}
+
+	/* --------- */
+	/* Recording */
+	/* --------- */
+	/**
+	 * @return The start of an operation, to be passed to
+	 *         {@link #record(OperationType, long, ResultType)} or
+	 *         {@link #record(HistoryOperationType, long)}
+	 */
+	public long start() {
+		if (!enabled) {
+			return NOT_STARTED;
+		}
+		int interval = sampleInterval;
+		return interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0 ? System.nanoTime() : NOT_TIMED;
+	}
+
+	/**
+	 * Records an operation, unless recording was disabled when it started.
+	 *
+	 * @param type   The operation
+	 * @param start  The value {@link #start()} returned before the operation
+	 * @param result The result type of the state after the operation
+	 */
+	public void record(OperationType type, long start, ResultType result) {
+		if (start == NOT_STARTED) {
+			return;
+		}
+		count(type.ordinal(), start);
+		if (result.error()) {
+			errors[result.ordinal()].increment();
+		}
+	}
+
+	/**
+	 * Records an operation on the memory or equation history, unless recording
+	 * was disabled when it started.
+	 *
+	 * @param type  The operation
+	 * @param start The value {@link #start()} returned before the operation
+	 */
+	public void record(HistoryOperationType type, long start) {
+		if (start == NOT_STARTED) {
+			return;
+		}
+		count(HISTORY_OFFSET + type.ordinal(), start);
+	}
+
+	/**
+	 * Records the number of digits of an entered number, if its operation is
+	 * timed.
+	 *
+	 * @param start  The value {@link #start()} returned before the operation
+	 * @param number The entered number
+	 */
+	public void recordOperand(long start, String number) {
+		if (start == NOT_STARTED || start == NOT_TIMED) {
+			return;
+		}
+		int digits = 0;
+		for (int i = 0; i < number.length(); i++) {
+			char c = number.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits++;
+			}
+		}
+		operandDigits.record(digits);
+	}
+
+	public OperationMetricsSnapshot snapshot() {
+		Map<OperationType, Long> operationCounts = new EnumMap<>(OperationType.class);
+		Map<OperationType, HistogramSnapshot> latencySnapshots = new EnumMap<>(OperationType.class);
+		for (OperationType type : OperationType.values()) {
+			operationCounts.put(type, counts[type.ordinal()].sum());
+			latencySnapshots.put(type, latencies[type.ordinal()].snapshot());
+		}
+		Map<HistoryOperationType, Long> historyCounts = new EnumMap<>(HistoryOperationType.class);
+		Map<HistoryOperationType, HistogramSnapshot> historyLatencies = new EnumMap<>(HistoryOperationType.class);
+		for (HistoryOperationType type : HistoryOperationType.values()) {
+			historyCounts.put(type, counts[HISTORY_OFFSET + type.ordinal()].sum());
+			historyLatencies.put(type, latencies[HISTORY_OFFSET + type.ordinal()].snapshot());
+		}
+		Map<ResultType, Long> errorCounts = new EnumMap<>(ResultType.class);
+		for (ResultType type : ResultType.values()) {
+			if (type.error()) {
+				errorCounts.put(type, errors[type.ordinal()].sum());
+			}
+		}
+		return new OperationMetricsSnapshot(Map.copyOf(operationCounts), Map.copyOf(latencySnapshots), Map.copyOf(historyCounts), Map.copyOf(historyLatencies),
+				Map.copyOf(errorCounts), operandDigits.snapshot());
+	}
+
+	/* -------- */
+	/* JMX view */
+	/* -------- */
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public int getSampleInterval() {
+		return sampleInterval;
+	}
+
+	/**
+	 * @param sampleInterval Time one in that many operations on average, 1 to
+	 *                       time every operation
+	 */
+	@Override
+	public void setSampleInterval(int sampleInterval) {
+		if (sampleInterval < 1) {
+			throw new IllegalArgumentException("The sample interval has to be positive: " + sampleInterval);
+		}
+		this.sampleInterval = sampleInterval;
+	}
+
+	@Override
+	public Map<String, Long> getOperationCounts() {
+		Map<String, Long> values = new LinkedHashMap<>();
+		for (OperationType type : OperationType.values()) {
+			values.put(type.name(), counts[type.ordinal()].sum());
+		}
+		for (HistoryOperationType type : HistoryOperationType.values()) {
+			values.put(type.name(), counts[HISTORY_OFFSET + type.ordinal()].sum());
+		}
+		return values;
+	}
+
+	@Override
+	public Map<String, Long> getErrorCounts() {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		snapshot().errors().forEach((type, count) -> counts.put(type.name(), count));
+		return counts;
+	}
+
+	@Override
+	public Map<String, Double> getMeanLatencyNanos() {
+		return perOperation(HistogramSnapshot::mean);
+	}
+
+	@Override
+	public Map<String, Long> getMedianLatencyNanos() {
+		return perOperation(latency -> latency.percentile(50));
+	}
+
+	@Override
+	public Map<String, Long> getP99LatencyNanos() {
+		return perOperation(latency -> latency.percentile(99));
+	}
+
+	@Override
+	public Map<String, Long> getMaxLatencyNanos() {
+		return perOperation(HistogramSnapshot::max);
+	}
+
+	@Override
+	public double getMeanOperandDigits() {
+		return operandDigits.snapshot().mean();
+	}
+
+	@Override
+	public long getMaxOperandDigits() {
+		return operandDigits.snapshot().max();
+	}
+
+	/**
+	 * Sets all counts to 0, operations recorded at the same time may be lost.
+	 */
+	@Override
+	public void reset() {
+		for (int i = 0; i < latencies.length; i++) {
+			counts[i].reset();
+			latencies[i].reset();
+		}
+		for (LongAdder error : errors) {
+			error.reset();
+		}
+		operandDigits.reset();
+	}
+
+	private <T> Map<String, T> perOperation(Function<HistogramSnapshot, T> value) {
+		Map<String, T> values = new LinkedHashMap<>();
+		for (OperationType type : OperationType.values()) {
+			values.put(type.name(), value.apply(latencies[type.ordinal()].snapshot()));
+		}
+		for (HistoryOperationType type : HistoryOperationType.values()) {
+			values.put(type.name(), value.apply(latencies[HISTORY_OFFSET + type.ordinal()].snapshot()));
+		}
+		return values;
+	}
+
+	private void count(int index, long start) {
+		counts[index].increment();
+		if (start != NOT_TIMED) {
+			latencies[index].record(System.nanoTime() - start);
+		}
+	}
+}
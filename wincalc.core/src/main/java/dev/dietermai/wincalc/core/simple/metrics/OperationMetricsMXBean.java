@@ -0,0 +1,37 @@
+package dev.dietermai.wincalc.core.simple.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link OperationMetrics}. The maps are keyed by the name of
+ * the operation or error, key presses first and memory and equation history
+ * operations after them. Latencies are in nanoseconds.
+ */
+public interface OperationMetricsMXBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	int getSampleInterval();
+
+	void setSampleInterval(int sampleInterval);
+
+	Map<String, Long> getOperationCounts();
+
+	Map<String, Long> getErrorCounts();
+
+	Map<String, Double> getMeanLatencyNanos();
+
+	Map<String, Long> getMedianLatencyNanos();
+
+	Map<String, Long> getP99LatencyNanos();
+
+	Map<String, Long> getMaxLatencyNanos();
+
+	double getMeanOperandDigits();
+
+	long getMaxOperandDigits();
+
+	void reset();
+}
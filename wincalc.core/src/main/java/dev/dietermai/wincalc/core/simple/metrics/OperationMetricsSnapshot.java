@@ -0,0 +1,41 @@
+package dev.dietermai.wincalc.core.simple.metrics;
+
+import java.util.Map;
+
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+
+/**
+ * The recorded operations of an {@link OperationMetrics} at one point in time.
+ *
+ * @param counts           The number of operations
+ * @param latencies        The latency in nanoseconds of the timed operations
+ * @param historyCounts    The number of memory and equation history operations
+ * @param historyLatencies The latency in nanoseconds of the timed memory and
+ *                         equation history operations
+ * @param errors           The operations that ended in an error, per error
+ * @param operandDigits    The digits of the numbers entered by timed operations
+ */
+public record OperationMetricsSnapshot(Map<OperationType, Long> counts, Map<OperationType, HistogramSnapshot> latencies,
+		Map<HistoryOperationType, Long> historyCounts, Map<HistoryOperationType, HistogramSnapshot> historyLatencies, Map<ResultType, Long> errors,
+		HistogramSnapshot operandDigits) {
+
+	/**
+	 * @return The number of recorded operations of the given type
+	 */
+	public long count(OperationType type) {
+		return counts.getOrDefault(type, 0L);
+	}
+
+	/**
+	 * @return The number of recorded memory or equation history operations of
+	 *         the given type
+	 */
+	public long count(HistoryOperationType type) {
+		return historyCounts.getOrDefault(type, 0L);
+	}
+
+	public long errors(ResultType type) {
+		return errors.getOrDefault(type, 0L);
+	}
+}
@@ -0,0 +1,24 @@
+package dev.dietermai.wincalc.core.simple.model;
+
+import java.util.List;
+
+/**
+ * The outcome of one evaluated operation sequence: the final calculator state
+ * and the equation history, newest equation first. If an operation threw, the
+ * sequence stops there: the state and history are those before that operation
+ * and failure is the exception it threw.
+ */
+public record BatchResult(SimpleCalculatorRecord state, List<Equation> equations, RuntimeException failure) {
+
+	public static BatchResult of(SimpleCalculatorRecord state, List<Equation> equations) {
+		return new BatchResult(state, equations, null);
+	}
+
+	public static BatchResult ofFailure(SimpleCalculatorRecord state, List<Equation> equations, RuntimeException failure) {
+		return new BatchResult(state, equations, failure);
+	}
+
+	public boolean failed() {
+		return failure != null;
+	}
+}
@@ -40,6 +40,10 @@ public record BinaryExpression(Expression left, BiOperator operator, Expression
 		return new BinaryExpression(NumberExpression.of(left), operator, DEFAULT_RIGHT_EXPRESSION);
 	}
 
+	public static BinaryExpression of(Expression left, BiOperator operator) {
+		return new BinaryExpression(left, operator, DEFAULT_RIGHT_EXPRESSION);
+	}
+
 	/* ----------------- */
 	/* Withers one field */
 	/* ----------------- */
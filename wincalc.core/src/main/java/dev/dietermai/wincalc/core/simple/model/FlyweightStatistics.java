@@ -0,0 +1,30 @@
+package dev.dietermai.wincalc.core.simple.model;
+
+/**
+ * Snapshot of the flyweight counters. A hit is a factory call that returned a
+ * shared instance, a miss is a call that created a new one.
+ *
+ * @param savedBytes Estimate of the allocation saved by the hits, based on the
+ *                   shallow size of the records with compressed references.
+ *                   Numbers parsed without a BigDecimal also count the saved
+ *                   BigDecimal.
+ */
+public record FlyweightStatistics(long numberHits, long numberMisses, long resultHits, long resultMisses, long unaryHits, long unaryMisses, long savedBytes) {
+
+	public long hits() {
+		return numberHits + resultHits + unaryHits;
+	}
+
+	public long misses() {
+		return numberMisses + resultMisses + unaryMisses;
+	}
+
+	/**
+	 * @return The share of factory calls that returned a shared instance, or 0
+	 *         if nothing was counted
+	 */
+	public double hitRate() {
+		long total = hits() + misses();
+		return total == 0 ? 0 : (double) hits() / total;
+	}
+}
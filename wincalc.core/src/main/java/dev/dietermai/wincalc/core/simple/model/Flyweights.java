@@ -0,0 +1,273 @@
+package dev.dietermai.wincalc.core.simple.model;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared instances for the model records of common values. The factory methods
+ * of {@link NumberExpression}, {@link Result} and {@link UnaryExpression}
+ * return the same instance for all integers in a configurable range. Values
+ * outside of the range can be shared through a bounded cache that only holds
+ * weak references.
+ * <p>
+ * Configured once at startup with system properties:
+ * <ul>
+ * <li>{@value #LOW_PROPERTY}: smallest shared integer, default
+ * {@value #DEFAULT_LOW}</li>
+ * <li>{@value #HIGH_PROPERTY}: largest shared integer, default
+ * {@value #DEFAULT_HIGH}</li>
+ * <li>{@value #CACHE_SIZE_PROPERTY}: entries of the weak cache for all other
+ * values, default 0. Every miss of that cache allocates more than a record, so
+ * it only pays off if values outside of the range repeat a lot.</li>
+ * <li>{@value #STATISTICS_PROPERTY}: count hits and misses, default false</li>
+ * </ul>
+ * Since the records are compared by value, sharing is invisible to the
+ * calculator. Code that relies on the identity of an expression has to create
+ * it with the record constructor.
+ */
+public final class Flyweights {
+	public static final String LOW_PROPERTY = "dev.dietermai.wincalc.flyweight.low";
+	public static final String HIGH_PROPERTY = "dev.dietermai.wincalc.flyweight.high";
+	public static final String CACHE_SIZE_PROPERTY = "dev.dietermai.wincalc.flyweight.cacheSize";
+	public static final String STATISTICS_PROPERTY = "dev.dietermai.wincalc.flyweight.statistics";
+
+	static final int DEFAULT_LOW = -128;
+	static final int DEFAULT_HIGH = 1024;
+
+	/** Shallow sizes with compressed references */
+	private static final int NUMBER_EXPRESSION_BYTES = 16;
+	private static final int RESULT_BYTES = 24;
+	private static final int UNARY_EXPRESSION_BYTES = 24;
+	private static final int BIG_DECIMAL_BYTES = 40;
+
+	private static final int LOW = Integer.getInteger(LOW_PROPERTY, DEFAULT_LOW);
+	private static final int HIGH = Math.max(LOW, Integer.getInteger(HIGH_PROPERTY, DEFAULT_HIGH));
+	private static final int CACHE_SIZE = Integer.getInteger(CACHE_SIZE_PROPERTY, 0);
+	private static final boolean STATISTICS = Boolean.getBoolean(STATISTICS_PROPERTY);
+	private static final int NOT_SMALL = Integer.MIN_VALUE;
+
+	private static final NumberExpression[] NUMBERS = new NumberExpression[HIGH - LOW + 1];
+	private static final Result[] RESULTS = new Result[HIGH - LOW + 1];
+	private static final UnaryExpression[][] UNARIES = new UnaryExpression[UnaryOperator.values().length][HIGH - LOW + 1];
+	private static final WeakCache<BigDecimal, NumberExpression> NUMBER_CACHE = new WeakCache<>(CACHE_SIZE);
+	private static final WeakCache<BigDecimal, Result> RESULT_CACHE = new WeakCache<>(CACHE_SIZE);
+
+	private static final LongAdder NUMBER_HITS = new LongAdder();
+	private static final LongAdder NUMBER_MISSES = new LongAdder();
+	private static final LongAdder PARSES_AVOIDED = new LongAdder();
+	private static final LongAdder RESULT_HITS = new LongAdder();
+	private static final LongAdder RESULT_MISSES = new LongAdder();
+	private static final LongAdder UNARY_HITS = new LongAdder();
+	private static final LongAdder UNARY_MISSES = new LongAdder();
+
+	// Last, creating the error results may initialize Result, which uses the fields above
+	private static final Result[] ERRORS = errors();
+
+	private Flyweights() {
+	}
+
+	/* ------------------------------------------------- */
+	/* Factories, used by the factory methods of records */
+	/* ------------------------------------------------- */
+	static NumberExpression number(BigDecimal value) {
+		int index = index(value);
+		if (index != NOT_SMALL) {
+			return sharedNumber(index, value);
+		}
+		NumberExpression cached = NUMBER_CACHE.get(value);
+		if (cached != null) {
+			count(NUMBER_HITS);
+			return cached;
+		}
+		count(NUMBER_MISSES);
+		return NUMBER_CACHE.put(value, new NumberExpression(value));
+	}
+
+	static NumberExpression number(String value) {
+		int small = parseSmall(value);
+		if (small != NOT_SMALL) {
+			count(PARSES_AVOIDED);
+			return sharedNumber(small - LOW, null);
+		}
+		return number(new BigDecimal(value));
+	}
+
+	static Result result(BigDecimal value) {
+		int index = index(value);
+		if (index != NOT_SMALL) {
+			Result shared = RESULTS[index];
+			if (shared == null) {
+				count(RESULT_MISSES);
+				shared = new Result(sharedNumber(index, value).value(), ResultType.OK);
+				RESULTS[index] = shared;
+			} else {
+				count(RESULT_HITS);
+			}
+			return shared;
+		}
+		Result cached = RESULT_CACHE.get(value);
+		if (cached != null) {
+			count(RESULT_HITS);
+			return cached;
+		}
+		count(RESULT_MISSES);
+		return RESULT_CACHE.put(value, new Result(value, ResultType.OK));
+	}
+
+	static Result result(ResultType type) {
+		return ERRORS[type.ordinal()];
+	}
+
+	static UnaryExpression unary(UnaryOperator operator, NumberExpression nested) {
+		int index = index(nested.value());
+		if (index == NOT_SMALL || NUMBERS[index] != nested) {
+			count(UNARY_MISSES);
+			return new UnaryExpression(operator, nested);
+		}
+		UnaryExpression[] unaries = UNARIES[operator.ordinal()];
+		UnaryExpression shared = unaries[index];
+		if (shared == null) {
+			count(UNARY_MISSES);
+			shared = new UnaryExpression(operator, nested);
+			unaries[index] = shared;
+		} else {
+			count(UNARY_HITS);
+		}
+		return shared;
+	}
+
+	/* ---------- */
+	/* Statistics */
+	/* ---------- */
+	/**
+	 * @return The hits and misses since the last reset. Only counted if
+	 *         {@value #STATISTICS_PROPERTY} is set.
+	 */
+	public static FlyweightStatistics statistics() {
+		long numberHits = NUMBER_HITS.sum();
+		long parsesAvoided = PARSES_AVOIDED.sum();
+		long resultHits = RESULT_HITS.sum();
+		long unaryHits = UNARY_HITS.sum();
+		long savedBytes = (numberHits + parsesAvoided) * NUMBER_EXPRESSION_BYTES //
+				+ parsesAvoided * BIG_DECIMAL_BYTES //
+				+ resultHits * RESULT_BYTES //
+				+ unaryHits * UNARY_EXPRESSION_BYTES;
+		return new FlyweightStatistics(numberHits + parsesAvoided, NUMBER_MISSES.sum(), resultHits, RESULT_MISSES.sum(), unaryHits, UNARY_MISSES.sum(), savedBytes);
+	}
+
+	public static void resetStatistics() {
+		for (LongAdder adder : new LongAdder[] { NUMBER_HITS, NUMBER_MISSES, PARSES_AVOIDED, RESULT_HITS, RESULT_MISSES, UNARY_HITS, UNARY_MISSES }) {
+			adder.reset();
+		}
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private static NumberExpression sharedNumber(int index, BigDecimal value) {
+		NumberExpression shared = NUMBERS[index];
+		if (shared == null) {
+			count(NUMBER_MISSES);
+			// Racy but safe, records only have final fields
+			shared = new NumberExpression(value != null ? value : BigDecimal.valueOf(index + LOW));
+			NUMBERS[index] = shared;
+		} else if (value != null) {
+			count(NUMBER_HITS);
+		}
+		return shared;
+	}
+
+	/**
+	 * @return The index into the shared arrays, or NOT_SMALL if the value is not
+	 *         an integer with scale 0 in the shared range
+	 */
+	private static int index(BigDecimal value) {
+		if (value == null || value.scale() != 0 || value.precision() > 10) {
+			return NOT_SMALL;
+		}
+		long longValue = value.longValue();
+		return longValue >= LOW && longValue <= HIGH ? (int) (longValue - LOW) : NOT_SMALL;
+	}
+
+	/**
+	 * Parses integers with up to 4 digits without creating a BigDecimal.
+	 *
+	 * @return The value, or NOT_SMALL if the input is not such an integer or not
+	 *         in the shared range
+	 */
+	private static int parseSmall(String value) {
+		int length = value.length();
+		int start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+		if (length == start || length - start > 4) {
+			return NOT_SMALL;
+		}
+		int result = 0;
+		for (int i = start; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return NOT_SMALL;
+			}
+			result = result * 10 + (c - '0');
+		}
+		result = start == 1 ? -result : result;
+		return result >= LOW && result <= HIGH ? result : NOT_SMALL;
+	}
+
+	private static void count(LongAdder adder) {
+		if (STATISTICS) {
+			adder.increment();
+		}
+	}
+
+	private static Result[] errors() {
+		ResultType[] types = ResultType.values();
+		Result[] errors = new Result[types.length];
+		for (ResultType type : types) {
+			errors[type.ordinal()] = new Result(null, type);
+		}
+		return errors;
+	}
+
+	/**
+	 * A bounded LRU cache whose values are only weakly referenced, so a cached
+	 * record does not outlive its last user.
+	 */
+	private static final class WeakCache<K, V> {
+		private final int maxSize;
+		private final Map<K, WeakReference<V>> map;
+
+		WeakCache(int maxSize) {
+			this.maxSize = maxSize;
+			this.map = new LinkedHashMap<>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<K, WeakReference<V>> eldest) {
+					return size() > maxSize;
+				}
+			};
+		}
+
+		V get(K key) {
+			if (maxSize == 0) {
+				return null;
+			}
+			synchronized (map) {
+				WeakReference<V> reference = map.get(key);
+				return reference != null ? reference.get() : null;
+			}
+		}
+
+		V put(K key, V value) {
+			if (maxSize > 0) {
+				synchronized (map) {
+					map.put(key, new WeakReference<>(value));
+				}
+			}
+			return value;
+		}
+	}
+}
@@ -8,11 +8,14 @@ import java.math.BigDecimal;
 public record NumberExpression(BigDecimal value) implements Expression {
 	public static final NumberExpression ZERO = of(BigDecimal.ZERO);
 	
+	/**
+	 * @return A shared instance for common values, see {@link Flyweights}
+	 */
 	public static NumberExpression of(BigDecimal value) {
-		return new NumberExpression(value);
+		return Flyweights.number(value);
 	}
 	
 	public static NumberExpression of(String value) {
-		return of(new BigDecimal(value));
+		return Flyweights.number(value);
 	}
 }
@@ -0,0 +1,18 @@
+package dev.dietermai.wincalc.core.simple.model;
+
+/**
+ * A single key press of the simple calculator. Only operations of type
+ * {@link OperationType#number} have an input, for all other types the input is
+ * null.
+ */
+public record Operation(OperationType type, String input) {
+	private static final String DEFAULT_INPUT = null;
+
+	public static Operation of(OperationType type) {
+		return new Operation(type, DEFAULT_INPUT);
+	}
+
+	public static Operation number(String input) {
+		return new Operation(OperationType.number, input);
+	}
+}
@@ -0,0 +1,16 @@
+package dev.dietermai.wincalc.core.simple.model;
+
+/**
+ * The key presses that change the state of the simple calculator.
+ */
+public enum OperationType {
+	number, resolve, plus, minus, multiply, divide, negate, percent, square, root, oneDivX, ce, c;
+
+	/**
+	 * @return true if the equation of the resulting state is added to the
+	 *         equation history
+	 */
+	public boolean addsEquation() {
+		return this != ce && this != c;
+	}
+}
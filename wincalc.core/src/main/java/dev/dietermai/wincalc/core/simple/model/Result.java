@@ -10,12 +10,18 @@ import java.math.BigDecimal;
 public record Result(BigDecimal value, ResultType type) {
 	public static final Result ZERO = of(BigDecimal.ZERO);
 
+	/**
+	 * @return A shared instance for common values, see {@link Flyweights}
+	 */
 	public static Result of(BigDecimal value) {
-		return new Result(value, ResultType.OK);
+		return Flyweights.result(value);
 	}
 
+	/**
+	 * @return The shared instance of the given type
+	 */
 	public static Result of(ResultType type) {
-		return new Result(null, type);
+		return Flyweights.result(type);
 	}
 
 	public boolean error() {
@@ -4,7 +4,9 @@ package dev.dietermai.wincalc.core.simple.model;
  * The ResultType of an resolved Expression.
  */
 public enum ResultType {
-	OK, DIVIDE_BY_ZERO, UNDEFINED, INVALID_INPUT;
+	OK, DIVIDE_BY_ZERO, UNDEFINED, INVALID_INPUT,
+	/** The result is beyond the magnitude ceiling of the precision policy */
+	OVERFLOW;
 
 	public boolean ok() {
 		return this == OK;
@@ -7,14 +7,21 @@ import java.math.BigDecimal;
  */
 public final record UnaryExpression(UnaryOperator operator, Expression nested) implements Expression {
 	public static UnaryExpression of(UnaryOperator operator, BigDecimal value) {
-		return new UnaryExpression(operator, NumberExpression.of(value));
+		return of(operator, NumberExpression.of(value));
 	}
 
 	public static UnaryExpression of(UnaryOperator operator, String value) {
-		return new UnaryExpression(operator, NumberExpression.of(value));
+		return of(operator, NumberExpression.of(value));
 	}
 
+	/**
+	 * @return A shared instance if nested is a shared number, see
+	 *         {@link Flyweights}
+	 */
 	public static UnaryExpression of(UnaryOperator operator, Expression nested) {
+		if (nested instanceof NumberExpression number) {
+			return Flyweights.unary(operator, number);
+		}
 		return new UnaryExpression(operator, nested);
 	}
 }
@@ -0,0 +1,329 @@
+package dev.dietermai.wincalc.core.simple.session;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+import dev.dietermai.wincalc.core.simple.CalculatorSnapshot;
+
+/**
+ * Hosts many calculator sessions, each one a {@link CalculatorSnapshot} with
+ * the calculator state and both histories, under a heap budget. When the
+ * estimated size of all sessions on the heap exceeds the budget, the least
+ * recently used sessions are written to a {@link SessionStore} and dropped
+ * from the heap. Sessions that were not used for longer than the maximum idle
+ * time are passivated as well. The next access to a passivated session loads
+ * it again, which is invisible to the caller apart from the latency.
+ * <p>
+ * Eviction runs on the thread that accessed a session, and on
+ * {@link #evictIdle()} for callers that want to drop idle sessions without an
+ * access. A session that can not be written to the store stays on the heap
+ * and is counted in {@link SessionPoolStatistics#passivationFailures()}, the
+ * access that triggered the eviction does not fail. Since the store is a
+ * directory, sessions that were passivated by {@link #close()} are found
+ * again by a new pool on the same directory.
+ * <p>
+ * Thread safe. Accesses to the same session are serialized, accesses to
+ * different sessions run in parallel.
+ */
+public class CalculatorSessionPool implements AutoCloseable {
+	/** Rough shallow sizes with compressed references */
+	private static final long SESSION_BYTES = 256;
+	private static final long EQUATION_BYTES = 192;
+	private static final long MEMORY_VALUE_BYTES = 48;
+
+	private final SessionStore store;
+	private final long heapBudget;
+	private final long maxIdleNanos;
+
+	/** All sessions that have a Session object, resident or not loaded yet */
+	private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+	/** The resident sessions, least recently used first. Guarded by itself. */
+	private final LinkedHashMap<String, Session> lru = new LinkedHashMap<>(16, 0.75f, true);
+	/** Guarded by lru */
+	private long residentBytes;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder creations = new LongAdder();
+	private final LongAdder reloads = new LongAdder();
+	private final LongAdder passivations = new LongAdder();
+	private final LongAdder passivationFailures = new LongAdder();
+	private final LongAdder reloadNanos = new LongAdder();
+	private final LongAccumulator maxReloadNanos = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Lock order: a Session before lru, never the other way around.
+	 */
+	private static final class Session {
+		final String id;
+		/** null if not loaded yet */
+		CalculatorSnapshot snapshot;
+		long estimatedBytes;
+		volatile long lastAccess;
+		/** true once removed from sessions, a new Session has to be used */
+		boolean detached;
+
+		Session(String id) {
+			this.id = id;
+		}
+	}
+
+	/**
+	 * @param store      Where passivated sessions are written to
+	 * @param heapBudget The estimated heap size of all resident sessions that
+	 *                   triggers passivation, in bytes
+	 * @param maxIdle    The time after which an unused session is passivated
+	 */
+	public CalculatorSessionPool(SessionStore store, long heapBudget, Duration maxIdle) {
+		this.store = store;
+		this.heapBudget = heapBudget;
+		this.maxIdleNanos = maxIdle.toNanos();
+	}
+
+	/**
+	 * @return The current snapshot of the session, a new session is created if
+	 *         the id is unknown
+	 */
+	public CalculatorSnapshot get(String id) {
+		return update(id, UnaryOperator.identity());
+	}
+
+	/**
+	 * Replaces the snapshot of the session with the result of the given
+	 * transition. Other accesses to the session wait until it is done.
+	 *
+	 * @param transition The function from the current to the next snapshot
+	 * @return The installed snapshot
+	 * @throws UncheckedIOException If a passivated session can not be loaded
+	 */
+	public CalculatorSnapshot update(String id, UnaryOperator<CalculatorSnapshot> transition) {
+		// The session itself is never idle for this access
+		long now = System.nanoTime();
+		CalculatorSnapshot result;
+		while (true) {
+			Session session = sessions.computeIfAbsent(id, Session::new);
+			synchronized (session) {
+				if (session.detached) {
+					continue;
+				}
+				if (session.snapshot == null) {
+					session.snapshot = load(id);
+				} else {
+					hits.increment();
+				}
+				try {
+					result = transition.apply(session.snapshot);
+					session.snapshot = result;
+				} finally {
+					touch(session);
+				}
+			}
+			break;
+		}
+		evict(now);
+		return result;
+	}
+
+	/**
+	 * Removes the session from the heap and from the store.
+	 *
+	 * @return true if the session existed
+	 */
+	public boolean remove(String id) {
+		while (true) {
+			Session session = sessions.computeIfAbsent(id, Session::new);
+			synchronized (session) {
+				if (session.detached) {
+					continue;
+				}
+				detach(session);
+				boolean existed = untrack(session);
+				try {
+					return store.delete(id) || existed;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Passivates all sessions that were not used for longer than the maximum
+	 * idle time.
+	 */
+	public void evictIdle() {
+		evict(System.nanoTime());
+	}
+
+	public SessionPoolStatistics statistics() {
+		long resident;
+		long bytes;
+		synchronized (lru) {
+			resident = lru.size();
+			bytes = residentBytes;
+		}
+		return new SessionPoolStatistics(hits.sum(), creations.sum(), reloads.sum(), passivations.sum(), passivationFailures.sum(), reloadNanos.sum(),
+				maxReloadNanos.get(), resident, bytes, store.sessionCount(), store.bytesOnDisk());
+	}
+
+	/**
+	 * Passivates all resident sessions.
+	 *
+	 * @throws UncheckedIOException If a session can not be written to the store,
+	 *                              it stays on the heap
+	 */
+	@Override
+	public void close() {
+		List<Session> resident;
+		synchronized (lru) {
+			resident = new ArrayList<>(lru.values());
+			lru.clear();
+		}
+		IOException failure = null;
+		for (Session session : resident) {
+			try {
+				passivate(session);
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private CalculatorSnapshot load(String id) {
+		if (!store.contains(id)) {
+			creations.increment();
+			return CalculatorSnapshot.of();
+		}
+		long start = System.nanoTime();
+		try {
+			CalculatorSnapshot snapshot = store.read(id);
+			store.delete(id);
+			long elapsed = System.nanoTime() - start;
+			reloads.increment();
+			reloadNanos.add(elapsed);
+			maxReloadNanos.accumulate(elapsed);
+			return snapshot;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Marks the session as most recently used and updates its size. Called with
+	 * the lock of the session.
+	 */
+	private void touch(Session session) {
+		long bytes = estimateBytes(session.snapshot);
+		session.lastAccess = System.nanoTime();
+		synchronized (lru) {
+			lru.put(session.id, session);
+			residentBytes += bytes - session.estimatedBytes;
+		}
+		session.estimatedBytes = bytes;
+	}
+
+	/**
+	 * Drops the session from the resident ones. Called with the lock of the
+	 * session.
+	 *
+	 * @return true if the session was resident
+	 */
+	private boolean untrack(Session session) {
+		synchronized (lru) {
+			lru.remove(session.id, session);
+			residentBytes -= session.estimatedBytes;
+		}
+		session.estimatedBytes = 0;
+		return session.snapshot != null;
+	}
+
+	/**
+	 * Called with the lock of the session.
+	 */
+	private void detach(Session session) {
+		session.detached = true;
+		sessions.remove(session.id, session);
+	}
+
+	/**
+	 * Passivates least recently used sessions until the budget is met and no
+	 * idle session is left. Stops at the first session that can not be written,
+	 * the next eviction tries again.
+	 */
+	private void evict(long now) {
+		while (true) {
+			Session victim;
+			synchronized (lru) {
+				Iterator<Session> eldest = lru.values().iterator();
+				if (!eldest.hasNext()) {
+					return;
+				}
+				victim = eldest.next();
+				if (residentBytes <= heapBudget && now - victim.lastAccess <= maxIdleNanos) {
+					return;
+				}
+				eldest.remove();
+			}
+			try {
+				passivate(victim);
+			} catch (IOException e) {
+				// The caller's own access already took effect, do not fail it
+				passivationFailures.increment();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Writes the session to the store unless it was used again since it was
+	 * taken out of the resident sessions.
+	 *
+	 * @throws IOException If the session can not be written, it is resident
+	 *                     again
+	 */
+	private void passivate(Session session) throws IOException {
+		synchronized (session) {
+			synchronized (lru) {
+				if (session.detached || session.snapshot == null || lru.containsKey(session.id)) {
+					return;
+				}
+			}
+			try {
+				store.write(session.id, session.snapshot);
+			} catch (IOException e) {
+				// Keep it on the heap, the next eviction tries again
+				synchronized (lru) {
+					lru.put(session.id, session);
+				}
+				throw e;
+			}
+			untrack(session);
+			detach(session);
+			passivations.increment();
+		}
+	}
+
+	private static long estimateBytes(CalculatorSnapshot snapshot) {
+		return SESSION_BYTES + snapshot.equations().size() * EQUATION_BYTES
+				+ snapshot.memory().size() * MEMORY_VALUE_BYTES;
+	}
+}
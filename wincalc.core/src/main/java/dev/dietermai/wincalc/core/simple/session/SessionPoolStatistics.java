@@ -0,0 +1,41 @@
+package dev.dietermai.wincalc.core.simple.session;
+
+/**
+ * Counters of a {@link CalculatorSessionPool} since it was created.
+ *
+ * @param hits                Accesses to a session that was on the heap
+ * @param creations           Accesses that created a new session
+ * @param reloads             Accesses that loaded a passivated session
+ * @param passivations        Sessions written to disk and dropped from the heap
+ * @param passivationFailures Evictions that could not write the session to
+ *                            disk, the session stayed on the heap
+ * @param reloadNanos         Total time spent loading passivated sessions
+ * @param maxReloadNanos      Longest time spent loading one session
+ * @param residentSessions    Sessions on the heap right now
+ * @param estimatedHeapBytes  Estimated heap usage of the resident sessions
+ * @param storedSessions      Sessions on disk right now
+ * @param bytesOnDisk         Size of the sessions on disk
+ */
+public record SessionPoolStatistics(long hits, long creations, long reloads, long passivations, long passivationFailures, long reloadNanos, long maxReloadNanos,
+		long residentSessions, long estimatedHeapBytes, long storedSessions, long bytesOnDisk) {
+
+	public long accesses() {
+		return hits + creations + reloads;
+	}
+
+	/**
+	 * @return The share of accesses that found the session on the heap, 0 if
+	 *         there was none
+	 */
+	public double hitRate() {
+		long accesses = accesses();
+		return accesses == 0 ? 0 : (double) hits / accesses;
+	}
+
+	/**
+	 * @return The average time to load a passivated session, 0 if there was none
+	 */
+	public double averageReloadMillis() {
+		return reloads == 0 ? 0 : reloadNanos / 1e6 / reloads;
+	}
+}
@@ -0,0 +1,144 @@
+package dev.dietermai.wincalc.core.simple.session;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import dev.dietermai.wincalc.core.simple.CalculatorSnapshot;
+import dev.dietermai.wincalc.core.simple.history.EquationCodec;
+
+/**
+ * Stores passivated sessions in a directory, one file per session. The file
+ * name is the hex encoded session id, so any id is a valid name. A file is
+ * written to a temporary file first and then moved into place, so a crash
+ * never leaves a half written session behind.
+ * <p>
+ * The store does not lock, the caller makes sure that only one thread at a
+ * time accesses the same session.
+ */
+public final class SessionStore {
+	private static final int MAGIC = 0x57435353;
+	private static final int VERSION = 2;
+	private static final int HEADER = 8;
+	private static final String SUFFIX = ".session";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final Path directory;
+	private final AtomicLong bytes = new AtomicLong();
+	private final AtomicLong files = new AtomicLong();
+
+	private SessionStore(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Opens the store in the given directory, creating it if needed. Sessions
+	 * that are already in the directory are kept.
+	 */
+	public static SessionStore open(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		SessionStore store = new SessionStore(directory);
+		try (Stream<Path> paths = Files.list(directory)) {
+			for (Path path : (Iterable<Path>) paths::iterator) {
+				String name = path.getFileName().toString();
+				if (name.endsWith(TEMP_SUFFIX)) {
+					Files.deleteIfExists(path);
+				} else if (name.endsWith(SUFFIX)) {
+					store.bytes.addAndGet(Files.size(path));
+					store.files.incrementAndGet();
+				}
+			}
+		}
+		return store;
+	}
+
+	public boolean contains(String id) {
+		return Files.exists(pathOf(id));
+	}
+
+	/**
+	 * Writes the session, replacing an older version.
+	 */
+	public void write(String id, CalculatorSnapshot snapshot) throws IOException {
+		byte[] payload = EquationCodec.encode(snapshot);
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER + payload.length);
+		buffer.putInt(MAGIC).putInt(VERSION).put(payload);
+
+		Path path = pathOf(id);
+		Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+		Files.write(temp, buffer.array());
+		long oldSize = sizeOf(path);
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		bytes.addAndGet(buffer.capacity() - Math.max(oldSize, 0));
+		if (oldSize < 0) {
+			files.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return The stored session
+	 * @throws NoSuchFileException If the session is not stored
+	 * @throws IOException         If the file is not a valid session
+	 */
+	public CalculatorSnapshot read(String id) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(pathOf(id)));
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("Not a session file of version " + VERSION + ": " + id);
+			}
+			return EquationCodec.decodeSnapshot(buffer);
+		} catch (RuntimeException e) {
+			throw new IOException("Corrupt session file: " + id, e);
+		}
+	}
+
+	/**
+	 * @return true if the session was stored
+	 */
+	public boolean delete(String id) throws IOException {
+		Path path = pathOf(id);
+		long size = sizeOf(path);
+		if (size < 0 || !Files.deleteIfExists(path)) {
+			return false;
+		}
+		bytes.addAndGet(-size);
+		files.decrementAndGet();
+		return true;
+	}
+
+	/**
+	 * @return The size of all stored sessions
+	 */
+	public long bytesOnDisk() {
+		return bytes.get();
+	}
+
+	public long sessionCount() {
+		return files.get();
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private Path pathOf(String id) {
+		return directory.resolve(HexFormat.of().formatHex(id.getBytes(StandardCharsets.UTF_8)) + SUFFIX);
+	}
+
+	/**
+	 * @return The size of the file, or -1 if it does not exist
+	 */
+	private static long sizeOf(Path path) throws IOException {
+		try {
+			return Files.size(path);
+		} catch (NoSuchFileException e) {
+			return -1;
+		}
+	}
+}
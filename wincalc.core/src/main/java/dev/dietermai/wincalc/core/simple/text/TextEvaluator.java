@@ -0,0 +1,135 @@
+package dev.dietermai.wincalc.core.simple.text;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import dev.dietermai.wincalc.core.simple.EquationHistory;
+import dev.dietermai.wincalc.core.simple.InMemoryEquationHistory;
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.BatchResult;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * Evaluates calculator input text through the transitions of
+ * {@link SimpleCalculatorBl}. The state and the equation history are the same
+ * as after pressing the keys of the text one by one on a
+ * {@link SimpleCalculator}. See {@link TextScanner} for the notation.
+ * <p>
+ * Not thread safe.
+ */
+public final class TextEvaluator implements TokenSink {
+	private static final Operation[] OPERATIONS = operations();
+
+	private final EquationHistory history;
+	private final TextScanner scanner = new TextScanner(this);
+
+	private SimpleCalculatorRecord state = SimpleCalculatorRecord.of();
+
+	public TextEvaluator() {
+		this(new InMemoryEquationHistory());
+	}
+
+	/**
+	 * @param history The history the resolved equations are added to
+	 */
+	public TextEvaluator(EquationHistory history) {
+		this.history = history;
+	}
+
+	/**
+	 * Evaluates the complete text with a new calculator.
+	 *
+	 * @param text The calculator input
+	 * @return The final state and equation history
+	 * @throws IllegalArgumentException if the text is not valid calculator input
+	 */
+	public static BatchResult evaluate(CharSequence text) {
+		TextEvaluator evaluator = new TextEvaluator();
+		evaluator.accept(text).finish();
+		return BatchResult.of(evaluator.getState(), evaluator.getEquations());
+	}
+
+	/* ----- */
+	/* Input */
+	/* ----- */
+	/**
+	 * Evaluates the text, the last token may be continued by the next call.
+	 */
+	public TextEvaluator accept(CharSequence text) {
+		scanner.accept(text);
+		return this;
+	}
+
+	/**
+	 * Evaluates the remaining bytes of the buffer as UTF-8, the last token may
+	 * be continued by the next call.
+	 */
+	public TextEvaluator accept(ByteBuffer bytes) {
+		scanner.accept(bytes);
+		return this;
+	}
+
+	/**
+	 * Evaluates the last token of the input.
+	 *
+	 * @return The final state
+	 */
+	public SimpleCalculatorRecord finish() {
+		scanner.finish();
+		return state;
+	}
+
+	/**
+	 * Starts over like a new evaluator: drops the state, a partially read token
+	 * and the equation history.
+	 */
+	public TextEvaluator reset() {
+		scanner.reset();
+		history.clear();
+		state = SimpleCalculatorRecord.of();
+		return this;
+	}
+
+	public SimpleCalculatorRecord getState() {
+		return state;
+	}
+
+	public List<Equation> getEquations() {
+		return history.getEquations();
+	}
+
+	/* ---------- */
+	/* Token sink */
+	/* ---------- */
+	@Override
+	public void number(char[] digits, int length) {
+		state = SimpleCalculatorBl.number(state, new String(digits, 0, length));
+	}
+
+	@Override
+	public void operation(OperationType type) {
+		state = SimpleCalculatorBl.apply(state, OPERATIONS[type.ordinal()]);
+		if (type.addsEquation()) {
+			history.addIfNewEquation(state.equation());
+		}
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	/**
+	 * One shared operation per type, the key presses carry no input
+	 */
+	private static Operation[] operations() {
+		OperationType[] types = OperationType.values();
+		Operation[] operations = new Operation[types.length];
+		for (OperationType type : types) {
+			operations[type.ordinal()] = Operation.of(type);
+		}
+		return operations;
+	}
+}
@@ -0,0 +1,346 @@
+package dev.dietermai.wincalc.core.simple.text;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+
+/**
+ * Hand written scanner for calculator input in the notation of the Windows
+ * calculator history, like {@code 12+3*4=} or {@code sqr(9)/3=}. Every token
+ * is passed to a {@link TokenSink} as the key press that types it, so the
+ * input is evaluated left to right, exactly like typed into the calculator:
+ * <ul>
+ * <li>Numbers are digits with an optional decimal point</li>
+ * <li>Binary operators are {@code + - * /} and {@code − × ÷}</li>
+ * <li>{@code =} resolves and {@code %} is percent</li>
+ * <li>The functions {@code sqr(x)}, {@code sqrt(x)} or {@code √(x)},
+ * {@code 1/(x)} and {@code negate(x)} take a number or another function</li>
+ * <li>{@code c} and {@code ce} clear, names ignore the case</li>
+ * </ul>
+ * Whitespace separates tokens, a function has to be closed before the end of
+ * the line. The input can be fed in chunks of any size, a token may span
+ * several chunks. Once the buffers fit the longest number and the deepest
+ * nesting, scanning allocates nothing.
+ * <p>
+ * Not thread safe.
+ */
+public final class TextScanner {
+	/* What was read before the next char */
+	private static final int IDLE = 0;
+	private static final int NUMBER = 1;
+	private static final int NAME = 2;
+	/** "1/" was read, a following "(" makes it the function 1/(x) */
+	private static final int ONE_SLASH = 3;
+	/** "√" was read, "(" has to follow */
+	private static final int ROOT_SIGN = 4;
+
+	private static final int MAX_NAME = 6;
+
+	private final TokenSink sink;
+	private final char[] name = new char[MAX_NAME];
+
+	private int state = IDLE;
+	private char[] digits = new char[32];
+	private int digitCount;
+	private boolean point;
+	private int nameLength;
+	private OperationType[] functions = new OperationType[8];
+	private int depth;
+	/** Inside a function after its argument, only ")" may follow */
+	private boolean argumentComplete;
+
+	private long position;
+	private int codePoint;
+	private int continuationBytes;
+
+	public TextScanner(TokenSink sink) {
+		this.sink = sink;
+	}
+
+	/* ----- */
+	/* Input */
+	/* ----- */
+	public TextScanner accept(CharSequence text) {
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			accept(text.charAt(i));
+		}
+		return this;
+	}
+
+	/**
+	 * Reads the remaining bytes of the buffer as UTF-8, a char may span several
+	 * buffers.
+	 */
+	public TextScanner accept(ByteBuffer bytes) {
+		while (bytes.hasRemaining()) {
+			accept(bytes.get());
+		}
+		return this;
+	}
+
+	public TextScanner accept(byte b) {
+		if (continuationBytes > 0) {
+			if ((b & 0xC0) != 0x80) {
+				throw error("Invalid UTF-8");
+			}
+			codePoint = codePoint << 6 | b & 0x3F;
+			if (--continuationBytes == 0) {
+				accept((char) codePoint);
+			}
+		} else if (b >= 0) {
+			accept((char) b);
+		} else if ((b & 0xE0) == 0xC0) {
+			codePoint = b & 0x1F;
+			continuationBytes = 1;
+		} else if ((b & 0xF0) == 0xE0) {
+			codePoint = b & 0x0F;
+			continuationBytes = 2;
+		} else {
+			throw error("Invalid UTF-8");
+		}
+		return this;
+	}
+
+	public TextScanner accept(char c) {
+		scan(c);
+		position++;
+		return this;
+	}
+
+	/**
+	 * Passes the last token of the input to the sink.
+	 *
+	 * @throws IllegalArgumentException if the input ends within a function
+	 */
+	public void finish() {
+		switch (state) {
+		case NUMBER -> endNumber();
+		case NAME -> endName();
+		case ONE_SLASH -> {
+			endNumber();
+			next('/');
+		}
+		case ROOT_SIGN -> throw error("Expected '('");
+		default -> {
+		}
+		}
+		if (continuationBytes > 0) {
+			throw error("Invalid UTF-8");
+		}
+		if (depth > 0) {
+			throw error("Unclosed function");
+		}
+	}
+
+	/**
+	 * Drops a partially read token, for example to continue with the next line
+	 * after an error.
+	 */
+	public void reset() {
+		state = IDLE;
+		depth = 0;
+		argumentComplete = false;
+		continuationBytes = 0;
+	}
+
+	/**
+	 * @return The number of chars read
+	 */
+	public long position() {
+		return position;
+	}
+
+	/* -------- */
+	/* Scanning */
+	/* -------- */
+	private void scan(char c) {
+		switch (state) {
+		case NUMBER -> {
+			if (c >= '0' && c <= '9') {
+				appendDigit(c);
+				return;
+			}
+			if (c == '.') {
+				if (point) {
+					throw unexpected(c);
+				}
+				point = true;
+				appendDigit(c);
+				return;
+			}
+			if (c == '/' && digitCount == 1 && digits[0] == '1') {
+				state = ONE_SLASH;
+				return;
+			}
+			endNumber();
+		}
+		case NAME -> {
+			if (isLetter(c)) {
+				if (nameLength == MAX_NAME) {
+					throw unexpected(c);
+				}
+				name[nameLength++] = lowerCase(c);
+				return;
+			}
+			if (c == '(') {
+				push(function());
+				return;
+			}
+			endName();
+		}
+		case ONE_SLASH -> {
+			if (c == '(') {
+				push(OperationType.oneDivX);
+				return;
+			}
+			endNumber();
+			next('/');
+		}
+		case ROOT_SIGN -> {
+			if (c != '(') {
+				throw unexpected(c);
+			}
+			push(OperationType.root);
+			return;
+		}
+		default -> {
+		}
+		}
+		next(c);
+	}
+
+	/**
+	 * Scans the first char of a token
+	 */
+	private void next(char c) {
+		if (c >= '0' && c <= '9' || c == '.') {
+			startArgument(c);
+			state = NUMBER;
+			digitCount = 0;
+			point = c == '.';
+			if (point) {
+				appendDigit('0');
+			}
+			appendDigit(c);
+		} else if (isLetter(c)) {
+			startArgument(c);
+			state = NAME;
+			name[0] = lowerCase(c);
+			nameLength = 1;
+		} else if (c == '√') {
+			startArgument(c);
+			state = ROOT_SIGN;
+		} else if (c == ')') {
+			if (!argumentComplete) {
+				throw unexpected(c);
+			}
+			sink.operation(functions[--depth]);
+			argumentComplete = depth > 0;
+		} else if (c == ' ' || c == '\t' || c == '\r') {
+			// Separates tokens
+		} else if (c == '\n') {
+			if (depth > 0) {
+				throw error("Unclosed function");
+			}
+		} else if (depth > 0) {
+			throw unexpected(c);
+		} else {
+			sink.operation(operator(c));
+		}
+	}
+
+	private OperationType operator(char c) {
+		return switch (c) {
+		case '+' -> OperationType.plus;
+		case '-', '−' -> OperationType.minus;
+		case '*', '×' -> OperationType.multiply;
+		case '/', '÷' -> OperationType.divide;
+		case '=' -> OperationType.resolve;
+		case '%' -> OperationType.percent;
+		default -> throw unexpected(c);
+		};
+	}
+
+	private void endNumber() {
+		sink.number(digits, digitCount);
+		state = IDLE;
+		argumentComplete = depth > 0;
+	}
+
+	private void endName() {
+		state = IDLE;
+		if (depth == 0 && isName("c")) {
+			sink.operation(OperationType.c);
+		} else if (depth == 0 && isName("ce")) {
+			sink.operation(OperationType.ce);
+		} else {
+			throw error("Unknown name");
+		}
+	}
+
+	private OperationType function() {
+		if (isName("sqr")) {
+			return OperationType.square;
+		} else if (isName("sqrt")) {
+			return OperationType.root;
+		} else if (isName("negate")) {
+			return OperationType.negate;
+		} else {
+			throw error("Unknown function");
+		}
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private void startArgument(char c) {
+		if (argumentComplete) {
+			throw unexpected(c);
+		}
+	}
+
+	private void push(OperationType function) {
+		if (depth == functions.length) {
+			functions = Arrays.copyOf(functions, depth * 2);
+		}
+		functions[depth++] = function;
+		state = IDLE;
+	}
+
+	private void appendDigit(char c) {
+		if (digitCount == digits.length) {
+			digits = Arrays.copyOf(digits, digitCount * 2);
+		}
+		digits[digitCount++] = c;
+	}
+
+	private boolean isName(String expected) {
+		if (expected.length() != nameLength) {
+			return false;
+		}
+		for (int i = 0; i < nameLength; i++) {
+			if (name[i] != expected.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isLetter(char c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+	}
+
+	private static char lowerCase(char c) {
+		return (char) (c | 0x20);
+	}
+
+	private IllegalArgumentException unexpected(char c) {
+		return error("Unexpected '" + c + "'");
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at char " + position);
+	}
+}
@@ -0,0 +1,25 @@
+package dev.dietermai.wincalc.core.simple.text;
+
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+
+/**
+ * Receives the key presses a {@link TextScanner} recognizes, in input order.
+ */
+public interface TokenSink {
+
+	/**
+	 * A number was typed. The array is reused by the scanner, it is only valid
+	 * during the call.
+	 *
+	 * @param digits The buffer holding the number
+	 * @param length The number of chars of the number at the start of the buffer
+	 */
+	void number(char[] digits, int length);
+
+	/**
+	 * Any other key was pressed.
+	 *
+	 * @param type The type of the key press, never {@link OperationType#number}
+	 */
+	void operation(OperationType type);
+}
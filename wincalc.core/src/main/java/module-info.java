@@ -4,6 +4,16 @@
  * Contains all the code required to calculate
  */
 module wincalc.core {
+	requires java.management;
+	requires transitive jdk.jfr;
+
 	exports dev.dietermai.wincalc.core.simple;
+	exports dev.dietermai.wincalc.core.simple.codec;
 	exports dev.dietermai.wincalc.core.simple.model;
-}
\ No newline at end of file
+	exports dev.dietermai.wincalc.core.simple.history;
+	exports dev.dietermai.wincalc.core.simple.jfr;
+	exports dev.dietermai.wincalc.core.simple.journal;
+	exports dev.dietermai.wincalc.core.simple.metrics;
+	exports dev.dietermai.wincalc.core.simple.session;
+	exports dev.dietermai.wincalc.core.simple.text;
+}
\ No newline at end of file
@@ -0,0 +1,183 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.history.RingBufferEquationHistory;
+
+/**
+ * Fails if an operation of a key sequence allocates more bytes than its
+ * budget. Every operation is measured on its own, without the bytes the
+ * allocation counter needs itself, and the median over the iterations is
+ * compared. Depending on what C2 inlines, some operations allocate one of two
+ * amounts. The budgets are about a quarter above the larger one, so a failure
+ * means a new object in that operation rather than noise. Lower a budget after
+ * removing an allocation.
+ * <p>
+ * The measured allocation relies on the escape analysis of the C2 compiler, so
+ * the test is skipped in the interpreter, with C1 only, without escape analysis
+ * and with an agent like a coverage tool, which all allocate more. The
+ * allocation counter is read over JMX, so the test does not need the
+ * jdk.management module at compile time.
+ */
+class AllocationBudgetTest {
+	private static final int WARMUP = 100_000;
+	private static final int ITERATIONS = 5_000;
+
+	private static MBeanServer server;
+	private static ObjectName threading;
+
+	@BeforeAll
+	public static void beforeAll() throws JMException {
+		assumeTrue(ManagementFactory.getRuntimeMXBean().getInputArguments().stream().noneMatch(argument -> argument.startsWith("-javaagent")),
+				"An agent changes the allocation");
+		server = ManagementFactory.getPlatformMBeanServer();
+		threading = new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME);
+		assumeTrue(isC2WithEscapeAnalysis(), "The budgets are measured with the escape analysis of C2");
+		assumeTrue(server.isRegistered(threading) && hasAttribute("CurrentThreadAllocatedBytes"), "The JVM does not count allocated bytes");
+		server.setAttribute(threading, new Attribute("ThreadAllocatedMemoryEnabled", true));
+	}
+
+	@Test
+	void testPlusResolve() {
+		assertBudgets("12 + 3 = C", //
+				key("12", 40, calculator -> calculator.number("12")), //
+				key("+", 128, SimpleCalculator::plus), //
+				key("3", 40, calculator -> calculator.number("3")), //
+				key("=", 208, SimpleCalculator::resolve), //
+				key("C", 40, SimpleCalculator::c));
+	}
+
+	@Test
+	void testSquares() {
+		assertBudgets("2 sqr sqr sqr C", //
+				key("2", 40, calculator -> calculator.number("2")), //
+				key("sqr", 104, SimpleCalculator::square), //
+				key("sqr", 232, SimpleCalculator::square), //
+				key("sqr", 232, SimpleCalculator::square), //
+				key("C", 40, SimpleCalculator::c));
+	}
+
+	@Test
+	void testMemoryAdd() {
+		assertBudgets("12 M+ C", //
+				key("12", 40, calculator -> calculator.number("12")), //
+				key("M+", 264, SimpleCalculator::mPlus), //
+				key("C", 40, SimpleCalculator::c));
+	}
+
+	@Test
+	void testClearEntry() {
+		assertBudgets("12 CE", //
+				key("12", 40, calculator -> calculator.number("12")), //
+				key("CE", 40, SimpleCalculator::ce));
+	}
+
+	private static void assertBudgets(String sequence, Key... keys) {
+		SimpleCalculator calculator = new SimpleCalculator(new RingBufferEquationHistory(64));
+		for (int i = 0; i < WARMUP; i++) {
+			for (Key key : keys) {
+				key.press().accept(calculator);
+			}
+		}
+		long[] counter = new long[ITERATIONS];
+		long[][] bytes = new long[keys.length][ITERATIONS];
+		for (int i = 0; i < ITERATIONS; i++) {
+			long start = allocatedBytes();
+			counter[i] = allocatedBytes() - start;
+			for (int k = 0; k < keys.length; k++) {
+				long before = allocatedBytes();
+				keys[k].press().accept(calculator);
+				bytes[k][i] = allocatedBytes() - before;
+			}
+		}
+		long ownBytes = median(counter);
+		for (int k = 0; k < keys.length; k++) {
+			Key key = keys[k];
+			long allocated = median(bytes[k]) - ownBytes;
+			assertTrue(allocated <= key.budget(), () -> sequence + ": " + key.name() + " allocates " + allocated + " bytes, the budget is " + key.budget());
+		}
+	}
+
+	private static Key key(String name, long budget, Consumer<SimpleCalculator> press) {
+		return new Key(name, budget, press);
+	}
+
+	/**
+	 * One operation of a key sequence and the bytes it may allocate
+	 */
+	private record Key(String name, long budget, Consumer<SimpleCalculator> press) {
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	private static long allocatedBytes() {
+		try {
+			return (Long) server.getAttribute(threading, "CurrentThreadAllocatedBytes");
+		} catch (JMException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static boolean hasAttribute(String name) throws JMException {
+		for (MBeanAttributeInfo attribute : server.getMBeanInfo(threading).getAttributes()) {
+			if (attribute.getName().equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the JIT is C2, either tiered up to level 4 or alone, and
+	 *         does escape analysis
+	 */
+	private static boolean isC2WithEscapeAnalysis() {
+		try {
+			ObjectName hotSpot = new ObjectName("com.sun.management:type=HotSpotDiagnostic");
+			if (!server.isRegistered(hotSpot)) {
+				return false;
+			}
+			boolean tieredToC2 = !"true".equals(vmOption(hotSpot, "TieredCompilation")) || "4".equals(vmOption(hotSpot, "TieredStopAtLevel"));
+			return "true".equals(vmOption(hotSpot, "UseCompiler")) && tieredToC2 && "true".equals(vmOption(hotSpot, "DoEscapeAnalysis"))
+					&& !"true".equals(vmOption(hotSpot, "UseJVMCICompiler"));
+		} catch (JMException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return The value of the option, or null if the JVM does not have it
+	 */
+	private static String vmOption(ObjectName hotSpot, String name) throws JMException {
+		try {
+			CompositeData option = (CompositeData) server.invoke(hotSpot, "getVMOption", new Object[] { name }, new String[] { String.class.getName() });
+			return (String) option.get("value");
+		} catch (RuntimeException e) {
+			// Thrown for an option this JVM does not have
+			return null;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.jfr.CalculatorEvents;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class CalculatorEventsTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testSettingsProfileRecordsTransitions() throws IOException, ParseException {
+		List<RecordedEvent> events = record(CalculatorEvents.configuration());
+
+		RecordedEvent plus = only(events, "BinaryOperation");
+		assertEquals("plus", plus.getString("operator"));
+		assertEquals(3, plus.getInt("operandPrecision"));
+		assertEquals(1, plus.getInt("operandScale"));
+		assertEquals("OK", plus.getString("result"));
+
+		RecordedEvent square = only(events, "UnaryOperation");
+		assertEquals("square", square.getString("operator"));
+		assertEquals(1, square.getInt("operandPrecision"));
+		assertEquals(3, square.getInt("expressionDepth"));
+
+		RecordedEvent resolve = only(events, "Resolve");
+		assertEquals("plus", resolve.getString("operator"));
+		assertEquals(1, resolve.getInt("operandPrecision"));
+		assertEquals(3, resolve.getInt("expressionDepth"));
+		assertEquals("OK", resolve.getString("result"));
+
+		List<RecordedEvent> memory = named(events, "MemoryOperation");
+		assertEquals(2, memory.size());
+		assertEquals("save", memory.get(0).getString("operation"));
+		assertEquals("add", memory.get(1).getString("operation"));
+		assertEquals(3, memory.get(1).getInt("operandPrecision"));
+		assertEquals(1, memory.get(1).getInt("savedValues"));
+	}
+
+	@Test
+	void testDisabledByDefault() throws IOException, ParseException {
+		List<RecordedEvent> events = record(Configuration.getConfiguration("default"));
+
+		assertTrue(events.stream().noneMatch(e -> e.getEventType().getName().startsWith("dev.dietermai.wincalc.")));
+	}
+
+	/**
+	 * 12.5 + sqr(3) = MS M+
+	 */
+	private List<RecordedEvent> record(Configuration configuration) throws IOException {
+		Path file = directory.resolve("calculator.jfr");
+		try (Recording recording = new Recording(configuration)) {
+			recording.start();
+			SimpleCalculator calculator = new SimpleCalculator();
+			calculator.number("12.5");
+			calculator.plus();
+			calculator.number("3");
+			calculator.square();
+			calculator.resolve();
+			calculator.ms();
+			calculator.mPlus();
+			recording.stop();
+			recording.dump(file);
+		}
+		long threadId = Thread.currentThread().threadId();
+		return RecordingFile.readAllEvents(file).stream().filter(e -> e.getThread() != null && e.getThread().getJavaThreadId() == threadId).toList();
+	}
+
+	private static RecordedEvent only(List<RecordedEvent> events, String name) {
+		List<RecordedEvent> named = named(events, name);
+		assertEquals(1, named.size(), () -> name + ": " + named);
+		return named.get(0);
+	}
+
+	private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+		return events.stream().filter(e -> e.getEventType().getName().equals("dev.dietermai.wincalc." + name)).toList();
+	}
+}
@@ -0,0 +1,117 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.dietermai.wincalc.core.simple.CalculatorSnapshot;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+import dev.dietermai.wincalc.core.simple.session.CalculatorSessionPool;
+import dev.dietermai.wincalc.core.simple.session.SessionPoolStatistics;
+import dev.dietermai.wincalc.core.simple.session.SessionStore;
+
+class CalculatorSessionPoolTest {
+	private static final Duration NEVER = Duration.ofDays(1);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testLeastRecentlyUsedAreReloadedUnchanged() throws IOException {
+		CalculatorSessionPool pool = new CalculatorSessionPool(SessionStore.open(directory), 20_000, NEVER);
+		List<CalculatorSnapshot> expected = new ArrayList<>();
+		for (int session = 0; session < 10; session++) {
+			expected.add(pool.update("session " + session, snapshot -> calculate(snapshot, 50)));
+		}
+		SessionPoolStatistics statistics = pool.statistics();
+		assertTrue(statistics.passivations() > 0);
+		assertTrue(statistics.estimatedHeapBytes() <= 20_000);
+		assertEquals(10, statistics.residentSessions() + statistics.storedSessions());
+		assertTrue(statistics.bytesOnDisk() > 0);
+
+		for (int session = 0; session < 10; session++) {
+			assertEquals(expected.get(session), pool.get("session " + session));
+		}
+		statistics = pool.statistics();
+		assertEquals(10, statistics.creations());
+		assertTrue(statistics.reloads() > 0);
+		assertEquals(statistics.reloads() + statistics.hits(), 10);
+		assertTrue(statistics.maxReloadNanos() > 0);
+	}
+
+	@Test
+	void testIdleSessionsSurviveANewPool() throws IOException {
+		CalculatorSnapshot a;
+		CalculatorSnapshot b;
+		try (CalculatorSessionPool pool = new CalculatorSessionPool(SessionStore.open(directory), Long.MAX_VALUE, Duration.ZERO)) {
+			a = pool.update("a", snapshot -> calculate(snapshot, 3));
+			b = pool.update("b", snapshot -> calculate(snapshot, 4).ms());
+			// a was idle while b was used
+			assertEquals(1, pool.statistics().storedSessions());
+
+			pool.evictIdle();
+			assertEquals(0, pool.statistics().residentSessions());
+			assertEquals(2, pool.statistics().storedSessions());
+		}
+
+		try (CalculatorSessionPool pool = new CalculatorSessionPool(SessionStore.open(directory), Long.MAX_VALUE, NEVER)) {
+			assertEquals(2, pool.statistics().storedSessions());
+			assertEquals(a, pool.get("a"));
+			assertEquals(b, pool.get("b"));
+			assertEquals(0, pool.statistics().storedSessions());
+
+			assertTrue(pool.remove("a"));
+			assertFalse(pool.remove("a"));
+			assertEquals(CalculatorSnapshot.of(), pool.get("a"));
+			assertEquals(0, pool.statistics().bytesOnDisk());
+		}
+	}
+
+	@Test
+	void testFailedPassivationDoesNotFailTheAccess() throws IOException {
+		Path storeDirectory = directory.resolve("store");
+		CalculatorSessionPool pool = new CalculatorSessionPool(SessionStore.open(storeDirectory), 20_000, NEVER);
+		// Without the directory every write to the store fails
+		Files.delete(storeDirectory);
+
+		CalculatorSnapshot a = pool.update("a", snapshot -> calculate(snapshot, 50));
+		CalculatorSnapshot b = pool.update("b", snapshot -> calculate(snapshot, 50));
+		SessionPoolStatistics statistics = pool.statistics();
+		assertTrue(statistics.passivationFailures() > 0);
+		assertEquals(0, statistics.passivations());
+		assertEquals(2, statistics.residentSessions());
+		assertEquals(a, pool.get("a"));
+		assertEquals(b, pool.get("b"));
+
+		Files.createDirectories(storeDirectory);
+		pool.update("c", snapshot -> calculate(snapshot, 50));
+		assertTrue(pool.statistics().passivations() > 0);
+		assertEquals(a, pool.get("a"));
+	}
+
+	/**
+	 * Adds the given number of equations with growing operands and saves every
+	 * result to the memory
+	 */
+	private static CalculatorSnapshot calculate(CalculatorSnapshot snapshot, int equations) {
+		for (int i = 1; i <= equations; i++) {
+			snapshot = snapshot.apply(Operation.number(Integer.toString(i))) //
+					.apply(Operation.of(OperationType.divide)) //
+					.apply(Operation.number("7")) //
+					.apply(Operation.of(OperationType.resolve)) //
+					.ms();
+		}
+		return snapshot.apply(Operation.number("12")).apply(Operation.of(OperationType.plus));
+	}
+}
@@ -0,0 +1,115 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.ConcurrentSimpleCalculator;
+import dev.dietermai.wincalc.core.simple.PrecisionPolicy;
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+
+class ConcurrentSimpleCalculatorTest {
+	private static final int THREADS = 8;
+	private static final int ROUNDS = 5_000;
+
+	@Test
+	void testSameAsSimpleCalculator() {
+		SimpleCalculator calculator = new SimpleCalculator();
+		ConcurrentSimpleCalculator concurrent = new ConcurrentSimpleCalculator();
+		for (Operation operation : List.of(Operation.number("12"), Operation.of(OperationType.plus), Operation.number("3"), Operation.of(OperationType.resolve),
+				Operation.of(OperationType.resolve), Operation.of(OperationType.square), Operation.of(OperationType.ce), Operation.of(OperationType.resolve))) {
+			calculator.apply(operation);
+			concurrent.apply(operation);
+		}
+		calculator.ms();
+		concurrent.ms();
+		calculator.mPlus();
+		concurrent.mPlus();
+
+		assertEquals(calculator.getState(), concurrent.getState());
+		assertEquals(calculator.getEquations(), concurrent.getEquations());
+		assertEquals(calculator.getAllMemoryValues(), concurrent.getAllMemoryValues());
+	}
+
+	@Test
+	void testSamePrecisionAsSimpleCalculator() {
+		SimpleCalculator calculator = new SimpleCalculator();
+		ConcurrentSimpleCalculator concurrent = new ConcurrentSimpleCalculator();
+		calculator.setPrecision(PrecisionPolicy.WINDOWS);
+		concurrent.setPrecision(PrecisionPolicy.WINDOWS);
+		for (Operation operation : List.of(Operation.number("2"), Operation.of(OperationType.root), Operation.of(OperationType.plus), Operation.number("1"),
+				Operation.of(OperationType.divide), Operation.number("3"), Operation.of(OperationType.resolve))) {
+			calculator.apply(operation);
+			concurrent.apply(operation);
+		}
+		calculator.resolve(3);
+		concurrent.resolve(3);
+		calculator.ms();
+		concurrent.ms();
+		calculator.oneDivX();
+		concurrent.oneDivX();
+		calculator.mPlus();
+		concurrent.mPlus();
+
+		assertEquals(PrecisionPolicy.WINDOWS, concurrent.getPrecision());
+		assertEquals(calculator.getState(), concurrent.getState());
+		assertEquals(calculator.getEquations(), concurrent.getEquations());
+		assertEquals(calculator.getAllMemoryValues(), concurrent.getAllMemoryValues());
+		// More digits than the default policy computes
+		assertTrue(concurrent.getAllMemoryValues().get(0).precision() > 16);
+	}
+
+	@Test
+	void testNoLostUpdatesUnderContention() throws Exception {
+		ConcurrentSimpleCalculator calculator = new ConcurrentSimpleCalculator();
+		calculator.number("0");
+		calculator.plus();
+		calculator.number("1");
+		calculator.resolve();
+		// Every further resolve adds one more
+		List<Operation> addTwo = List.of(Operation.of(OperationType.resolve), Operation.of(OperationType.resolve));
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < ROUNDS; i++) {
+						calculator.applyAll(addTwo);
+						calculator.ms();
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		int total = THREADS * ROUNDS;
+		assertEquals(BigDecimal.valueOf(1 + 2 * total), SimpleCalculatorBl.getCurrentValue(calculator.getState()));
+		assertEquals(1 + 2 * total, calculator.getEquations().size());
+		assertEquals(total, calculator.getAllMemoryValues().size());
+		// ms always sees an odd value, no other thread got between the two resolves
+		for (BigDecimal value : calculator.getAllMemoryValues()) {
+			assertEquals(1, value.intValue() % 2);
+		}
+	}
+}
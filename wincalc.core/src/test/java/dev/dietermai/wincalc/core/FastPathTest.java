@@ -0,0 +1,138 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.EvaluationMode;
+import dev.dietermai.wincalc.core.simple.FastPath;
+import dev.dietermai.wincalc.core.simple.FastPath.Kernel;
+import dev.dietermai.wincalc.core.simple.FastPathStatistics;
+import dev.dietermai.wincalc.core.simple.Formula;
+import dev.dietermai.wincalc.core.simple.FormulaCompiler;
+import dev.dietermai.wincalc.core.simple.PrecisionPolicy;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.BiOperator;
+import dev.dietermai.wincalc.core.simple.model.BinaryExpression;
+import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+import dev.dietermai.wincalc.core.simple.model.UnaryOperator;
+
+class FastPathTest {
+
+	@BeforeEach
+	public void beforeEach() {
+		FastPath.resetStatistics();
+	}
+
+	@AfterEach
+	public void afterEach() {
+		FastPath.setMode(EvaluationMode.EXACT);
+	}
+
+	@Test
+	void testExactModeDoesNotUseFastPath() {
+		divideBy("3").apply(bd("10"));
+
+		FastPathStatistics statistics = FastPath.statistics();
+		assertEquals(0, statistics.hits(Kernel.divide));
+		assertEquals(0, statistics.fallbacks(Kernel.divide));
+	}
+
+	@Test
+	void testFastPathCountsHitsAndFallbacks() {
+		FastPath.setMode(EvaluationMode.FAST_PATH);
+		Formula formula = divideBy("3");
+
+		assertEquals(Result.of(bd("3.3333333333333333")), formula.apply(bd("10")));
+		assertEquals(Result.of(bd("333333333333333333.3333333333333333")), formula.apply(bd("1000000000000000000")));
+
+		FastPathStatistics statistics = FastPath.statistics();
+		assertEquals(1, statistics.hits(Kernel.divide));
+		assertEquals(1, statistics.fallbacks(Kernel.divide));
+		assertEquals(0.5, statistics.hitRate(Kernel.divide));
+	}
+
+	@Test
+	void testFastPathMatchesExact() {
+		Random random = new Random(7);
+		for (int i = 0; i < 5_000; i++) {
+			BigDecimal left = BigDecimal.valueOf(random.nextLong() % 10_000_000_000L, random.nextInt(12));
+			BigDecimal right = BigDecimal.valueOf(1 + random.nextInt(100_000), random.nextInt(12));
+			for (BiOperator operator : BiOperator.values()) {
+				assertSameInBothModes(binary(operator, right), left);
+			}
+			assertSameInBothModes(root(), left.abs());
+			assertSameInBothModes(root(), left.multiply(left));
+		}
+		assertTrue(FastPath.statistics().hits(Kernel.root) > 0);
+	}
+
+	@Test
+	void testNewtonRootMatchesBigDecimal() {
+		Random random = new Random(13);
+		for (int digits : new int[] { 1, 4, 7, 16, 32, 100 }) {
+			PrecisionPolicy policy = PrecisionPolicy.of(digits);
+			for (int i = 0; i < 2_000; i++) {
+				BigDecimal value = new BigDecimal(new BigInteger(1 + random.nextInt(200), random).add(BigInteger.ONE), random.nextInt(80) - 20);
+				assertRootSameInBothModes(value, policy);
+				// Close to the middle between two roots
+				BigDecimal middle = BigDecimal.valueOf(10 * (1 + random.nextInt(99_999)) + 5, random.nextInt(8));
+				assertRootSameInBothModes(middle.multiply(middle).subtract(BigDecimal.valueOf(1, 2 * middle.scale() + 10)), policy);
+			}
+		}
+		// BigDecimal.sqrt rounds these to the wrong side, the kernel must not answer them
+		assertRootSameInBothModes(bd("89.9367722499999"), PrecisionPolicy.of(4));
+		assertRootSameInBothModes(bd("37791756.2499999"), PrecisionPolicy.of(4));
+		assertRootSameInBothModes(bd("1" + "2".repeat(500) + "." + "3".repeat(500)), PrecisionPolicy.DEFAULT);
+
+		assertTrue(FastPath.statistics().hits(Kernel.newtonRoot) > 0);
+		assertTrue(FastPath.statistics().fallbacks(Kernel.newtonRoot) > 0);
+	}
+
+	private void assertRootSameInBothModes(BigDecimal value, PrecisionPolicy policy) {
+		SimpleCalculatorRecord state = SimpleCalculatorBl.root(SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), value.toPlainString()), policy);
+		FastPath.setMode(EvaluationMode.EXACT);
+		BigDecimal exact = SimpleCalculatorBl.getCurrentValue(state, policy);
+		FastPath.setMode(EvaluationMode.FAST_PATH);
+		BigDecimal fast = SimpleCalculatorBl.getCurrentValue(state, policy);
+
+		assertEquals(exact, fast, () -> policy + " " + value);
+	}
+
+	private void assertSameInBothModes(Formula formula, BigDecimal x) {
+		FastPath.setMode(EvaluationMode.EXACT);
+		Result exact = formula.apply(x);
+		FastPath.setMode(EvaluationMode.FAST_PATH);
+		Result fast = formula.apply(x);
+
+		assertEquals(exact, fast, () -> formula + " " + x);
+	}
+
+	private Formula divideBy(String divisor) {
+		return binary(BiOperator.divide, bd(divisor));
+	}
+
+	private Formula binary(BiOperator operator, BigDecimal right) {
+		NumberExpression x = new NumberExpression(BigDecimal.ZERO);
+		return FormulaCompiler.compile(new BinaryExpression(x, operator, NumberExpression.of(right)), x);
+	}
+
+	private Formula root() {
+		NumberExpression x = new NumberExpression(BigDecimal.ZERO);
+		return FormulaCompiler.compile(UnaryExpression.of(UnaryOperator.root, x), x);
+	}
+
+	private BigDecimal bd(String s) {
+		return new BigDecimal(s);
+	}
+}
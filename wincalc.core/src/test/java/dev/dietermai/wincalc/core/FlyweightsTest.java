@@ -0,0 +1,92 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.FlyweightStatistics;
+import dev.dietermai.wincalc.core.simple.model.Flyweights;
+import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+import dev.dietermai.wincalc.core.simple.model.UnaryOperator;
+
+class FlyweightsTest {
+
+	@Test
+	void testSmallNumbersAreShared() {
+		assertSame(NumberExpression.of("100"), NumberExpression.of(new BigDecimal("100")));
+		assertSame(NumberExpression.ZERO, NumberExpression.of("-0"));
+		assertSame(NumberExpression.of("-128"), NumberExpression.of(BigDecimal.valueOf(-128)));
+		assertSame(Result.of(BigDecimal.ONE), Result.of(new BigDecimal("1")));
+		assertSame(Result.of(ResultType.DIVIDE_BY_ZERO), Result.of(ResultType.DIVIDE_BY_ZERO));
+	}
+
+	@Test
+	void testScaleIsKept() {
+		NumberExpression number = NumberExpression.of("100.0");
+
+		assertEquals(new BigDecimal("100.0"), number.value());
+		assertNotSame(NumberExpression.of("100"), number);
+		assertEquals(new NumberExpression(new BigDecimal("123456")), NumberExpression.of("123456"));
+	}
+
+	@Test
+	void testUnaryOfSmallNumberIsShared() {
+		UnaryExpression square = UnaryExpression.of(UnaryOperator.square, "7");
+
+		assertSame(square, UnaryExpression.of(UnaryOperator.square, BigDecimal.valueOf(7)));
+		assertNotSame(square, UnaryExpression.of(UnaryOperator.root, "7"));
+		assertEquals(new UnaryExpression(UnaryOperator.square, new NumberExpression(BigDecimal.valueOf(7))), square);
+	}
+
+	@Test
+	void testStatistics() {
+		// Create the shared instances first, another test may not have used them
+		NumberExpression.of("100");
+		Result.of(BigDecimal.valueOf(100));
+		UnaryExpression.of(UnaryOperator.square, "7");
+		Flyweights.resetStatistics();
+
+		for (int i = 0; i < 3; i++) {
+			NumberExpression.of("100");
+		}
+		NumberExpression.of(BigDecimal.valueOf(100));
+		NumberExpression.of(BigDecimal.valueOf(100));
+		NumberExpression.of("123456");
+		Result.of(BigDecimal.valueOf(100));
+		Result.of(new BigDecimal("123456"));
+		UnaryExpression.of(UnaryOperator.square, "7");
+		UnaryExpression.of(UnaryOperator.square, "123456");
+
+		// 6 numbers of 16 bytes, 4 of them parsed without a BigDecimal of 40
+		// bytes, a result and a unary expression of 24 bytes
+		FlyweightStatistics statistics = Flyweights.statistics();
+		assertEquals(new FlyweightStatistics(6, 2, 1, 1, 1, 1, 304), statistics);
+		assertEquals(8, statistics.hits());
+		assertEquals(4, statistics.misses());
+		assertEquals(8.0 / 12, statistics.hitRate());
+
+		Flyweights.resetStatistics();
+		assertEquals(0, Flyweights.statistics().hitRate());
+	}
+
+	@Test
+	void testSessionIsNotAffected() {
+		SimpleCalculator calculator = new SimpleCalculator();
+		calculator.number("12");
+		calculator.plus();
+		calculator.number("1");
+		calculator.resolve();
+		calculator.square();
+
+		assertEquals(new BigDecimal("169"), SimpleCalculatorBl.getCurrentValue(calculator.getState()));
+	}
+}
@@ -0,0 +1,96 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.Formula;
+import dev.dietermai.wincalc.core.simple.FormulaCompiler;
+import dev.dietermai.wincalc.core.simple.PrecisionPolicy;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.BiOperator;
+import dev.dietermai.wincalc.core.simple.model.BinaryExpression;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Expression;
+import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+import dev.dietermai.wincalc.core.simple.model.UnaryOperator;
+
+class FormulaCompilerTest {
+
+	@Test
+	void testSquareTimesFactorPlusConstant() {
+		NumberExpression x = new NumberExpression(BigDecimal.ZERO);
+		Expression square = UnaryExpression.of(UnaryOperator.square, x);
+		Expression times = new BinaryExpression(square, BiOperator.multiply, NumberExpression.of("1.19"));
+		Formula formula = FormulaCompiler.compile(new BinaryExpression(times, BiOperator.plus, NumberExpression.of("3")), x);
+
+		assertEquals(Result.of(bd("7.76")), formula.apply(bd("2")));
+		assertEquals(Result.of(bd("122")), formula.apply(bd("10")));
+	}
+
+	@Test
+	void testUnaryChainMatchesResolve() {
+		for (String value : new String[] { "2", "0.5", "123.456", "1E+20", "7" }) {
+			NumberExpression x = new NumberExpression(bd(value));
+			Expression chain = UnaryExpression.of(UnaryOperator.oneDivX, UnaryExpression.of(UnaryOperator.root, UnaryExpression.of(UnaryOperator.square, x)));
+			Result expected = Result.of(SimpleCalculatorBl.resolve(SimpleCalculatorRecord.of(chain)).equation().value());
+
+			assertEquals(expected, FormulaCompiler.compile(chain, x).apply(x.value()));
+		}
+	}
+
+	@Test
+	void testComputesWithTheGivenPrecision() {
+		for (PrecisionPolicy policy : new PrecisionPolicy[] { PrecisionPolicy.WINDOWS, PrecisionPolicy.of(8), PrecisionPolicy.DEFAULT.withMaxExponent(20) }) {
+			for (String value : new String[] { "2", "0.5", "123.456", "1E+20", "7" }) {
+				NumberExpression x = new NumberExpression(bd(value));
+				Expression chain = UnaryExpression.of(UnaryOperator.oneDivX, UnaryExpression.of(UnaryOperator.root, UnaryExpression.of(UnaryOperator.square, x)));
+				Expression expression = new BinaryExpression(chain, BiOperator.divide, NumberExpression.of("3"));
+				Equation equation = SimpleCalculatorBl.resolve(SimpleCalculatorRecord.of(expression), policy).equation();
+				Result expected = equation.error().error() ? Result.of(equation.error()) : Result.of(equation.value());
+
+				assertEquals(expected, FormulaCompiler.compile(expression, x, policy).apply(x.value()), () -> policy + " " + value);
+			}
+		}
+		NumberExpression x = new NumberExpression(BigDecimal.ONE);
+		Formula windows = FormulaCompiler.compile(BinaryExpression.of("1", BiOperator.divide, x), x, PrecisionPolicy.WINDOWS);
+		assertEquals(Result.of(bd("0." + "3".repeat(32))), windows.apply(bd("3")));
+	}
+
+	@Test
+	void testDivideByParameter() {
+		NumberExpression x = new NumberExpression(BigDecimal.ONE);
+		Formula formula = FormulaCompiler.compile(BinaryExpression.of("10", BiOperator.divide, x), x);
+
+		assertEquals(Result.of(bd("2.5")), formula.apply(bd("4")));
+		assertEquals(Result.of(bd("3.3333333333333333")), formula.apply(bd("3")));
+		assertEquals(Result.of(ResultType.DIVIDE_BY_ZERO), formula.apply(BigDecimal.ZERO));
+	}
+
+	@Test
+	void testErrorOfConstantSubExpression() {
+		NumberExpression x = new NumberExpression(BigDecimal.ONE);
+		Expression error = UnaryExpression.of(UnaryOperator.root, "-4");
+		Formula formula = FormulaCompiler.compile(new BinaryExpression(error, BiOperator.plus, x), x);
+
+		assertEquals(Result.of(ResultType.INVALID_INPUT), formula.apply(bd("4")));
+	}
+
+	@Test
+	void testParameterNotPartOfExpression() {
+		Expression expression = BinaryExpression.of("1", BiOperator.plus, "2");
+
+		assertThrowsExactly(IllegalArgumentException.class, () -> FormulaCompiler.compile(expression, new NumberExpression(BigDecimal.ONE)));
+	}
+
+	private BigDecimal bd(String s) {
+		return new BigDecimal(s);
+	}
+}
@@ -0,0 +1,88 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.EquationHistory;
+import dev.dietermai.wincalc.core.simple.InMemoryEquationHistory;
+import dev.dietermai.wincalc.core.simple.history.EvictionPolicy;
+import dev.dietermai.wincalc.core.simple.history.IndexedEquationHistory;
+import dev.dietermai.wincalc.core.simple.history.RingBufferEquationHistory;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.IdleExpression;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+
+class IndexedEquationHistoryTest {
+
+	@Test
+	void testLookups() {
+		IndexedEquationHistory history = new IndexedEquationHistory(new InMemoryEquationHistory());
+		Equation first = Equation.of(new BigDecimal("1500"));
+		Equation second = Equation.of(new BigDecimal("999.99"));
+		Equation third = Equation.of(new BigDecimal("1500.00"));
+		Equation error = Equation.of(IdleExpression.of(), Result.of(ResultType.DIVIDE_BY_ZERO));
+		history.add(first);
+		history.add(second);
+		history.add(error);
+		history.add(third);
+		history.add(Equation.of(new BigDecimal("2000")));
+
+		assertEquals(List.of(third, first, Equation.of(new BigDecimal("2000"))), history.between(new BigDecimal("1000"), new BigDecimal("2000")));
+		assertEquals(Optional.of(third), history.latestEqualTo(new BigDecimal("1.5E+3")));
+		assertEquals(List.of(error), history.withError(ResultType.DIVIDE_BY_ZERO));
+		assertEquals(List.of(), history.withError(ResultType.UNDEFINED));
+
+		history.delete(1);
+		assertEquals(Optional.of(first), history.latestEqualTo(new BigDecimal("1500")));
+		history.clear();
+		assertEquals(Optional.empty(), history.latestEqualTo(new BigDecimal("1500")));
+	}
+
+	@Test
+	void testRandomOperationsMatchScan() {
+		Random random = new Random(11);
+		for (EquationHistory wrapped : new EquationHistory[] { new InMemoryEquationHistory(), new RingBufferEquationHistory(50), new RingBufferEquationHistory(50, EvictionPolicy.KEEP_PINNED) }) {
+			IndexedEquationHistory history = new IndexedEquationHistory(wrapped);
+			if (wrapped instanceof RingBufferEquationHistory ring) {
+				// KEEP_PINNED does not evict the oldest, so the index has to be rebuilt
+				history.add(Equation.of(BigDecimal.ONE));
+				ring.pin(0);
+			}
+			for (int i = 0; i < 3_000; i++) {
+				int operation = random.nextInt(20);
+				if (operation == 0) {
+					history.delete(random.nextInt(history.size() + 1));
+				} else if (operation == 1 && random.nextInt(10) == 0) {
+					history.clear();
+				} else {
+					history.add(Equation.of(BigDecimal.valueOf(random.nextInt(200), random.nextInt(2))));
+				}
+				BigDecimal from = BigDecimal.valueOf(random.nextInt(100));
+				BigDecimal to = from.add(BigDecimal.valueOf(random.nextInt(50)));
+				assertEquals(scan(history.getEquations(), from, to), history.between(from, to));
+			}
+			assertEquals(wrapped.size(), history.size());
+		}
+	}
+
+	private List<Equation> scan(List<Equation> newestFirst, BigDecimal from, BigDecimal to) {
+		List<Equation> found = new ArrayList<>();
+		for (Equation equation : newestFirst) {
+			if (equation.value().compareTo(from) >= 0 && equation.value().compareTo(to) <= 0) {
+				found.add(equation);
+			}
+		}
+		// stable, so equal values stay newest first
+		found.sort(Comparator.comparing(Equation::value));
+		return found;
+	}
+}
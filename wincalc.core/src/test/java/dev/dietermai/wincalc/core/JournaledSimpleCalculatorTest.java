@@ -0,0 +1,245 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.dietermai.wincalc.core.simple.CalculatorSnapshot;
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.journal.Durability;
+import dev.dietermai.wincalc.core.simple.journal.JournaledSimpleCalculator;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+
+class JournaledSimpleCalculatorTest {
+	private static final int THREADS = 4;
+	private static final int ROUNDS = 250;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testReplayRestoresTheExactState() throws IOException {
+		SimpleCalculator expected = new SimpleCalculator();
+		CalculatorSnapshot before;
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.FSYNC, 0)) {
+			useBoth(expected, calculator);
+			before = calculator.snapshot();
+		}
+
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.FSYNC, 0)) {
+			assertEquals(before, calculator.snapshot());
+			assertEquals(expected.getState(), calculator.getState());
+			assertEquals(expected.getEquations(), calculator.getEquations());
+			assertEquals(expected.getAllMemoryValues(), calculator.getAllMemoryValues());
+		}
+	}
+
+	@Test
+	void testTornRecordIsCutOff() throws IOException {
+		CalculatorSnapshot before;
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 0)) {
+			useBoth(new SimpleCalculator(), calculator);
+			before = calculator.snapshot();
+		}
+		// A record that was only partly written: a length, but no payload
+		Files.write(directory.resolve("journal-0.log"), new byte[] { 0, 0, 0, 20, 1, 2 }, StandardOpenOption.APPEND);
+
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 0)) {
+			assertEquals(before, calculator.snapshot());
+			calculator.c();
+		}
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 0)) {
+			assertEquals(before.apply(Operation.of(OperationType.c)), calculator.snapshot());
+		}
+	}
+
+	@Test
+	void testTornHeaderIsWrittenAgain() throws IOException {
+		// The first bytes of the magic, the rest of the header was lost
+		Files.write(directory.resolve("journal-0.log"), new byte[] { 0x57, 0x43, 0x53 });
+
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 0)) {
+			assertEquals(0, calculator.journal().replayed());
+			assertEquals(CalculatorSnapshot.of(), calculator.snapshot());
+			calculator.number("5");
+		}
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 0)) {
+			assertEquals(1, calculator.journal().replayed());
+		}
+	}
+
+	@Test
+	void testJournalLargerThanAChunk() throws IOException {
+		SimpleCalculator expected = new SimpleCalculator();
+		List<Operation> operations = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			operations.add(Operation.number(Integer.toString(10_000_000 + i)));
+			operations.add(Operation.of(OperationType.plus));
+		}
+		operations.add(Operation.of(OperationType.resolve));
+		// One record larger than the chunks the journal is read in
+		Equation large = Equation.of(new BigDecimal(BigInteger.ONE.shiftLeft(1_000_000)));
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 0)) {
+			operations.forEach(expected::apply);
+			calculator.applyAll(operations);
+			expected.add(large);
+			calculator.add(large);
+		}
+		assertTrue(Files.size(directory.resolve("journal-0.log")) > 300_000);
+
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 0)) {
+			assertEquals(operations.size() + 1, calculator.journal().replayed());
+			assertEquals(expected.getState(), calculator.getState());
+			assertEquals(expected.getEquations(), calculator.getEquations());
+		}
+	}
+
+	@Test
+	void testRecordLargerThanAMegabyteIsReplayed() throws IOException {
+		CalculatorSnapshot before;
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 0)) {
+			calculator.number("12");
+			calculator.ms();
+			calculator.add(Equation.of(new BigDecimal(BigInteger.ONE.shiftLeft(9_000_000))));
+			calculator.number("5");
+			calculator.plus();
+			calculator.number("6");
+			calculator.resolve();
+			before = calculator.snapshot();
+		}
+		assertTrue(Files.size(directory.resolve("journal-0.log")) > 1 << 20);
+
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 0)) {
+			assertEquals(7, calculator.journal().replayed());
+			assertEquals(before, calculator.snapshot());
+			assertEquals(2, calculator.getEquations().size());
+			assertEquals(new BigDecimal("11"), SimpleCalculatorBl.getCurrentValue(calculator.getState()));
+		}
+	}
+
+	@Test
+	void testCheckpointsKeepTheJournalShort() throws IOException {
+		CalculatorSnapshot before;
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 7)) {
+			useBoth(new SimpleCalculator(), calculator);
+			before = calculator.snapshot();
+		}
+		assertFalse(Files.exists(directory.resolve("journal-0.log")));
+
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 7)) {
+			assertEquals(before, calculator.snapshot());
+			assertTrue(calculator.journal().replayed() < 7);
+			calculator.checkpoint();
+			calculator.ms();
+		}
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 7)) {
+			assertEquals(1, calculator.journal().replayed());
+			assertEquals(before.ms(), calculator.snapshot());
+		}
+	}
+
+	@Test
+	void testCheckpointOfLongUnaryChain() throws IOException {
+		BigDecimal before;
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 0)) {
+			calculator.number("2");
+			for (int i = 0; i < 20_000; i++) {
+				calculator.root();
+			}
+			calculator.checkpoint();
+			before = SimpleCalculatorBl.getCurrentValue(calculator.getState());
+		}
+
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.WRITE, 0)) {
+			assertEquals(0, calculator.journal().replayed());
+			assertEquals(before, SimpleCalculatorBl.getCurrentValue(calculator.getState()));
+		}
+	}
+
+	@Test
+	void testGroupCommit() throws Exception {
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.FSYNC, 0)) {
+			calculator.number("0");
+			calculator.plus();
+			calculator.number("1");
+			calculator.resolve();
+
+			long commits = calculator.journal().groupCommits();
+			calculator.applyAll(Collections.nCopies(100, Operation.of(OperationType.resolve)));
+			assertEquals(commits + 1, calculator.journal().groupCommits());
+
+			ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++) {
+				futures.add(executor.submit(() -> {
+					for (int round = 0; round < ROUNDS; round++) {
+						calculator.resolve();
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			executor.shutdown();
+
+			assertEquals(BigDecimal.valueOf(101 + THREADS * ROUNDS), SimpleCalculatorBl.getCurrentValue(calculator.getState()));
+			assertEquals(104 + THREADS * ROUNDS, calculator.journal().appended());
+		}
+		try (JournaledSimpleCalculator calculator = JournaledSimpleCalculator.open(directory, Durability.FSYNC, 0)) {
+			assertEquals(BigDecimal.valueOf(101 + THREADS * ROUNDS), SimpleCalculatorBl.getCurrentValue(calculator.getState()));
+		}
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	/**
+	 * Uses every kind of change on both calculators
+	 */
+	private static void useBoth(SimpleCalculator expected, JournaledSimpleCalculator calculator) throws IOException {
+		for (Operation operation : List.of(Operation.number("12"), Operation.of(OperationType.plus), Operation.number("3.5"), Operation.of(OperationType.resolve),
+				Operation.of(OperationType.square), Operation.of(OperationType.resolve), Operation.number("7"), Operation.of(OperationType.divide),
+				Operation.number("3"), Operation.of(OperationType.resolve))) {
+			expected.apply(operation);
+			calculator.apply(operation);
+		}
+		expected.resolve(5);
+		calculator.resolve(5);
+		expected.ms();
+		calculator.ms();
+		expected.mPlus();
+		calculator.mPlus();
+		expected.mMinus();
+		calculator.mMinus();
+		expected.ms();
+		calculator.ms();
+		Equation equation = Equation.of(new BigDecimal("1e-40"));
+		expected.add(equation);
+		calculator.add(equation);
+		expected.deleteEquation(1);
+		calculator.deleteEquation(1);
+		List<Operation> burst = List.of(Operation.number("4"), Operation.of(OperationType.negate), Operation.of(OperationType.oneDivX));
+		burst.forEach(expected::apply);
+		calculator.applyAll(burst);
+	}
+}
@@ -0,0 +1,191 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.history.MappedEquationHistory;
+import dev.dietermai.wincalc.core.simple.model.BiOperator;
+import dev.dietermai.wincalc.core.simple.model.BinaryExpression;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+import dev.dietermai.wincalc.core.simple.model.UnaryOperator;
+
+class MappedEquationHistoryTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testEquationsSurviveReopen() throws IOException {
+		List<Equation> expected = new ArrayList<>();
+		Path path = directory.resolve("history");
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			for (int i = 0; i < 10_000; i++) {
+				Equation equation = equation(i);
+				history.add(equation);
+				expected.add(0, equation);
+			}
+		}
+
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			assertEquals(expected, history.getEquations());
+		}
+	}
+
+	@Test
+	void testAllExpressionsAreEncoded() throws IOException {
+		List<Equation> equations = List.of( //
+				Equation.of(new BigDecimal("1E+400")), //
+				Equation.of(UnaryExpression.of(UnaryOperator.root, UnaryExpression.of(UnaryOperator.negate, "4")), Result.of(ResultType.INVALID_INPUT)), //
+				Equation.of(BinaryExpression.of(new BigDecimal("-12345678901234567890.5"), BiOperator.divide, UnaryExpression.of(UnaryOperator.square, "0.001")), Result.of(BigDecimal.TEN)), //
+				Equation.of(BinaryExpression.of("1", BiOperator.plus), Result.of(BigDecimal.ONE)));
+		try (MappedEquationHistory history = MappedEquationHistory.open(directory.resolve("history"))) {
+			equations.forEach(history::add);
+			List<Equation> newestFirst = new ArrayList<>(equations);
+			Collections.reverse(newestFirst);
+
+			assertEquals(newestFirst, history.getEquations());
+		}
+	}
+
+	@Test
+	void testDeleteAndClear() throws IOException {
+		Path path = directory.resolve("history");
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			for (int i = 0; i < 5; i++) {
+				history.add(equation(i));
+			}
+			List<Equation> before = history.getEquations();
+			history.delete(1);
+			history.delete(3);
+			history.delete(7);
+
+			assertEquals(List.of(equation(4), equation(2), equation(1)), history.getEquations());
+			assertEquals(5, before.size());
+		}
+
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			assertEquals(List.of(equation(4), equation(2), equation(1)), history.getEquations());
+			history.clear();
+			history.add(equation(5));
+
+			assertEquals(List.of(equation(5)), history.getEquations());
+		}
+
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			assertEquals(List.of(equation(5)), history.getEquations());
+		}
+	}
+
+	@Test
+	void testManyDeletesSurviveReopen() throws IOException {
+		List<Equation> expected = new ArrayList<>();
+		Path path = directory.resolve("history");
+		Random random = new Random(42);
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			for (int i = 0; i < 20_000; i++) {
+				history.add(equation(i));
+				expected.add(0, equation(i));
+			}
+			for (int i = 0; i < 10_000; i++) {
+				int position = random.nextInt(expected.size());
+				history.delete(position);
+				expected.remove(position);
+			}
+			assertEquals(expected, history.getEquations());
+		}
+
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			assertEquals(expected, history.getEquations());
+		}
+	}
+
+	@Test
+	void testTornRecordIsDropped() throws IOException {
+		Path path = directory.resolve("history");
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			history.add(equation(1));
+			history.add(equation(2));
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			// The header holds the end of the last record, corrupt its last byte
+			ByteBuffer end = ByteBuffer.allocate(Long.BYTES);
+			channel.read(end, 8);
+			channel.write(ByteBuffer.wrap(new byte[] { 0x7F }), end.getLong(0) - 1);
+		}
+
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			assertEquals(List.of(equation(1)), history.getEquations());
+			history.add(equation(3));
+		}
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			assertEquals(List.of(equation(3), equation(1)), history.getEquations());
+		}
+	}
+
+	@Test
+	void testZeroFilledRecordIsDropped() throws IOException {
+		Path path = directory.resolve("history");
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			history.add(equation(1));
+			history.add(equation(2));
+		}
+		try (FileChannel index = FileChannel.open(directory.resolve("history.idx"), StandardOpenOption.READ);
+				FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			// The index entry of the second record follows the 24 byte header
+			ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+			index.read(offset, 24 + Long.BYTES);
+			ByteBuffer end = ByteBuffer.allocate(Long.BYTES);
+			channel.read(end, 8);
+			channel.write(ByteBuffer.allocate((int) (end.getLong(0) - offset.getLong(0))), offset.getLong(0));
+		}
+
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			assertEquals(1, history.size());
+			assertEquals(List.of(equation(1)), history.getEquations());
+		}
+	}
+
+	@Test
+	void testCalculatorWithMappedHistory() throws IOException {
+		Path path = directory.resolve("history");
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			SimpleCalculator calculator = new SimpleCalculator(history);
+			calculator.number("3");
+			calculator.plus();
+			calculator.number("4");
+			calculator.resolve();
+			calculator.resolve();
+		}
+
+		try (MappedEquationHistory history = MappedEquationHistory.open(path)) {
+			List<Equation> equations = history.getEquations();
+
+			assertEquals(2, equations.size());
+			assertEquals(new BigDecimal("11"), equations.get(0).value());
+			assertThrowsExactly(IndexOutOfBoundsException.class, () -> equations.get(2));
+		}
+	}
+
+	private Equation equation(int i) {
+		BigDecimal value = BigDecimal.valueOf(i, i % 5);
+		return Equation.of(BinaryExpression.of(value, BiOperator.multiply, value), Result.of(value.multiply(value)));
+	}
+}
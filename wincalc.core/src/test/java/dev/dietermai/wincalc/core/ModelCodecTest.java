@@ -0,0 +1,181 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.codec.ModelCodec;
+import dev.dietermai.wincalc.core.simple.codec.ModelReader;
+import dev.dietermai.wincalc.core.simple.codec.ModelWriter;
+import dev.dietermai.wincalc.core.simple.model.BiOperator;
+import dev.dietermai.wincalc.core.simple.model.BinaryExpression;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Expression;
+import dev.dietermai.wincalc.core.simple.model.IdleExpression;
+import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+import dev.dietermai.wincalc.core.simple.model.UnaryOperator;
+
+class ModelCodecTest {
+	private static final int SAMPLES = 2_000;
+	private static final int DEEP_CHAIN = 200_000;
+
+	private final Random random = new Random(42);
+	private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+	@Test
+	void testRoundTripOfRandomValues() {
+		for (int i = 0; i < SAMPLES; i++) {
+			Expression expression = randomExpression(4);
+			ModelCodec.encode(expression, buffer.clear());
+			assertEquals(expression, ModelCodec.decodeExpression(buffer.flip()));
+			assertFalse(buffer.hasRemaining());
+
+			Equation equation = random.nextInt(10) == 0 ? null : randomEquation();
+			ModelCodec.encode(equation, buffer.clear());
+			assertEquals(equation, ModelCodec.decodeEquation(buffer.flip()));
+			assertFalse(buffer.hasRemaining());
+
+			Result result = randomResult();
+			ModelCodec.encode(result, buffer.clear());
+			assertEquals(result, ModelCodec.decodeResult(buffer.flip()));
+			assertFalse(buffer.hasRemaining());
+
+			SimpleCalculatorRecord state = SimpleCalculatorRecord.of(randomInput(), randomExpression(3), randomEquation(), randomType());
+			ModelCodec.encode(state, buffer.clear());
+			assertEquals(state, ModelCodec.decodeRecord(buffer.flip()));
+			assertFalse(buffer.hasRemaining());
+		}
+	}
+
+	@Test
+	void testSharedSubtreesAreWrittenOnce() {
+		Expression shared = randomExpression(6);
+		while (shared instanceof IdleExpression || shared == null) {
+			shared = randomExpression(6);
+		}
+		ModelCodec.encode(shared, buffer.clear());
+		int single = buffer.position();
+
+		BinaryExpression twice = new BinaryExpression(shared, BiOperator.plus, shared);
+		ModelCodec.encode(twice, buffer.clear());
+		// Tag, left, operator and a back-reference of two bytes at most
+		assertTrue(buffer.position() <= single + 4);
+
+		BinaryExpression decoded = (BinaryExpression) ModelCodec.decodeExpression(buffer.flip());
+		assertEquals(twice, decoded);
+		assertSame(decoded.left(), decoded.right());
+
+		// One stream shares back-references between values
+		ModelWriter writer = new ModelWriter(buffer.clear());
+		writer.writeExpression(shared).writeEquation(new Equation(shared, BigDecimal.ONE, ResultType.OK));
+		ModelReader reader = new ModelReader(buffer.flip());
+		Expression first = reader.readExpression();
+		assertSame(first, reader.readEquation().expression());
+	}
+
+	@Test
+	void testRoundTripOfDeepUnaryChain() {
+		Expression chain = NumberExpression.of("5");
+		for (int i = 0; i < DEEP_CHAIN; i++) {
+			chain = new UnaryExpression(randomOf(UnaryOperator.values()), chain);
+		}
+		BinaryExpression twice = new BinaryExpression(chain, BiOperator.plus, chain);
+
+		byte[] bytes = ModelCodec.toByteArray(writer -> writer.writeExpression(twice));
+		BinaryExpression decoded = (BinaryExpression) new ModelReader(ByteBuffer.wrap(bytes)).readExpression();
+
+		// equals of the records recurses, so compare the chains link by link
+		Expression expected = chain;
+		Expression actual = decoded.left();
+		while (expected instanceof UnaryExpression unary) {
+			assertEquals(unary.operator(), ((UnaryExpression) actual).operator());
+			expected = unary.nested();
+			actual = ((UnaryExpression) actual).nested();
+		}
+		assertEquals(expected, actual);
+		assertSame(decoded.left(), decoded.right());
+	}
+
+	@Test
+	void testCompactEncoding() {
+		ModelCodec.encode(BinaryExpression.of("12", BiOperator.plus, "3"), buffer.clear());
+		// Version, tag, number tag, value, scale, operator, number tag, value, scale
+		assertEquals(11, buffer.position());
+
+		ModelCodec.encode(Result.of(ResultType.DIVIDE_BY_ZERO), buffer.clear());
+		assertEquals(3, buffer.position());
+	}
+
+	@Test
+	void testInvalidInput() {
+		assertThrows(IllegalArgumentException.class, () -> ModelCodec.decodeExpression(ByteBuffer.wrap(new byte[] { 9, 0 })));
+		assertThrows(IllegalArgumentException.class, () -> ModelCodec.decodeExpression(ByteBuffer.wrap(new byte[] { ModelCodec.VERSION, 42 })));
+		// A back-reference to an expression that was not read
+		assertThrows(IllegalArgumentException.class, () -> ModelCodec.decodeExpression(ByteBuffer.wrap(new byte[] { ModelCodec.VERSION, 2, 0 })));
+		assertThrows(IllegalArgumentException.class, () -> ModelCodec.decodeResult(ByteBuffer.wrap(new byte[] { ModelCodec.VERSION, 77, 0 })));
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private Expression randomExpression(int depth) {
+		int kind = random.nextInt(depth <= 0 ? 3 : 5);
+		return switch (kind) {
+		case 0 -> null;
+		case 1 -> IdleExpression.of();
+		case 2 -> random.nextBoolean() ? NumberExpression.of(randomDecimal()) : new NumberExpression(randomDecimal());
+		case 3 -> UnaryExpression.of(randomOf(UnaryOperator.values()), randomExpression(depth - 1));
+		default -> new BinaryExpression(randomExpression(depth - 1), randomOf(BiOperator.values()), randomExpression(depth - 1));
+		};
+	}
+
+	private Equation randomEquation() {
+		ResultType type = randomType();
+		return new Equation(randomExpression(3), type.ok() || random.nextBoolean() ? randomDecimal() : null, type);
+	}
+
+	private Result randomResult() {
+		ResultType type = randomType();
+		return type.ok() ? Result.of(randomDecimal()) : Result.of(type);
+	}
+
+	private BigDecimal randomDecimal() {
+		BigInteger unscaled = switch (random.nextInt(4)) {
+		case 0 -> BigInteger.valueOf(random.nextInt(2_000) - 1_000);
+		case 1 -> BigInteger.valueOf(random.nextLong());
+		case 2 -> BigInteger.valueOf(random.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE);
+		default -> new BigInteger(1 + random.nextInt(300), random).multiply(BigInteger.valueOf(random.nextBoolean() ? 1 : -1));
+		};
+		int scale = random.nextInt(10) == 0 ? random.nextInt() : random.nextInt(80) - 20;
+		return new BigDecimal(unscaled, scale);
+	}
+
+	private String randomInput() {
+		StringBuilder input = new StringBuilder();
+		for (int i = random.nextInt(20); i > 0; i--) {
+			input.append(random.nextInt(50) == 0 ? (char) random.nextInt(Character.MAX_VALUE + 1) : "0123456789.-".charAt(random.nextInt(12)));
+		}
+		return input.toString();
+	}
+
+	private ResultType randomType() {
+		return randomOf(ResultType.values());
+	}
+
+	private <E> E randomOf(E[] values) {
+		return values[random.nextInt(values.length)];
+	}
+}
@@ -0,0 +1,165 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMX;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.metrics.Histogram;
+import dev.dietermai.wincalc.core.simple.metrics.HistogramSnapshot;
+import dev.dietermai.wincalc.core.simple.metrics.HistoryOperationType;
+import dev.dietermai.wincalc.core.simple.metrics.OperationMetrics;
+import dev.dietermai.wincalc.core.simple.metrics.OperationMetricsMXBean;
+import dev.dietermai.wincalc.core.simple.metrics.OperationMetricsSnapshot;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+
+class OperationMetricsTest {
+
+	@BeforeEach
+	public void beforeEach() {
+		OperationMetrics.shared().reset();
+		OperationMetrics.shared().setEnabled(true);
+		OperationMetrics.shared().setSampleInterval(1);
+	}
+
+	@AfterEach
+	public void afterEach() {
+		OperationMetrics.shared().setEnabled(false);
+		OperationMetrics.shared().setSampleInterval(OperationMetrics.DEFAULT_SAMPLE_INTERVAL);
+		OperationMetrics.shared().reset();
+	}
+
+	@Test
+	void testRecordsOperationsAndErrors() {
+		SimpleCalculator calculator = new SimpleCalculator();
+		calculator.number("12.5");
+		calculator.divide();
+		calculator.number("0");
+		calculator.resolve();
+
+		OperationMetricsSnapshot snapshot = OperationMetrics.shared().snapshot();
+		assertEquals(2, snapshot.count(OperationType.number));
+		assertEquals(1, snapshot.count(OperationType.divide));
+		assertEquals(1, snapshot.count(OperationType.resolve));
+		assertEquals(0, snapshot.count(OperationType.plus));
+		assertEquals(1, snapshot.errors(ResultType.DIVIDE_BY_ZERO));
+		assertEquals(0, snapshot.errors(ResultType.UNDEFINED));
+		assertEquals(2, snapshot.operandDigits().count());
+		assertEquals(2.0, snapshot.operandDigits().mean());
+	}
+
+	@Test
+	void testRecordsMemoryAndHistoryOperations() {
+		SimpleCalculator calculator = new SimpleCalculator();
+		calculator.number("7");
+		calculator.ms();
+		calculator.mPlus();
+		calculator.mPlus();
+		calculator.mMinus();
+		calculator.mr();
+		calculator.mc();
+		calculator.add(Equation.of(BigDecimal.ONE));
+		calculator.deleteEquation(0);
+		calculator.clearEquationHistory();
+
+		OperationMetricsSnapshot snapshot = OperationMetrics.shared().snapshot();
+		assertEquals(1, snapshot.count(HistoryOperationType.ms));
+		assertEquals(2, snapshot.count(HistoryOperationType.mPlus));
+		assertEquals(1, snapshot.count(HistoryOperationType.mMinus));
+		assertEquals(1, snapshot.count(HistoryOperationType.mr));
+		assertEquals(1, snapshot.count(HistoryOperationType.mc));
+		assertEquals(1, snapshot.count(HistoryOperationType.add));
+		assertEquals(1, snapshot.count(HistoryOperationType.deleteEquation));
+		assertEquals(1, snapshot.count(HistoryOperationType.clearEquationHistory));
+		assertEquals(2, snapshot.historyLatencies().get(HistoryOperationType.mPlus).count());
+		assertEquals(1, snapshot.count(OperationType.number));
+	}
+
+	@Test
+	void testCountsEveryOperationButTimesSamples() {
+		OperationMetrics.shared().setSampleInterval(4);
+		SimpleCalculator calculator = new SimpleCalculator();
+		for (int i = 0; i < 1_000; i++) {
+			calculator.negate();
+		}
+
+		OperationMetricsSnapshot snapshot = OperationMetrics.shared().snapshot();
+		assertEquals(1_000, snapshot.count(OperationType.negate));
+		long timed = snapshot.latencies().get(OperationType.negate).count();
+		assertTrue(timed > 150 && timed < 350, () -> timed + " timed");
+	}
+
+	@Test
+	void testDisabledRecordsNothing() {
+		OperationMetrics.shared().setEnabled(false);
+		SimpleCalculator calculator = new SimpleCalculator();
+		calculator.number("3");
+		calculator.square();
+
+		OperationMetricsSnapshot snapshot = OperationMetrics.shared().snapshot();
+		assertEquals(0, snapshot.count(OperationType.number));
+		assertEquals(0, snapshot.count(OperationType.square));
+		assertEquals(0, snapshot.operandDigits().count());
+	}
+
+	@Test
+	void testHistogramFromManyThreads() throws InterruptedException {
+		Histogram histogram = new Histogram();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(Thread.startVirtualThread(() -> {
+				for (int value = 1; value <= 1_000; value++) {
+					histogram.record(value);
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		HistogramSnapshot snapshot = histogram.snapshot();
+		assertEquals(4_000, snapshot.count());
+		assertEquals(500.5, snapshot.mean());
+		assertBetween(500, 500 * 1.125, snapshot.percentile(50));
+		assertBetween(990, 990 * 1.125, snapshot.percentile(99));
+		assertBetween(1_000, 1_000 * 1.125, snapshot.max());
+	}
+
+	@Test
+	void testPublishedAsPlatformMBean() throws MalformedObjectNameException {
+		OperationMetrics.registerMBean();
+		OperationMetrics.registerMBean();
+		OperationMetricsMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), new ObjectName(OperationMetrics.OBJECT_NAME),
+				OperationMetricsMXBean.class);
+
+		SimpleCalculator calculator = new SimpleCalculator();
+		calculator.number("4");
+		calculator.root();
+		calculator.resolve();
+
+		assertTrue(bean.isEnabled());
+		assertEquals(1L, bean.getOperationCounts().get("root"));
+		assertEquals(0L, bean.getOperationCounts().get("ms"));
+		assertEquals(0L, bean.getErrorCounts().get("INVALID_INPUT"));
+		assertTrue(bean.getMaxLatencyNanos().get("resolve") > 0);
+		assertEquals(1, bean.getMaxOperandDigits());
+	}
+
+	private static void assertBetween(double lowest, double highest, long actual) {
+		assertTrue(actual >= lowest && actual <= highest, () -> actual + " not in [" + lowest + ", " + highest + "]");
+	}
+}
@@ -0,0 +1,74 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.PersistentVector;
+
+class PersistentVectorTest {
+
+	@Test
+	void testMatchesArrayList() {
+		Random random = new Random(10);
+		PersistentVector<Integer> vector = PersistentVector.empty();
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 100_000; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 7 || expected.isEmpty()) {
+				vector = vector.append(i);
+				expected.add(i);
+			} else if (operation < 9) {
+				vector = vector.pop();
+				expected.remove(expected.size() - 1);
+			} else {
+				int index = random.nextInt(expected.size());
+				vector = vector.with(index, -i);
+				expected.set(index, -i);
+			}
+			if (i % 997 == 0) {
+				assertEquals(expected, vector);
+			}
+		}
+		assertEquals(expected, vector);
+
+		while (!expected.isEmpty()) {
+			vector = vector.pop();
+			expected.remove(expected.size() - 1);
+		}
+		assertEquals(List.of(), vector);
+	}
+
+	@Test
+	void testVersionsAreIndependent() {
+		PersistentVector<Integer> vector = PersistentVector.empty();
+		List<PersistentVector<Integer>> versions = new ArrayList<>();
+		for (int i = 0; i < 2_000; i++) {
+			versions.add(vector);
+			vector = vector.append(i);
+		}
+		PersistentVector<Integer> changed = vector.with(5, -5).without(1_000).pop();
+
+		for (int i = 0; i < versions.size(); i++) {
+			assertEquals(i, versions.get(i).size());
+		}
+		assertEquals(5, vector.get(5));
+		assertEquals(-5, changed.get(5));
+		assertEquals(1_001, changed.get(1_000));
+		assertEquals(1_998, changed.size());
+	}
+
+	@Test
+	void testReverseView() {
+		PersistentVector<String> vector = PersistentVector.<String>empty().append("a").append("b").append("c");
+
+		assertEquals(List.of("c", "b", "a"), vector.reverseView());
+		assertThrowsExactly(IndexOutOfBoundsException.class, () -> vector.reverseView().get(3));
+		assertThrowsExactly(UnsupportedOperationException.class, () -> vector.add("d"));
+	}
+}
@@ -0,0 +1,182 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.EvaluationMode;
+import dev.dietermai.wincalc.core.simple.FastPath;
+import dev.dietermai.wincalc.core.simple.PrecisionPolicy;
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.BiOperator;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+import dev.dietermai.wincalc.core.simple.model.Result;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+class PrecisionPolicyTest {
+
+	@AfterEach
+	public void afterEach() {
+		FastPath.setMode(EvaluationMode.EXACT);
+	}
+
+	@Test
+	void testDefaultKeepsSixteenDigits() {
+		SimpleCalculator calculator = new SimpleCalculator();
+		divide(calculator, "2", "3");
+
+		assertSame(PrecisionPolicy.DIGITS_16, calculator.getPrecision());
+		assertEquals(new BigDecimal("0.6666666666666667"), calculator.getState().equation().value());
+	}
+
+	@Test
+	void testWindowsPrecision() {
+		SimpleCalculator calculator = new SimpleCalculator();
+		calculator.setPrecision(PrecisionPolicy.WINDOWS);
+
+		divide(calculator, "1", "3");
+		assertEquals(new BigDecimal("0." + "3".repeat(32)), calculator.getState().equation().value());
+
+		calculator.number("2");
+		calculator.root();
+		assertEquals(new BigDecimal(2).sqrt(new MathContext(32)), SimpleCalculatorBl.getCurrentValue(calculator.getState(), PrecisionPolicy.WINDOWS));
+	}
+
+	@Test
+	void testSquareIsOnlyRoundedBeyondTheDigits() {
+		SimpleCalculatorRecord state = SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), "12345678");
+
+		assertEquals(new BigDecimal("152415765279684"), SimpleCalculatorBl.getCurrentValue(SimpleCalculatorBl.square(state, PrecisionPolicy.of(16))));
+		assertEquals(new BigDecimal("1.5241577E+14"), SimpleCalculatorBl.getCurrentValue(SimpleCalculatorBl.square(state, PrecisionPolicy.of(8)), PrecisionPolicy.of(8)));
+	}
+
+	@Test
+	void testFastPathMatchesExactForEveryCompactPrecision() {
+		Random random = new Random(11);
+		for (int digits : new int[] { 1, 4, 8, 16, 18, 19, 40 }) {
+			PrecisionPolicy policy = PrecisionPolicy.of(digits);
+			for (int i = 0; i < 1_000; i++) {
+				BigDecimal left = BigDecimal.valueOf(random.nextLong() % 10_000_000_000L, random.nextInt(12));
+				BigDecimal right = BigDecimal.valueOf(1 + random.nextInt(100_000), random.nextInt(12));
+				assertSameInBothModes(policy, left, right, (state, p) -> SimpleCalculatorBl.resolve(SimpleCalculatorBl.number(SimpleCalculatorBl.divide(state, p), right.toPlainString()), p));
+				assertSameInBothModes(policy, left.multiply(left).abs(), right, SimpleCalculatorBl::root);
+			}
+		}
+	}
+
+	@Test
+	void testNeedsADigit() {
+		assertSame(PrecisionPolicy.WINDOWS, PrecisionPolicy.of(32));
+		assertEquals(PrecisionPolicy.of(50), PrecisionPolicy.of(50));
+		assertThrows(IllegalArgumentException.class, () -> PrecisionPolicy.of(0));
+		assertThrows(IllegalArgumentException.class, () -> PrecisionPolicy.DEFAULT.withMaxDigits(15));
+		assertThrows(IllegalArgumentException.class, () -> PrecisionPolicy.DEFAULT.withMaxExponent(0));
+		assertNotEquals(PrecisionPolicy.DEFAULT, PrecisionPolicy.DEFAULT.withMaxExponent(99));
+	}
+
+	@Test
+	void testRepeatedSquaringOverflows() {
+		SimpleCalculator calculator = new SimpleCalculator();
+		calculator.number("10");
+		int presses = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			int press = 0;
+			while (calculator.getState().lastResolve().ok()) {
+				calculator.multiply();
+				calculator.resolve();
+				press++;
+			}
+			return press;
+		});
+
+		// 10^(2^13) is still below 10^10000
+		assertEquals(14, presses);
+		assertEquals(ResultType.OVERFLOW, calculator.getState().lastResolve());
+	}
+
+	@Test
+	void testMagnitudeCeiling() {
+		PrecisionPolicy policy = PrecisionPolicy.DEFAULT.withMaxExponent(5);
+
+		assertEquals(Result.of(new BigDecimal("99999")), result("99998", BiOperator.plus, "1", policy));
+		assertEquals(Result.of(ResultType.OVERFLOW), result("99999", BiOperator.plus, "1", policy));
+		assertEquals(Result.of(ResultType.OVERFLOW), result("1000", BiOperator.multiply, "1000", policy));
+		assertEquals(Result.of(new BigDecimal("0.00001")), result("0.001", BiOperator.multiply, "0.01", policy));
+		assertEquals(Result.of(ResultType.OVERFLOW), result("0.001", BiOperator.multiply, "0.001", policy));
+		assertEquals(Result.of(ResultType.OVERFLOW), result("1", BiOperator.divide, "0.00001", policy));
+	}
+
+	@Test
+	void testProductsAreRoundedBeyondThePrecisionCeiling() {
+		PrecisionPolicy policy = PrecisionPolicy.DEFAULT.withMaxDigits(20);
+
+		assertEquals(Result.of(new BigDecimal("152415787526596567801")), result("12345678901", BiOperator.multiply, "12345678901", PrecisionPolicy.DEFAULT));
+		assertEquals(Result.of(new BigDecimal("1.5241578752659656780E+20")), result("12345678901", BiOperator.multiply, "12345678901", policy));
+		assertEquals(Result.of(new BigDecimal("1.5241578752659656780E+20")), result("12345678901.0000000000000000000001", BiOperator.multiply, "12345678901", policy));
+	}
+
+	@Test
+	void testOperandsBeyondTheCeilingAreRoundedOnce() {
+		// Rounding 1.729595 to the ceiling first would give 1.72960^2 = 2.992
+		SimpleCalculatorRecord state = SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), "1.729595");
+		PrecisionPolicy square = PrecisionPolicy.of(4).withMaxDigits(6);
+		assertEquals(new BigDecimal("2.991"), SimpleCalculatorBl.getCurrentValue(SimpleCalculatorBl.square(state, square), square));
+
+		// Rounding both operands to the ceiling first would give 9.23 * 4.72 = 43.6
+		PrecisionPolicy product = PrecisionPolicy.of(2).withMaxDigits(3);
+		assertEquals(Result.of(new BigDecimal("43.5")), result("9.228", BiOperator.multiply, "4.718", product));
+	}
+
+	@Test
+	void testRepeatedProductsAtTheCeilings() {
+		SimpleCalculatorRecord state = SimpleCalculatorBl.resolve(SimpleCalculatorBl.number(SimpleCalculatorBl.multiply(SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), "3")), "2"));
+		SimpleCalculatorRecord oneByOne = state;
+		for (int i = 0; i < 2_000; i++) {
+			oneByOne = SimpleCalculatorBl.resolve(oneByOne);
+		}
+		assertEquals(oneByOne, SimpleCalculatorBl.resolve(state, 2_000));
+
+		SimpleCalculatorRecord unchanged = SimpleCalculatorBl.resolve(SimpleCalculatorBl.number(SimpleCalculatorBl.multiply(SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), "3")), "-1"));
+		assertEquals(new BigDecimal("3"), assertTimeoutPreemptively(Duration.ofSeconds(5), () -> SimpleCalculatorBl.resolve(unchanged, 1_000_000_001L)).equation().value());
+	}
+
+	private void assertSameInBothModes(PrecisionPolicy policy, BigDecimal left, BigDecimal right,
+			BiFunction<SimpleCalculatorRecord, PrecisionPolicy, SimpleCalculatorRecord> operation) {
+		SimpleCalculatorRecord state = SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), left.toPlainString());
+		FastPath.setMode(EvaluationMode.EXACT);
+		BigDecimal exact = SimpleCalculatorBl.getCurrentValue(operation.apply(state, policy), policy);
+		FastPath.setMode(EvaluationMode.FAST_PATH);
+		BigDecimal fast = SimpleCalculatorBl.getCurrentValue(operation.apply(state, policy), policy);
+
+		assertEquals(exact, fast, () -> policy + " " + left + " " + right);
+	}
+
+	private static Result result(String left, BiOperator operator, String right, PrecisionPolicy policy) {
+		SimpleCalculatorRecord state = SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), left);
+		state = SimpleCalculatorBl.apply(state, Operation.of(OperationType.valueOf(operator.name())), policy);
+		state = SimpleCalculatorBl.resolve(SimpleCalculatorBl.number(state, right), policy);
+		Equation equation = state.equation();
+		return equation.error().error() ? Result.of(equation.error()) : Result.of(equation.value());
+	}
+
+	private void divide(SimpleCalculator calculator, String left, String right) {
+		calculator.number(left);
+		calculator.divide();
+		calculator.number(right);
+		calculator.resolve();
+	}
+}
@@ -0,0 +1,209 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.PrecisionPolicy;
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.ResultType;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+class RepeatResolveTest {
+
+	@Test
+	void testRepeatMatchesSingleResolves() {
+		String[][] sessions = { //
+				{ "12.5", "plus", "0.25" }, //
+				{ "100", "minus", "7" }, //
+				{ "1.5", "multiply", "-2" }, //
+				{ "0.1", "multiply", "0.5" }, //
+				{ "1024", "divide", "2" }, //
+				{ "1", "divide", "3" }, //
+				{ "1", "divide", "-2" }, //
+				{ "5", "divide", "0.5" }, //
+				{ "7", "divide", "-1" }, //
+				{ "0", "multiply", "9" }, //
+				{ "1.50", "multiply", "1" }, //
+				{ "2.50", "multiply", "-1" }, //
+				{ "3.00", "multiply", "1.00" }, //
+				{ "4.20", "multiply", "0" }, //
+				{ "0", "multiply", "0.5" }, //
+				{ "0.0", "multiply", "-1" } };
+		for (String[] session : sessions) {
+			for (long times : new long[] { 1, 2, 3, 10, 57, 200 }) {
+				SimpleCalculatorRecord state = start(session);
+				assertEquals(resolveOneByOne(state, times), SimpleCalculatorBl.resolve(state, times), () -> String.join(" ", session) + " x" + times);
+			}
+		}
+	}
+
+	@Test
+	void testRandomRepeatsMatchSingleResolves() {
+		Random random = new Random(7);
+		String[] operators = { "plus", "minus", "multiply", "divide" };
+		String[] operands = { "0", "1", "1.00", "-1", "-1.0", "2", "0.5", "2.50", "-3", "10", "0.10", "1.001", "7" };
+		for (int i = 0; i < 2_000; i++) {
+			String[] session = { randomOf(random, operands), randomOf(random, operators), randomOf(random, operands) };
+			long times = 1 + random.nextInt(64);
+			SimpleCalculatorRecord state = start(session);
+			assertEquals(resolveOneByOne(state, times, PrecisionPolicy.DEFAULT), SimpleCalculatorBl.resolve(state, times), () -> String.join(" ", session) + " x" + times);
+		}
+	}
+
+	@Test
+	void testRepeatAfterNumberAndUnary() {
+		SimpleCalculatorRecord number = SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), "42");
+		assertEquals(resolveOneByOne(number, 5), SimpleCalculatorBl.resolve(number, 5));
+
+		SimpleCalculatorRecord square = SimpleCalculatorBl.square(number);
+		assertThrowsExactly(IllegalStateException.class, () -> SimpleCalculatorBl.resolve(square, 2));
+	}
+
+	@Test
+	void testManyResolvesAreFast() {
+		SimpleCalculatorRecord state = start(new String[] { "1", "plus", "0.5" });
+		SimpleCalculatorRecord result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> SimpleCalculatorBl.resolve(state, 1_000_000_000_000L));
+
+		assertEquals(new BigDecimal("500000000001.0"), SimpleCalculatorBl.getCurrentValue(result));
+		assertEquals(resolveOneByOne(SimpleCalculatorBl.resolve(state, 999_999_999_990L), 10), result);
+	}
+
+	@Test
+	void testFixedPointIsFast() {
+		SimpleCalculatorRecord state = start(new String[] { "5", "multiply", "1" });
+		SimpleCalculatorRecord result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> SimpleCalculatorBl.resolve(state, 10_000_000_000_000L));
+
+		assertEquals(new BigDecimal("5"), SimpleCalculatorBl.getCurrentValue(result));
+	}
+
+	@Test
+	void testRoundedProductsOverflowAtTheSameResolve() {
+		PrecisionPolicy policy = PrecisionPolicy.DEFAULT.withMaxExponent(5);
+		SimpleCalculatorRecord state = start(new String[] { "1", "multiply", "1.001" });
+		SimpleCalculatorRecord overflow = state;
+		long overflowAt = 0;
+		while (overflow.lastResolve() == ResultType.OK) {
+			overflow = SimpleCalculatorBl.resolve(overflow, policy);
+			overflowAt++;
+		}
+
+		assertEquals(ResultType.OVERFLOW, SimpleCalculatorBl.resolve(state, overflowAt, policy).lastResolve());
+		assertEquals(ResultType.OVERFLOW, SimpleCalculatorBl.resolve(state, overflowAt + 1000, policy).lastResolve());
+		SimpleCalculatorRecord beforeOverflow = SimpleCalculatorBl.resolve(state, overflowAt - 1, policy);
+		assertEquals(ResultType.OK, beforeOverflow.lastResolve());
+		// Rounded once per resolve one by one, but only per squaring as a power
+		MathContext context = new MathContext(policy.maxDigits() - 10);
+		assertEquals(SimpleCalculatorBl.getCurrentValue(resolveOneByOne(state, overflowAt - 1, policy)).round(context),
+				SimpleCalculatorBl.getCurrentValue(beforeOverflow).round(context));
+	}
+
+	@Test
+	void testRoundedProductsOverflowFast() {
+		SimpleCalculatorRecord state = start(new String[] { "1", "multiply", "1.0000001" });
+		long times = 10_000_000_000_000L;
+		SimpleCalculatorRecord result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> SimpleCalculatorBl.resolve(state, times));
+
+		assertEquals(ResultType.OVERFLOW, result.lastResolve());
+		// 1.0000001^n reaches 10^10000 after n = 10000 / log10(1.0000001) resolves
+		assertEquals(ResultType.OK, SimpleCalculatorBl.resolve(state, 230_258_520_812L).lastResolve());
+		assertEquals(ResultType.OVERFLOW, SimpleCalculatorBl.resolve(state, 230_258_520_813L).lastResolve());
+	}
+
+	@Test
+	void testRoundedQuotientsAreFast() {
+		SimpleCalculatorRecord growing = start(new String[] { "1", "divide", "0.9999999" });
+		SimpleCalculatorRecord shrinking = start(new String[] { "1", "divide", "1.0000001" });
+
+		SimpleCalculatorRecord result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> SimpleCalculatorBl.resolve(growing, 10_000_000L));
+		// 0.9999999^-10000000 is e^1.00000005
+		assertEquals(Math.exp(1.00000005), SimpleCalculatorBl.getCurrentValue(result).doubleValue(), 1e-9);
+		BigDecimal oneByOne = SimpleCalculatorBl.getCurrentValue(resolveOneByOne(growing, 1_000));
+		assertTrue(oneByOne.subtract(SimpleCalculatorBl.getCurrentValue(SimpleCalculatorBl.resolve(growing, 1_000))).abs().compareTo(new BigDecimal("1e-14")) < 0);
+
+		// 0.9999999^-n reaches 10^10000 after n = 10000 / -log10(0.9999999) resolves
+		result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> SimpleCalculatorBl.resolve(growing, 1_000_000_000_000L));
+		assertEquals(ResultType.OVERFLOW, result.lastResolve());
+		assertEquals(ResultType.OK, SimpleCalculatorBl.resolve(growing, 230_000_000_000L).lastResolve());
+		assertEquals(ResultType.OVERFLOW, SimpleCalculatorBl.resolve(growing, 231_000_000_000L).lastResolve());
+
+		// Rounded to 16 fractional digits the quotients stop shrinking at about 5E-10
+		result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> SimpleCalculatorBl.resolve(shrinking, 1_000_000_000_000L));
+		BigDecimal end = SimpleCalculatorBl.getCurrentValue(result);
+		assertEquals(end, SimpleCalculatorBl.getCurrentValue(SimpleCalculatorBl.resolve(result)));
+		assertTrue(end.compareTo(new BigDecimal("4.9E-10")) > 0 && end.compareTo(new BigDecimal("5E-10")) <= 0, end::toString);
+	}
+
+	@Test
+	void testStopsAtTheFirstError() {
+		PrecisionPolicy policy = PrecisionPolicy.DEFAULT.withMaxExponent(50);
+		SimpleCalculatorRecord product = start(new String[] { "3", "multiply", "10" });
+		assertEquals(resolveOneByOne(product, 50, policy), SimpleCalculatorBl.resolve(product, 1_000_000_000L, policy));
+
+		SimpleCalculatorRecord sum = start(new String[] { "1", "plus", "1e49" });
+		assertEquals(resolveOneByOne(sum, 10, policy), SimpleCalculatorBl.resolve(sum, 1_000_000_000L, policy));
+
+		SimpleCalculatorRecord division = start(new String[] { "1", "divide", "0" });
+		assertEquals(SimpleCalculatorBl.resolve(division), SimpleCalculatorBl.resolve(division, 1_000_000_000L));
+	}
+
+	@Test
+	void testHistory() {
+		SimpleCalculator calculator = new SimpleCalculator();
+		calculator.number("2");
+		calculator.multiply();
+		calculator.number("3");
+		calculator.resolve(4);
+
+		assertEquals(1, calculator.getEquations().size());
+		assertEquals(new BigDecimal("162"), calculator.getEquations().get(0).value());
+
+		SimpleCalculator allToHistory = new SimpleCalculator();
+		allToHistory.number("2");
+		allToHistory.multiply();
+		allToHistory.number("3");
+		allToHistory.resolve(4, true);
+
+		assertEquals(4, allToHistory.getEquations().size());
+		assertEquals(calculator.getState(), allToHistory.getState());
+	}
+
+	private SimpleCalculatorRecord start(String[] session) {
+		SimpleCalculatorRecord state = SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), session[0]);
+		UnaryOperator<SimpleCalculatorRecord> operator = switch (session[1]) {
+		case "plus" -> SimpleCalculatorBl::plus;
+		case "minus" -> SimpleCalculatorBl::minus;
+		case "multiply" -> SimpleCalculatorBl::multiply;
+		default -> SimpleCalculatorBl::divide;
+		};
+		return SimpleCalculatorBl.number(operator.apply(state), session[2]);
+	}
+
+	private static String randomOf(Random random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private SimpleCalculatorRecord resolveOneByOne(SimpleCalculatorRecord state, long times) {
+		for (long i = 0; i < times; i++) {
+			state = SimpleCalculatorBl.resolve(state);
+		}
+		return state;
+	}
+
+	private SimpleCalculatorRecord resolveOneByOne(SimpleCalculatorRecord state, long times, PrecisionPolicy policy) {
+		for (long i = 0; i < times && state.lastResolve() == ResultType.OK; i++) {
+			state = SimpleCalculatorBl.resolve(state, policy);
+		}
+		return state;
+	}
+}
@@ -0,0 +1,93 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.history.EvictionPolicy;
+import dev.dietermai.wincalc.core.simple.history.RingBufferEquationHistory;
+import dev.dietermai.wincalc.core.simple.model.Equation;
+
+class RingBufferEquationHistoryTest {
+
+	@Test
+	void testDropOldest() {
+		RingBufferEquationHistory history = new RingBufferEquationHistory(3);
+		for (int i = 0; i < 10; i++) {
+			history.add(equation(i));
+		}
+
+		assertEquals(List.of(equation(9), equation(8), equation(7)), history.getEquations());
+		assertEquals(3, history.capacity());
+	}
+
+	@Test
+	void testKeepPinned() {
+		RingBufferEquationHistory history = new RingBufferEquationHistory(3, EvictionPolicy.KEEP_PINNED);
+		history.add(equation(0));
+		history.add(equation(1));
+		history.pin(1);
+		history.add(equation(2));
+		history.add(equation(3));
+		history.add(equation(4));
+
+		assertEquals(List.of(equation(4), equation(3), equation(0)), history.getEquations());
+		assertTrue(history.isPinned(2));
+
+		history.pin(0);
+		history.pin(1);
+		history.add(equation(5));
+
+		assertEquals(List.of(equation(5), equation(4), equation(3)), history.getEquations());
+	}
+
+	@Test
+	void testDeleteMatchesList() {
+		Random random = new Random(9);
+		RingBufferEquationHistory history = new RingBufferEquationHistory(16);
+		List<Equation> expected = new ArrayList<>();
+		for (int i = 0; i < 2_000; i++) {
+			if (random.nextInt(3) == 0 && !expected.isEmpty()) {
+				int index = random.nextInt(expected.size());
+				history.delete(index);
+				expected.remove(index);
+			} else {
+				history.add(equation(i));
+				expected.add(0, equation(i));
+				if (expected.size() > 16) {
+					expected.remove(16);
+				}
+			}
+			assertEquals(expected, history.view());
+		}
+	}
+
+	@Test
+	void testViewIsLive() {
+		RingBufferEquationHistory history = new RingBufferEquationHistory(4);
+		List<Equation> view = history.view();
+		List<Equation> copy = history.getEquations();
+		history.addIfNewEquation(equation(1));
+		history.addIfNewEquation(history.get(0));
+
+		assertEquals(List.of(equation(1)), view);
+		assertEquals(List.of(), copy);
+		assertThrowsExactly(UnsupportedOperationException.class, () -> view.remove(0));
+		List<Equation> filled = history.getEquations();
+		assertThrowsExactly(UnsupportedOperationException.class, () -> filled.set(0, equation(2)));
+		history.delete(5);
+		history.clear();
+		assertTrue(view.isEmpty());
+	}
+
+	private Equation equation(int i) {
+		return Equation.of(BigDecimal.valueOf(i));
+	}
+}
@@ -0,0 +1,112 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBatch;
+import dev.dietermai.wincalc.core.simple.model.BatchResult;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+
+class SimpleCalculatorBatchTest {
+	private static final OperationType[] TYPES = OperationType.values();
+	private static final String[] NUMBERS = { "0", "1", "2", "7", "12", "0.5", "-3", "100", "123.456" };
+
+	@Test
+	void testSingleSession() {
+		List<Operation> session = List.of(Operation.number("12"), Operation.of(OperationType.plus), Operation.number("3"), Operation.of(OperationType.resolve));
+
+		BatchResult result = SimpleCalculatorBatch.evaluateSession(session);
+
+		assertEquals(serial(session), result);
+	}
+
+	@Test
+	void testParallelMatchesSerial() {
+		List<List<Operation>> sessions = randomSessions(new Random(42), 2_000);
+
+		List<BatchResult> results;
+		try (ForkJoinPool pool = new ForkJoinPool(4)) {
+			results = new SimpleCalculatorBatch(pool).evaluate(sessions);
+		}
+
+		assertEquals(sessions.size(), results.size());
+		for (int i = 0; i < sessions.size(); i++) {
+			assertEquals(serial(sessions.get(i)), results.get(i));
+		}
+	}
+
+	@Test
+	void testFailedSessionKeepsTheOthers() {
+		List<Operation> first = List.of(Operation.number("12"), Operation.of(OperationType.plus), Operation.number("3"), Operation.of(OperationType.resolve));
+		// Resolving the error again throws
+		List<Operation> failing = List.of(Operation.number("5"), Operation.of(OperationType.divide), Operation.number("0"), Operation.of(OperationType.resolve),
+				Operation.of(OperationType.resolve), Operation.number("1"));
+		List<Operation> last = List.of(Operation.number("7"), Operation.of(OperationType.square), Operation.of(OperationType.resolve));
+
+		List<BatchResult> results;
+		try (ForkJoinPool pool = new ForkJoinPool(4)) {
+			results = new SimpleCalculatorBatch(pool).evaluate(List.of(first, failing, last));
+		}
+
+		assertEquals(serial(first), results.get(0));
+		assertEquals(serial(last), results.get(2));
+		BatchResult failed = results.get(1);
+		assertTrue(failed.failed());
+		assertFalse(results.get(0).failed());
+		assertEquals(serial(failing.subList(0, 4)), BatchResult.of(failed.state(), failed.equations()));
+	}
+
+	private BatchResult serial(List<Operation> session) {
+		SimpleCalculator calculator = new SimpleCalculator();
+		session.forEach(calculator::apply);
+		return BatchResult.of(calculator.getState(), calculator.getEquations());
+	}
+
+	private List<List<Operation>> randomSessions(Random random, int count) {
+		List<List<Operation>> sessions = new ArrayList<>();
+		while (sessions.size() < count) {
+			List<Operation> session = randomSession(random);
+			if (isValid(session)) {
+				sessions.add(session);
+			}
+		}
+		return sessions;
+	}
+
+	private List<Operation> randomSession(Random random) {
+		int length = 1 + random.nextInt(20);
+		List<Operation> session = new ArrayList<>(length);
+		for (int i = 0; i < length; i++) {
+			OperationType type = TYPES[random.nextInt(TYPES.length)];
+			if (type == OperationType.number) {
+				session.add(Operation.number(NUMBERS[random.nextInt(NUMBERS.length)]));
+			} else {
+				session.add(Operation.of(type));
+			}
+		}
+		return session;
+	}
+
+	/**
+	 * Sequences that operate on an error state throw, those are not of interest
+	 * here.
+	 */
+	private boolean isValid(List<Operation> session) {
+		try {
+			serial(session);
+			return true;
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+}
@@ -62,6 +62,33 @@ class SimpleCalculatorTest {
 		verifyMemory("111");
 	}
 
+	@Test
+	void testNumberAfterChainedOperator() {
+		calculator.number("12");
+		calculator.plus();
+		calculator.number("3");
+		calculator.multiply();
+		calculator.number("4");
+
+		verifyInput("4");
+		verifyExpression(expression("15", BiOperator.multiply));
+		verifyEquation(equation(expression("12", BiOperator.plus, "3"), "15"));
+
+		calculator.resolve();
+
+		verify(equation(expression("15", BiOperator.multiply, "4"), "60"));
+	}
+
+	@Test
+	void testNumberAfterUnaryReplacesIt() {
+		calculator.number("9");
+		calculator.square();
+		calculator.number("5");
+		calculator.resolve();
+
+		verify(equation("5", "5"));
+	}
+
 	@Test
 	void testResolveOfInitialNumber() {
 		calculator.number("123");
@@ -258,6 +285,35 @@ class SimpleCalculatorTest {
 		verifyMemory("21");
 	}
 
+	@Test
+	void testPlusAfterUnaryExpression() {
+		calculator.number("9");
+		calculator.square();
+		calculator.plus();
+
+		verify(BinaryExpression.of(expression(UnaryOperator.square, "9"), BiOperator.plus));
+
+		calculator.number("1");
+		calculator.resolve();
+
+		verify(equation(expression("81", BiOperator.plus, "1"), "82"));
+	}
+
+	@Test
+	void testPlusAfterNumberOnUnaryExpression() {
+		calculator.number("9");
+		calculator.square();
+		calculator.number("5");
+		calculator.plus();
+
+		verify(expression("5", BiOperator.plus));
+
+		calculator.number("1");
+		calculator.resolve();
+
+		verify(equation(expression("5", BiOperator.plus, "1"), "6"));
+	}
+
 	/* ***********************/
 	/* Minus related methods */
 	/* ***********************/
@@ -1357,6 +1413,20 @@ class SimpleCalculatorTest {
 		verify(expression(UnaryOperator.oneDivX, "0"), ResultType.DIVIDE_BY_ZERO);
 	}
 
+	@Test
+	void testOneDivXOfInputInBinary() {
+		calculator.number("5");
+		calculator.plus();
+		calculator.number("4");
+		calculator.oneDivX();
+
+		verify(expression("5", BiOperator.plus, expression(UnaryOperator.oneDivX, "4")));
+
+		calculator.resolve();
+
+		verify(equation(expression("5", BiOperator.plus, "0.25"), "5.25"));
+	}
+
 	/* ********************/
 	/* CE related methods */
 	/* ********************/
@@ -0,0 +1,83 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.model.BatchResult;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+import dev.dietermai.wincalc.core.simple.text.TextEvaluator;
+
+class TextEvaluatorTest {
+
+	@Test
+	void testLeftToRight() {
+		assertEquals(new BigDecimal("60"), TextEvaluator.evaluate("12+3*4=").state().equation().value());
+		assertEquals(new BigDecimal("27"), TextEvaluator.evaluate("sqr(9)/3=").state().equation().value());
+		assertEquals(new BigDecimal("5.25"), TextEvaluator.evaluate("5+1/(4)=").state().equation().value());
+
+		assertSameAs("12 + 3 × 4 =", number("12"), op(OperationType.plus), number("3"), op(OperationType.multiply), number("4"), op(OperationType.resolve));
+		assertSameAs("sqr(9)/3=", number("9"), op(OperationType.square), op(OperationType.divide), number("3"), op(OperationType.resolve));
+	}
+
+	@Test
+	void testFunctionsAndKeys() {
+		assertSameAs("5+1/(4)=", number("5"), op(OperationType.plus), number("4"), op(OperationType.oneDivX), op(OperationType.resolve));
+		assertSameAs("1/2=", number("1"), op(OperationType.divide), number("2"), op(OperationType.resolve));
+		assertSameAs("negate(√(sqr(.5)))−2=", number("0.5"), op(OperationType.square), op(OperationType.root), op(OperationType.negate), op(OperationType.minus), number("2"),
+				op(OperationType.resolve));
+		assertSameAs("SQRT(16)÷2%\n=\nc 3+ce 4==", number("16"), op(OperationType.root), op(OperationType.divide), number("2"), op(OperationType.percent), op(OperationType.resolve),
+				op(OperationType.c), number("3"), op(OperationType.plus), op(OperationType.ce), number("4"), op(OperationType.resolve), op(OperationType.resolve));
+	}
+
+	@Test
+	void testChunkedBytes() {
+		String text = "12×√(sqr(3))÷1/(4)=\n7.25−3=";
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+		TextEvaluator evaluator = new TextEvaluator();
+		for (byte b : bytes) {
+			evaluator.accept(ByteBuffer.wrap(new byte[] { b }));
+		}
+		evaluator.finish();
+
+		BatchResult expected = TextEvaluator.evaluate(text);
+		assertEquals(expected, BatchResult.of(evaluator.getState(), evaluator.getEquations()));
+		assertEquals(new BigDecimal("144"), expected.equations().get(1).value());
+		assertEquals(new BigDecimal("4.25"), expected.state().equation().value());
+	}
+
+	@Test
+	void testInvalidInput() {
+		for (String text : List.of("sqr(1+2)", "sqr(3", "sqr(3)(", "foo(3)", "1..2", "3)", "sqr()", "sqr(3 4)", "√3", "1?", "sqr(c)", "negate(3\n)")) {
+			assertThrowsExactly(IllegalArgumentException.class, () -> TextEvaluator.evaluate(text), text);
+		}
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private void assertSameAs(String text, Operation... operations) {
+		SimpleCalculator calculator = new SimpleCalculator();
+		for (Operation operation : operations) {
+			calculator.apply(operation);
+		}
+		assertEquals(BatchResult.of(calculator.getState(), calculator.getEquations()), TextEvaluator.evaluate(text), text);
+	}
+
+	private static Operation number(String input) {
+		return Operation.number(input);
+	}
+
+	private static Operation op(OperationType type) {
+		return Operation.of(type);
+	}
+}
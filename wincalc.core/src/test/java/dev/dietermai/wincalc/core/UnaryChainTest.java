@@ -0,0 +1,63 @@
+package dev.dietermai.wincalc.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.PrecisionPolicy;
+import dev.dietermai.wincalc.core.simple.SimpleCalculator;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.history.RingBufferEquationHistory;
+import dev.dietermai.wincalc.core.simple.model.Expression;
+import dev.dietermai.wincalc.core.simple.model.NumberExpression;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+import dev.dietermai.wincalc.core.simple.model.UnaryExpression;
+import dev.dietermai.wincalc.core.simple.model.UnaryOperator;
+
+class UnaryChainTest {
+	private static final int PRESSES = 200_000;
+
+	@Test
+	void testManyPressesTakeLinearTime() {
+		SimpleCalculator calculator = new SimpleCalculator(new RingBufferEquationHistory(16));
+		calculator.number("7");
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			for (int i = 0; i < PRESSES; i++) {
+				calculator.negate();
+				calculator.square();
+				calculator.root();
+			}
+		});
+		calculator.resolve();
+
+		assertEquals(new BigDecimal("7"), calculator.getState().equation().value());
+	}
+
+	@Test
+	void testDeepChainWithoutCachedResults() {
+		Expression chain = NumberExpression.of("5");
+		for (int i = 0; i < PRESSES; i++) {
+			chain = new UnaryExpression(i % 2 == 0 ? UnaryOperator.negate : UnaryOperator.oneDivX, chain);
+		}
+
+		SimpleCalculatorRecord resolved = SimpleCalculatorBl.resolve(SimpleCalculatorRecord.of(chain));
+
+		assertEquals(new BigDecimal("5"), resolved.equation().value());
+	}
+
+	@Test
+	void testCachedResultsDependOnThePolicy() {
+		SimpleCalculatorRecord state = SimpleCalculatorBl.number(SimpleCalculatorRecord.of(), "2");
+		state = SimpleCalculatorBl.root(state);
+		state = SimpleCalculatorBl.root(state);
+		state = SimpleCalculatorBl.oneDivX(state);
+
+		assertEquals(new BigDecimal("0.8408964152537146"), SimpleCalculatorBl.getCurrentValue(state));
+		assertEquals(new BigDecimal("0.84089641525371454303112547623320"), SimpleCalculatorBl.getCurrentValue(state, PrecisionPolicy.WINDOWS));
+		assertEquals(new BigDecimal("0.8408964152537146"), SimpleCalculatorBl.getCurrentValue(state, PrecisionPolicy.DIGITS_16));
+	}
+}
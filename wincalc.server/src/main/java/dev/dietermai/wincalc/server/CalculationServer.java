@@ -0,0 +1,168 @@
+package dev.dietermai.wincalc.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import dev.dietermai.wincalc.core.simple.ConcurrentSimpleCalculator;
+import dev.dietermai.wincalc.core.simple.SimpleCalculatorBl;
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.SimpleCalculatorRecord;
+
+/**
+ * Hosts independent calculator sessions behind an HTTP endpoint on the
+ * loopback interface. Every request is handled on its own virtual thread.
+ * <ul>
+ * <li>POST /sessions/{id} applies the operation batch in the body, see
+ * {@link OperationParser}, and answers with the display after the last
+ * operation. The session is created on first use.</li>
+ * <li>GET /sessions/{id} answers with the current display.</li>
+ * <li>DELETE /sessions/{id} ends the session.</li>
+ * </ul>
+ * The display is the current value in plain notation, or the name of the
+ * {@link dev.dietermai.wincalc.core.simple.model.ResultType} if the last
+ * resolve failed. A batch is applied as one atomic step, so concurrent
+ * requests for the same session never interleave.
+ */
+public class CalculationServer implements AutoCloseable {
+	public static final String CONTEXT = "/sessions/";
+
+	private static final String TEXT = "text/plain; charset=utf-8";
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final ConcurrentMap<String, ConcurrentSimpleCalculator> sessions = new ConcurrentHashMap<>();
+
+	private CalculationServer(HttpServer server, ExecutorService executor) {
+		this.server = server;
+		this.executor = executor;
+	}
+
+	/**
+	 * Starts a server on the loopback interface.
+	 *
+	 * @param port The port, 0 to pick a free one
+	 * @return The running server
+	 */
+	public static CalculationServer start(int port) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		CalculationServer calculationServer = new CalculationServer(server, executor);
+		server.createContext(CONTEXT, calculationServer::handle);
+		server.setExecutor(executor);
+		server.start();
+		return calculationServer;
+	}
+
+	/**
+	 * @return The base URI of the sessions, append the session id
+	 */
+	public URI sessionsUri() {
+		InetSocketAddress address = server.getAddress();
+		return URI.create("http://" + address.getHostString() + ":" + address.getPort() + CONTEXT);
+	}
+
+	public int sessionCount() {
+		return sessions.size();
+	}
+
+	/**
+	 * Stops the server, requests that are already running may finish.
+	 */
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.close();
+	}
+
+	/**
+	 * @return The text the calculator shows for the given state
+	 */
+	public static String display(SimpleCalculatorRecord state) {
+		if (state.lastResolve().error()) {
+			return state.lastResolve().name();
+		}
+		return SimpleCalculatorBl.getCurrentValue(state).toPlainString();
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			String id = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+			if (id.isEmpty() || id.indexOf('/') >= 0) {
+				respond(exchange, 404, "Unknown resource");
+				return;
+			}
+			switch (exchange.getRequestMethod()) {
+			case "POST" -> post(exchange, id);
+			case "GET" -> get(exchange, id);
+			case "DELETE" -> delete(exchange, id);
+			default -> respond(exchange, 405, "Method not allowed");
+			}
+		}
+	}
+
+	private void post(HttpExchange exchange, String id) throws IOException {
+		String body;
+		try (InputStream in = exchange.getRequestBody()) {
+			body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		List<Operation> operations;
+		try {
+			operations = OperationParser.parse(body);
+		} catch (IllegalArgumentException e) {
+			respond(exchange, 400, e.getMessage());
+			return;
+		}
+		ConcurrentSimpleCalculator calculator = sessions.computeIfAbsent(id, key -> new ConcurrentSimpleCalculator());
+		SimpleCalculatorRecord state;
+		try {
+			state = calculator.applyAll(operations);
+		} catch (RuntimeException e) {
+			// The batch was not applied, the session is unchanged
+			respond(exchange, 422, "Batch not supported: " + e.getMessage());
+			return;
+		}
+		respond(exchange, 200, display(state));
+	}
+
+	private void get(HttpExchange exchange, String id) throws IOException {
+		ConcurrentSimpleCalculator calculator = sessions.get(id);
+		if (calculator == null) {
+			respond(exchange, 404, "Unknown session: " + id);
+		} else {
+			respond(exchange, 200, display(calculator.getState()));
+		}
+	}
+
+	private void delete(HttpExchange exchange, String id) throws IOException {
+		if (sessions.remove(id) == null) {
+			respond(exchange, 404, "Unknown session: " + id);
+		} else {
+			exchange.sendResponseHeaders(204, -1);
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+		byte[] bytes = (text + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", TEXT);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package dev.dietermai.wincalc.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives many concurrent sessions against a {@link CalculationServer} and
+ * reports the latency percentiles of the requests. Every session runs on its
+ * own virtual thread and sends its batches one after the other. The number of
+ * requests in flight is limited, so the open connections stay below the file
+ * descriptor limit of the process. The latency of a request is measured from
+ * the moment it is allowed to start, so it does not include that wait.
+ * <p>
+ * Usage: LoadGenerator [sessions] [batches per session] [max in flight] [url]
+ * <br>
+ * Defaults to 10000 sessions with 10 batches each and 512 requests in flight,
+ * against a server started in the same process if no url is given.
+ */
+public class LoadGenerator {
+	private static final int DEFAULT_SESSIONS = 10_000;
+	private static final int DEFAULT_BATCHES = 10;
+	private static final int DEFAULT_IN_FLIGHT = 512;
+
+	private final HttpClient client;
+	private final URI sessionsUri;
+	private final Semaphore inFlight;
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong runs = new AtomicLong();
+
+	public LoadGenerator(HttpClient client, URI sessionsUri, int maxInFlight) {
+		this.client = client;
+		this.sessionsUri = sessionsUri;
+		this.inFlight = new Semaphore(maxInFlight);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+		int batches = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BATCHES;
+		int maxInFlight = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_IN_FLIGHT;
+		CalculationServer server = args.length > 3 ? null : CalculationServer.start(0);
+		URI uri = server == null ? URI.create(args[3]) : server.sessionsUri();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build();
+			LoadGenerator generator = new LoadGenerator(client, uri, maxInFlight);
+			// Warm up the server and the client
+			generator.run(Math.min(sessions, 1_000), batches);
+			long start = System.nanoTime();
+			long[] latencies = generator.run(sessions, batches);
+			long elapsed = System.nanoTime() - start;
+			System.out.println(report(latencies, elapsed, generator.failures()));
+		} finally {
+			if (server != null) {
+				server.close();
+			}
+		}
+	}
+
+	/**
+	 * Runs the given number of sessions concurrently and waits for all of them.
+	 *
+	 * @return The latency of every request in nanoseconds, sorted
+	 */
+	public long[] run(int sessions, int batches) throws InterruptedException {
+		long[] latencies = new long[sessions * batches];
+		Thread[] threads = new Thread[sessions];
+		long run = runs.incrementAndGet();
+		for (int session = 0; session < sessions; session++) {
+			int first = session * batches;
+			String id = "load-" + run + "-" + session;
+			threads[session] = Thread.ofVirtual().start(() -> runSession(id, first, batches, latencies));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Arrays.sort(latencies);
+		return latencies;
+	}
+
+	public long failures() {
+		return failures.get();
+	}
+
+	/**
+	 * @param latencies Sorted latencies in nanoseconds
+	 * @return The p50, p99 and max latency and the throughput
+	 */
+	public static String report(long[] latencies, long elapsedNanos, long failures) {
+		return String.format("requests=%d failures=%d p50=%.3fms p99=%.3fms max=%.3fms throughput=%.0f/s", //
+				latencies.length, failures, //
+				millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)), millis(latencies[latencies.length - 1]), //
+				latencies.length * 1e9 / elapsedNanos);
+	}
+
+	/**
+	 * @param sorted   Sorted values, not empty
+	 * @param fraction The percentile as fraction, 0.99 for p99
+	 * @return The nearest-rank percentile
+	 */
+	public static long percentile(long[] sorted, double fraction) {
+		int rank = (int) Math.ceil(fraction * sorted.length);
+		return sorted[Math.max(rank - 1, 0)];
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private void runSession(String id, int first, int batches, long[] latencies) {
+		URI uri = sessionsUri.resolve(id);
+		for (int batch = 0; batch < batches; batch++) {
+			// Every batch is a full calculation, so the answer can be checked
+			String body = "c, number " + first + ", plus, number " + batch + ", resolve";
+			String expected = Long.toString((long) first + batch);
+			HttpResponse<String> response = send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(body)).build(), latencies, first + batch);
+			if (response == null || response.statusCode() != 200 || !response.body().strip().equals(expected)) {
+				failures.incrementAndGet();
+			}
+		}
+		send(HttpRequest.newBuilder(uri).DELETE().build(), null, 0);
+	}
+
+	/**
+	 * @param latencies Where the latency is stored at the given index, null to
+	 *                  not measure it
+	 * @return The response, or null if the request failed
+	 */
+	private HttpResponse<String> send(HttpRequest request, long[] latencies, int index) {
+		inFlight.acquireUninterruptibly();
+		long start = System.nanoTime();
+		try {
+			return client.send(request, HttpResponse.BodyHandlers.ofString());
+		} catch (IOException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} finally {
+			if (latencies != null) {
+				latencies[index] = System.nanoTime() - start;
+			}
+			inFlight.release();
+		}
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+}
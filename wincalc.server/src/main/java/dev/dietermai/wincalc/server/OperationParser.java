@@ -0,0 +1,110 @@
+package dev.dietermai.wincalc.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+
+/**
+ * Parses the text form of an operation batch. Operations are separated by
+ * commas or line breaks, each one is the name of an {@link OperationType}.
+ * Only {@link OperationType#number} takes an argument, separated by
+ * whitespace:
+ *
+ * <pre>
+ * number 12, plus, number 3, resolve
+ * </pre>
+ */
+public final class OperationParser {
+
+	private OperationParser() {
+	}
+
+	/**
+	 * @param text The batch in text form
+	 * @return The parsed operations, in order
+	 * @throws IllegalArgumentException If an operation is unknown or has a wrong
+	 *                                  argument
+	 */
+	public static List<Operation> parse(CharSequence text) {
+		List<Operation> operations = new ArrayList<>();
+		int start = 0;
+		int length = text.length();
+		for (int i = 0; i <= length; i++) {
+			if (i == length || isSeparator(text.charAt(i))) {
+				String token = text.subSequence(start, i).toString().strip();
+				if (!token.isEmpty()) {
+					operations.add(parseOperation(token));
+				}
+				start = i + 1;
+			}
+		}
+		return operations;
+	}
+
+	/**
+	 * @return The text form of the given operations, parsable by
+	 *         {@link #parse(CharSequence)}
+	 */
+	public static String format(List<Operation> operations) {
+		StringBuilder text = new StringBuilder();
+		for (Operation operation : operations) {
+			if (!text.isEmpty()) {
+				text.append(", ");
+			}
+			text.append(operation.type());
+			if (operation.input() != null) {
+				text.append(' ').append(operation.input());
+			}
+		}
+		return text.toString();
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private static boolean isSeparator(char c) {
+		return c == ',' || c == '\n' || c == '\r';
+	}
+
+	private static Operation parseOperation(String token) {
+		String[] parts = token.split("\\s+");
+		OperationType type;
+		try {
+			type = OperationType.valueOf(parts[0]);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown operation: " + parts[0]);
+		}
+		if (type == OperationType.number) {
+			if (parts.length != 2 || !isNumber(parts[1])) {
+				throw new IllegalArgumentException("Expected 'number <digits>' but was: " + token);
+			}
+			return Operation.number(parts[1]);
+		}
+		if (parts.length != 1) {
+			throw new IllegalArgumentException("Operation " + type + " takes no argument: " + token);
+		}
+		return Operation.of(type);
+	}
+
+	/**
+	 * @return true if the input is what the number keys can produce: digits with
+	 *         at most one decimal point
+	 */
+	private static boolean isNumber(String input) {
+		boolean digit = false;
+		boolean point = false;
+		for (int i = 0; i < input.length(); i++) {
+			char c = input.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digit = true;
+			} else if (c == '.' && !point) {
+				point = true;
+			} else {
+				return false;
+			}
+		}
+		return digit;
+	}
+}
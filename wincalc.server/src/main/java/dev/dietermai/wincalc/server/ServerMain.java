@@ -0,0 +1,20 @@
+package dev.dietermai.wincalc.server;
+
+import java.io.IOException;
+
+/**
+ * Starts a {@link CalculationServer} and runs until the process is stopped.
+ * <p>
+ * Usage: java --enable-preview -p &lt;module path&gt; -m
+ * wincalc.server/dev.dietermai.wincalc.server.ServerMain [port]
+ */
+public class ServerMain {
+	private static final int DEFAULT_PORT = 8080;
+
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		CalculationServer server = CalculationServer.start(port);
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		System.out.println("Serving calculator sessions at " + server.sessionsUri());
+	}
+}
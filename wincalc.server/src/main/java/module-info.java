@@ -0,0 +1,11 @@
+
+/**
+ * Serves calculator sessions over HTTP on the loopback interface.
+ */
+module wincalc.server {
+	requires wincalc.core;
+	requires jdk.httpserver;
+	requires java.net.http;
+
+	exports dev.dietermai.wincalc.server;
+}
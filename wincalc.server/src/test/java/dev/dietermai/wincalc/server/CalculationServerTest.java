@@ -0,0 +1,95 @@
+package dev.dietermai.wincalc.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.dietermai.wincalc.core.simple.model.Operation;
+import dev.dietermai.wincalc.core.simple.model.OperationType;
+
+class CalculationServerTest {
+	private CalculationServer server;
+	private HttpClient client;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = CalculationServer.start(0);
+		client = HttpClient.newHttpClient();
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.close();
+	}
+
+	@Test
+	void testParse() {
+		List<Operation> expected = List.of(Operation.number("12"), Operation.of(OperationType.plus), Operation.number("3.5"), Operation.of(OperationType.resolve));
+		assertEquals(expected, OperationParser.parse("number 12, plus,\nnumber  3.5 ,resolve,"));
+		assertEquals(expected, OperationParser.parse(OperationParser.format(expected)));
+		assertEquals(List.of(), OperationParser.parse(" "));
+
+		assertThrows(IllegalArgumentException.class, () -> OperationParser.parse("number 12, times"));
+		assertThrows(IllegalArgumentException.class, () -> OperationParser.parse("number -1"));
+		assertThrows(IllegalArgumentException.class, () -> OperationParser.parse("plus 1"));
+	}
+
+	@Test
+	void testSessions() throws Exception {
+		assertEquals("15", post("a", "number 12, plus, number 3, resolve").body());
+		assertEquals("18", post("a", "resolve").body());
+		assertEquals("2", post("b", "number 6, divide, number 3, resolve").body());
+		assertEquals("DIVIDE_BY_ZERO", post("c", "number 1, divide, number 0, resolve").body());
+		assertEquals(3, server.sessionCount());
+
+		assertEquals("18", send(HttpRequest.newBuilder(uri("a")).GET()).body());
+		assertEquals(204, send(HttpRequest.newBuilder(uri("a")).DELETE()).statusCode());
+		assertEquals(404, send(HttpRequest.newBuilder(uri("a")).GET()).statusCode());
+		assertEquals(2, server.sessionCount());
+	}
+
+	@Test
+	void testBadRequest() throws Exception {
+		Reply response = post("a", "number 1, times");
+		assertEquals(400, response.statusCode());
+		assertEquals("Unknown operation: times", response.body());
+		assertEquals(0, server.sessionCount());
+	}
+
+	@Test
+	void testLoadGenerator() throws Exception {
+		LoadGenerator generator = new LoadGenerator(client, server.sessionsUri(), 16);
+		long[] latencies = generator.run(50, 4);
+		assertEquals(200, latencies.length);
+		assertEquals(0, generator.failures());
+		assertEquals(0, server.sessionCount());
+	}
+
+	/* -------------- */
+	/* Helper methods */
+	/* -------------- */
+	private record Reply(int statusCode, String body) {
+	}
+
+	private Reply post(String id, String batch) throws Exception {
+		return send(HttpRequest.newBuilder(uri(id)).POST(HttpRequest.BodyPublishers.ofString(batch)));
+	}
+
+	private Reply send(HttpRequest.Builder request) throws Exception {
+		HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+		return new Reply(response.statusCode(), response.body().strip());
+	}
+
+	private URI uri(String id) {
+		return server.sessionsUri().resolve(id);
+	}
+}